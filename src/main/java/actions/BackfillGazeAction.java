@@ -0,0 +1,81 @@
+package actions;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptor;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import entity.Config;
+import org.jetbrains.annotations.NotNull;
+import utils.GazeBackfiller;
+
+import java.io.File;
+
+/**
+ * This class is the action for mapping the gazes of a session recorded with the deferred gaze resolution policy to the
+ * source code after the session. See {@link GazeBackfiller}.
+ */
+public class BackfillGazeAction extends AnAction {
+
+    /**
+     * This method asks for the session folder and runs the {@link GazeBackfiller} in the background.
+     *
+     * @param e The action event.
+     */
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) {
+            return;
+        }
+        FileChooserDescriptor descriptor = new FileChooserDescriptor(false, true, false, false, false, false);
+        descriptor.setTitle("Select Session Folder");
+        descriptor.setDescription("Select the folder of a session recorded with the deferred gaze resolution policy");
+        Config config = new Config();
+        VirtualFile toSelect = null;
+        if (config.configExists()) {
+            config.loadFromJson();
+            toSelect = LocalFileSystem.getInstance().findFileByPath(config.getDataOutputPath());
+        }
+        VirtualFile sessionFolder = FileChooser.chooseFile(descriptor, project, toSelect);
+        if (sessionFolder == null) {
+            return;
+        }
+        File sessionDirectory = new File(sessionFolder.getPath());
+        if (!new File(sessionDirectory, "eye_tracking.xml").exists()) {
+            notify(project, "No eye_tracking.xml in " + sessionDirectory.getPath() + ".", NotificationType.WARNING);
+            return;
+        }
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Backfilling gaze mapping", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    int mappedCount = new GazeBackfiller(project, sessionDirectory).backfill(indicator);
+                    BackfillGazeAction.notify(project, mappedCount + " gazes and fixations mapped to "
+                            + GazeBackfiller.OUTPUT_FILE + ".", NotificationType.INFORMATION);
+                } catch (ProcessCanceledException ex) {
+                    throw ex;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    BackfillGazeAction.notify(project, "Gaze backfill failed: " + ex.getMessage(),
+                            NotificationType.ERROR);
+                }
+            }
+        });
+    }
+
+    private static void notify(Project project, String content, NotificationType type) {
+        Notification notification = new Notification("CodeGRITS Notification Group", "Gaze Backfill", content, type);
+        notification.notify(project);
+    }
+}
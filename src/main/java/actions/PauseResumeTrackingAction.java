@@ -7,7 +7,6 @@ import com.intellij.openapi.actionSystem.AnActionEvent;
 import org.jetbrains.annotations.NotNull;
 import trackers.ScreenRecorder;
 
-import java.io.IOException;
 
 /**
  * This class is the action for pausing/resuming tracking.
@@ -56,11 +55,7 @@ public class PauseResumeTrackingAction extends AnAction {
             StartStopTrackingAction.pauseTracking();
             ConfigAction.setIsEnabled(false);
             AddLabelAction.setIsEnabled(false);
-            try {
-                screenRecorder.pauseRecording();
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
-            }
+            screenRecorder.pauseRecording();
             ApplicationManager.getApplication()
                 .getMessageBus()
                 .syncPublisher(TrackingStatusNotifier.TOPIC)
@@ -1,7 +1,12 @@
 package actions;
 
 import com.intellij.openapi.application.ApplicationManager;
+import api.AsyncEventSink;
+import api.RealtimeStreamServer;
+import api.SharedMemoryEventSink;
+import api.SharedMemoryLayout;
 import api.TrackingStatusNotifier;
+import api.XMLPreviewDataHandler;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
 import com.intellij.openapi.actionSystem.AnAction;
@@ -10,9 +15,12 @@ import components.ConfigDialog;
 import entity.Config;
 import org.jetbrains.annotations.NotNull;
 import trackers.EyeTracker;
+import trackers.GazeResolutionPolicy;
 import trackers.IDETracker;
 import trackers.ScreenRecorder;
+import trackers.SimulatedEyeTrackerDevice;
 import utils.AvailabilityChecker;
+import utils.SessionClock;
 
 import javax.swing.*;
 import javax.xml.parsers.ParserConfigurationException;
@@ -45,6 +53,18 @@ public class StartStopTrackingAction extends AnAction {
      * This variable is the configuration.
      */
     Config config = new Config();
+    /**
+     * This variable is the asynchronous sink of the XML preview, registered on the trackers during the tracking.
+     */
+    private AsyncEventSink previewSink;
+    /**
+     * This variable is the asynchronous sink of the shared-memory event ring, if it is enabled.
+     */
+    private AsyncEventSink sharedMemorySink;
+    /**
+     * This variable is the asynchronous sink of the stream server, if the real-time streaming is enabled.
+     */
+    private AsyncEventSink streamSink;
 
     /**
      * Update the text of the action button.
@@ -73,7 +93,8 @@ public class StartStopTrackingAction extends AnAction {
         }
         try {
             if (!isTracking) {
-                if (config.getCheckBoxes().get(1)) {
+                SimulatedEyeTrackerDevice.Mode simulatorMode = SimulatedEyeTrackerDevice.Mode.fromName(config.getEyeTrackerSimulator());
+                if (config.getCheckBoxes().get(1) && simulatorMode == null) {
                     if (!AvailabilityChecker.checkPythonEnvironment(config.getPythonInterpreter())) {
                         JOptionPane.showMessageDialog(null, "Python interpreter not found. Please configure the plugin first.");
                         return;
@@ -85,21 +106,44 @@ public class StartStopTrackingAction extends AnAction {
                 }
 
                 isTracking = true;
+                // all trackers of the session share one time base
+                SessionClock sessionClock = SessionClock.start();
                 ConfigAction.setIsEnabled(false);
                 AddLabelActionGroup.setIsEnabled(true);
                 String projectPath = e.getProject() != null ? e.getProject().getBasePath() : "";
                 String realDataOutputPath = Objects.equals(config.getDataOutputPath(), ConfigDialog.selectDataOutputPlaceHolder)
                         ? projectPath : config.getDataOutputPath();
-                realDataOutputPath += "/" + System.currentTimeMillis() + "/";
+                realDataOutputPath += "/" + sessionClock.getAnchorEpochMillis() + "/";
 
                 if (config.getCheckBoxes().get(2)) {
                     screenRecorder.setDataOutputPath(realDataOutputPath);
+                    screenRecorder.setContinuousRecording(config.isContinuousRecording());
+                    screenRecorder.setRegionCapture(config.isRegionCapture());
+                    screenRecorder.setAdaptiveFrameRate(config.isAdaptiveFrameRate());
+                    screenRecorder.setProject(e.getProject());
                     screenRecorder.startRecording();
                 }
 
                 iDETracker = IDETracker.getInstance();
                 iDETracker.setProjectPath(projectPath);
                 iDETracker.setDataOutputPath(realDataOutputPath);
+                previewSink = new AsyncEventSink("XML Preview", XMLPreviewDataHandler.getInstance(), 256,
+                        AsyncEventSink.OverflowPolicy.DROP_OLDEST);
+                iDETracker.getEventDispatcher().addSink(previewSink);
+                // the eye events are dispatched on the EDT, so the serialization and the writes run on the threads of
+                // the asynchronous sinks
+                if (config.isRealTimeStreaming()) {
+                    RealtimeStreamServer.getInstance().start();
+                    streamSink = new AsyncEventSink("Stream Server", RealtimeStreamServer.getInstance(), 4096,
+                            AsyncEventSink.OverflowPolicy.DROP_OLDEST);
+                    iDETracker.getEventDispatcher().addSink(streamSink);
+                }
+                if (config.isSharedMemoryStreaming()) {
+                    sharedMemorySink = new AsyncEventSink("Shared Memory", new SharedMemoryEventSink(
+                            SharedMemoryLayout.DEFAULT_FILE, SharedMemoryEventSink.DEFAULT_SLOT_COUNT), 4096,
+                            AsyncEventSink.OverflowPolicy.DROP_OLDEST);
+                    iDETracker.getEventDispatcher().addSink(sharedMemorySink);
+                }
                 iDETracker.startTracking(e.getProject());
                 ApplicationManager.getApplication()
                     .getMessageBus()
@@ -113,8 +157,19 @@ public class StartStopTrackingAction extends AnAction {
                     eyeTracker.setPythonInterpreter(config.getPythonInterpreter());
                     eyeTracker.setSampleFrequency(config.getSampleFreq());
                     eyeTracker.setDeviceIndex(config.getEyeTrackerDevice());
-                    eyeTracker.setPythonScriptTobii();
-                    eyeTracker.setPythonScriptMouse();
+                    eyeTracker.setGazeResolutionPolicy(GazeResolutionPolicy.fromName(config.getGazeResolutionPolicy()),
+                            config.getGazeResolutionInterval());
+                    if (simulatorMode != null) {
+                        eyeTracker.setSampleFrequency(config.getSimulatorFrequency());
+                        eyeTracker.setDevice(new SimulatedEyeTrackerDevice(simulatorMode, System.currentTimeMillis()));
+                    }
+                    eyeTracker.getEventDispatcher().addSink(previewSink);
+                    if (streamSink != null) {
+                        eyeTracker.getEventDispatcher().addSink(streamSink);
+                    }
+                    if (sharedMemorySink != null) {
+                        eyeTracker.getEventDispatcher().addSink(sharedMemorySink);
+                    }
                     eyeTracker.startTracking(e.getProject());
                 }
                 AddLabelAction.setIsEnabled(true);
@@ -134,6 +189,31 @@ public class StartStopTrackingAction extends AnAction {
                 if (config.getCheckBoxes().get(2)) {
                     screenRecorder.stopRecording();
                 }
+                if (previewSink != null) {
+                    iDETracker.getEventDispatcher().removeSink(previewSink);
+                    if (eyeTracker != null) {
+                        eyeTracker.getEventDispatcher().removeSink(previewSink);
+                    }
+                    previewSink.close();
+                    previewSink = null;
+                }
+                if (streamSink != null) {
+                    iDETracker.getEventDispatcher().removeSink(streamSink);
+                    if (eyeTracker != null) {
+                        eyeTracker.getEventDispatcher().removeSink(streamSink);
+                    }
+                    streamSink.close();
+                    streamSink = null;
+                    RealtimeStreamServer.getInstance().stop();
+                }
+                if (sharedMemorySink != null) {
+                    iDETracker.getEventDispatcher().removeSink(sharedMemorySink);
+                    if (eyeTracker != null) {
+                        eyeTracker.getEventDispatcher().removeSink(sharedMemorySink);
+                    }
+                    sharedMemorySink.close();
+                    sharedMemorySink = null;
+                }
                 eyeTracker = null;
             }
         } catch (ParserConfigurationException | TransformerException | IOException | InterruptedException ex) {
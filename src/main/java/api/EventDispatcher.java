@@ -0,0 +1,68 @@
+package api;
+
+import org.w3c.dom.Element;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class fans the event stream of a tracker out to the registered {@link EventSink}s. Each tracker owns one
+ * dispatcher; the same sink can be registered on the dispatchers of several trackers and tell the events apart by
+ * their {@link EventSink.Source}.
+ */
+public class EventDispatcher {
+    private final EventSink.Source source;
+    private final List<EventSink> sinks = new CopyOnWriteArrayList<>();
+
+    /**
+     * The constructor of the dispatcher.
+     *
+     * @param source The tracker whose events are dispatched.
+     */
+    public EventDispatcher(EventSink.Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Register a sink. The sink receives the events dispatched from now on.
+     *
+     * @param sink The sink.
+     */
+    public void addSink(EventSink sink) {
+        sinks.add(sink);
+    }
+
+    /**
+     * Unregister a sink. The sink is not closed.
+     *
+     * @param sink The sink.
+     */
+    public void removeSink(EventSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * Pass an event to all the registered sinks, in the order in which they were registered. An exception thrown by a
+     * sink does not prevent the other sinks from receiving the event.
+     *
+     * @param element The XML element of the event.
+     */
+    public void dispatch(Element element) {
+        for (EventSink sink : sinks) {
+            try {
+                sink.accept(source, element);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Get the tracker whose events are dispatched.
+     *
+     * @return The source of the events.
+     */
+    public EventSink.Source getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,53 @@
+package api;
+
+import org.w3c.dom.Element;
+
+import java.util.function.Consumer;
+
+/**
+ * This interface is the SPI of the consumers of the tracking event stream. A sink is registered on the
+ * {@link EventDispatcher} of a tracker and receives every element produced by the tracker, e.g., to persist it, to
+ * transmit it in real time, or to preview it in the IDE.
+ * <p>
+ * A sink is called on the thread that produces the events, so it must be fast. Slow sinks should be wrapped in an
+ * {@link AsyncEventSink}, which gives them their own thread and bounded queue.
+ */
+public interface EventSink {
+
+    /**
+     * The tracker that produced an event.
+     */
+    enum Source {
+        IDE,
+        EYE
+    }
+
+    /**
+     * This method is called for each tracking event.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The XML element of the event.
+     */
+    void accept(Source source, Element element);
+
+    /**
+     * This method is called when the sink is closed. The default implementation does nothing.
+     */
+    default void close() {
+    }
+
+    /**
+     * Create a sink that passes the elements of the given source to a handler.
+     *
+     * @param source  The source of the elements.
+     * @param handler The handler of the elements.
+     * @return The sink.
+     */
+    static EventSink of(Source source, Consumer<Element> handler) {
+        return (eventSource, element) -> {
+            if (eventSource == source) {
+                handler.accept(element);
+            }
+        };
+    }
+}
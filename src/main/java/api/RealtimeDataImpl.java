@@ -10,7 +10,10 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -24,6 +27,7 @@ public class RealtimeDataImpl {
     InputStream dataInputStream;
     private Consumer<String> ideTrackerDataHandler;
     private Consumer<String> eyeTrackerDataHandler;
+    private Subscription ideTrackerSubscription = Subscription.all().withTypes(Set.of("IDE"));
     private static IDETracker ideTracker;
     private static EyeTracker eyeTracker;
 
@@ -49,37 +53,58 @@ public class RealtimeDataImpl {
 
     public void stopIDETrackerData() throws TransformerException {
         ideTracker.stopTracking();
+        ideTracker.getEventDispatcher().removeSink(RealtimeStreamServer.getInstance());
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            socket = null;
+            // release the server started in getHandledIDETrackerData, which keeps running for its other users
+            RealtimeStreamServer.getInstance().stop();
+        }
     }
 
     public void stopEyeTrackerData() {
 
     }
 
+    /**
+     * Start the IDE tracker and pass its events to the IDE tracker data handler, one JSON line per event. The events
+     * are received from the {@link RealtimeStreamServer}, which is started if needed, filtered and downsampled
+     * according to the IDE tracker subscription.
+     *
+     * @param project The project to track.
+     */
     public void getHandledIDETrackerData(Project project) throws ParserConfigurationException, IOException {
         if (ideTrackerDataHandler == null) {
             return;
         }
+        RealtimeStreamServer server = RealtimeStreamServer.getInstance();
+        server.start();
         ideTracker = IDETracker.getInstance();
-        ideTracker.setIsRealTimeDataTransmitting(true);
+        ideTracker.getEventDispatcher().addSink(server);
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        for (String command : ideTrackerSubscription.toCommands()) {
+            socket.getOutputStream().write((command + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        socket.getOutputStream().flush();
+        dataInputStream = socket.getInputStream();
         ideTracker.startTracking(project);
         Thread ideTrackerThread = new Thread(() -> {
-            try {
-
-                Thread.sleep(2000);
-                Socket socket = new Socket("localhost", 12346);
-                InputStream dataInputStream = socket.getInputStream();
-                InputStreamReader inputStreamReader = new InputStreamReader(dataInputStream);
-                BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
-                while (true) {
-                    String line = bufferedReader.readLine();
-                    System.out.println(ideTrackerDataHandler.toString());
-//                    ideTrackerDataHandler.accept(line);
-                    System.out.println(line);
+            try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(dataInputStream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = bufferedReader.readLine()) != null) {
+                    ideTrackerDataHandler.accept(line);
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    e.printStackTrace();
                 }
-            } catch (IOException | InterruptedException e) {
-                throw new RuntimeException(e);
             }
-        });
+        }, "CodeGRITS Real-time IDE Data");
+        ideTrackerThread.setDaemon(true);
         ideTrackerThread.start();
     }
 
@@ -93,6 +118,16 @@ public class RealtimeDataImpl {
         this.ideTrackerDataHandler = ideTrackerDataHandler;
     }
 
+    /**
+     * Set the subscription of the IDE tracker data handler, i.e., the kinds of events, the files and the rate it
+     * receives. It must be set before {@link #getHandledIDETrackerData(Project)} is called.
+     *
+     * @param ideTrackerSubscription The subscription.
+     */
+    public void setIDETrackerSubscription(Subscription ideTrackerSubscription) {
+        this.ideTrackerSubscription = ideTrackerSubscription;
+    }
+
     public void setEyeTrackerDataHandler(Consumer<String> eyeTrackerDataHandler) {
         this.eyeTrackerDataHandler = eyeTrackerDataHandler;
     }
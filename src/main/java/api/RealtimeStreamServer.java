@@ -0,0 +1,674 @@
+package api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a loopback streaming server that broadcasts the IDE and eye tracking events to local subscribers. It is
+ * an {@link EventSink} registered on the trackers, and serves all clients from a single NIO selector thread.
+ * <p>
+ * Each event is serialized to JSON once, as
+ * {@code {"source":"IDE","tag":"mouse","attributes":{...},"children":[...]}}, and framed either as a line of NDJSON
+ * (the default) or as a 4-byte big-endian length followed by the UTF-8 JSON. Clients configure their connection by
+ * sending lines to the server:
+ * <ul>
+ *     <li>{@code FORMAT NDJSON} or {@code FORMAT LENGTH_PREFIXED} to select the framing.</li>
+ *     <li>{@code SUBSCRIBE type1,type2,...} to only receive the events whose source ({@code IDE}, {@code EYE}), tag
+ *     (e.g., {@code caret}) or {@code id} attribute (e.g., {@code mouseMoved}) is listed, {@code SUBSCRIBE *} to
+ *     receive all events again, and {@code SUBSCRIBE -} to receive no events.</li>
+ *     <li>{@code PATHS prefix1,prefix2,...} to only receive the events in the files whose relative path starts with one
+ *     of the prefixes, and {@code PATHS *} to receive the events of all files again.</li>
+ *     <li>{@code RATE hz [type1,type2,...]} to receive at most {@code hz} events per second of each kind, for the
+ *     listed types or for all types ({@code -} for none), and {@code RATE 0} to remove the limit.</li>
+ * </ul>
+ * The filters and the rate are described by a {@link Subscription}. They are applied before serialization, so that
+ * events nobody subscribed to are never serialized. Rate-limited events are conflated: within an interval, only the
+ * latest event of each kind is kept, and it is sent when the interval ends.
+ * Each client has its own bounded queue. When a client does not read fast enough, its oldest events are dropped and it
+ * receives a {@code {"source":"SERVER","tag":"dropped","count":n}} notice before the next event, so that the trackers
+ * and the other clients are never slowed down.
+ */
+public class RealtimeStreamServer implements EventSink {
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 12346;
+    /**
+     * The default number of events queued per client.
+     */
+    public static final int DEFAULT_CLIENT_QUEUE_CAPACITY = 4096;
+    /**
+     * The maximum length of a command line sent by a client.
+     */
+    private static final int MAX_COMMAND_LENGTH = 4096;
+
+    /**
+     * The framing of the events sent to a client.
+     */
+    public enum Framing {
+        /**
+         * One JSON object per line.
+         */
+        NDJSON,
+        /**
+         * A 4-byte big-endian length followed by the UTF-8 JSON object.
+         */
+        LENGTH_PREFIXED
+    }
+
+    /**
+     * An event serialized once and framed lazily for each framing.
+     */
+    private static final class Frame {
+        private final byte[] json;
+        private ByteBuffer ndjson;
+        private ByteBuffer lengthPrefixed;
+
+        Frame(String json) {
+            this.json = json.getBytes(StandardCharsets.UTF_8);
+        }
+
+        synchronized ByteBuffer get(Framing framing) {
+            if (framing == Framing.NDJSON) {
+                if (ndjson == null) {
+                    ByteBuffer buffer = ByteBuffer.allocate(json.length + 1);
+                    buffer.put(json).put((byte) '\n').flip();
+                    ndjson = buffer.asReadOnlyBuffer();
+                }
+                return ndjson.duplicate();
+            }
+            if (lengthPrefixed == null) {
+                ByteBuffer buffer = ByteBuffer.allocate(json.length + 4);
+                buffer.putInt(json.length).put(json).flip();
+                lengthPrefixed = buffer.asReadOnlyBuffer();
+            }
+            return lengthPrefixed.duplicate();
+        }
+    }
+
+    /**
+     * The conflation state of a kind of rate-limited event of a client.
+     */
+    private static final class Conflation {
+        long nextDue;
+        Source source;
+        Element latest;
+    }
+
+    /**
+     * A connected subscriber.
+     */
+    private final class Client {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+        final StringBuilder command = new StringBuilder();
+        final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        /**
+         * This variable is the buffer being written, only accessed by the selector thread.
+         */
+        ByteBuffer current;
+        long droppedEvents = 0;
+        long reportedDroppedEvents = 0;
+        /**
+         * This variable indicates whether the client has events to write, i.e., whether it is pending or waiting for
+         * {@code OP_WRITE}, guarded by the client. The selector is only woken up when it becomes {@code true}.
+         */
+        boolean hasOutput = false;
+        /**
+         * This variable maps the kinds of rate-limited events to their conflation state, guarded by the client.
+         */
+        final Map<String, Conflation> conflations = new HashMap<>();
+        volatile Framing framing = Framing.NDJSON;
+        volatile Subscription subscription = Subscription.all();
+
+        Client(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        /**
+         * Decide whether a rate-limited event is sent now. Otherwise, it replaces the latest event of its kind, to be
+         * sent when the interval of the kind ends.
+         *
+         * @return {@link Admission#SEND} if the event is sent now, otherwise whether it is the first conflated event of
+         * its kind, for which the selector must schedule the end of the interval.
+         */
+        synchronized Admission admit(Source source, Element element, long intervalNanos, long now) {
+            Conflation conflation = conflations.computeIfAbsent(Subscription.getKind(source, element),
+                    kind -> new Conflation());
+            if (conflation.latest == null && now - conflation.nextDue >= 0) {
+                conflation.nextDue = now + intervalNanos;
+                return Admission.SEND;
+            }
+            boolean isFirst = conflation.latest == null;
+            if (!isFirst) {
+                totalDownsampledEvents.incrementAndGet();
+            }
+            conflation.source = source;
+            conflation.latest = (Element) element.cloneNode(true);
+            return isFirst ? Admission.CONFLATE_FIRST : Admission.CONFLATE;
+        }
+
+        /**
+         * Take the conflated events whose interval has ended.
+         *
+         * @param due The list the due events are added to, as pairs of source and element.
+         * @return The time until the next conflated event is due in nanoseconds, or -1 if there is none.
+         */
+        synchronized long takeDueConflations(List<Object[]> due, long now) {
+            long wait = -1;
+            long intervalNanos = subscription.getIntervalNanos();
+            for (Conflation conflation : conflations.values()) {
+                if (conflation.latest == null) {
+                    continue;
+                }
+                long remaining = conflation.nextDue - now;
+                if (remaining <= 0) {
+                    due.add(new Object[]{conflation.source, conflation.latest});
+                    conflation.latest = null;
+                    conflation.source = null;
+                    conflation.nextDue = now + intervalNanos;
+                } else if (wait < 0 || remaining < wait) {
+                    wait = remaining;
+                }
+            }
+            return wait;
+        }
+
+        /**
+         * Queue an event for the client.
+         *
+         * @param buffer The serialized event.
+         * @return {@code true} if the client had nothing to write before, so that the selector must be woken up.
+         */
+        synchronized boolean offer(ByteBuffer buffer) {
+            if (queue.size() >= clientQueueCapacity) {
+                queue.poll();
+                droppedEvents++;
+                totalDroppedEvents.incrementAndGet();
+            }
+            queue.add(buffer);
+            if (hasOutput) {
+                return false;
+            }
+            hasOutput = true;
+            return true;
+        }
+
+        synchronized ByteBuffer next() {
+            if (droppedEvents > reportedDroppedEvents) {
+                JsonObject notice = new JsonObject();
+                notice.addProperty("source", "SERVER");
+                notice.addProperty("tag", "dropped");
+                notice.addProperty("count", droppedEvents - reportedDroppedEvents);
+                reportedDroppedEvents = droppedEvents;
+                return new Frame(notice.toString()).get(framing);
+            }
+            ByteBuffer buffer = queue.poll();
+            if (buffer == null) {
+                hasOutput = false;
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * The outcome of the rate limit of an event.
+     */
+    private enum Admission {
+        SEND,
+        CONFLATE_FIRST,
+        CONFLATE
+    }
+
+    private static RealtimeStreamServer instance = null;
+
+    private final int port;
+    private final int clientQueueCapacity;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final Queue<Client> pendingClients = new ConcurrentLinkedQueue<>();
+    private final AtomicLong totalDroppedEvents = new AtomicLong();
+    private final AtomicLong totalDownsampledEvents = new AtomicLong();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean isRunning = false;
+    /**
+     * This variable is the number of callers of {@link #start()} that have not called {@link #stop()} yet.
+     */
+    private int users = 0;
+
+    /**
+     * Get the instance of the server on the {@link #DEFAULT_PORT}.
+     *
+     * @return The instance of the server.
+     */
+    public static synchronized RealtimeStreamServer getInstance() {
+        if (instance == null) {
+            instance = new RealtimeStreamServer(DEFAULT_PORT, DEFAULT_CLIENT_QUEUE_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * The constructor of the server.
+     *
+     * @param port                The port of the server on the loopback interface.
+     * @param clientQueueCapacity The number of events queued per client before the oldest ones are dropped.
+     */
+    public RealtimeStreamServer(int port, int clientQueueCapacity) {
+        this.port = port;
+        this.clientQueueCapacity = clientQueueCapacity;
+    }
+
+    /**
+     * Start the server. The server is shared, e.g., by the tracking action and the real-time data API, so the calls
+     * are counted, and the server keeps running until every caller has called {@link #stop()}.
+     */
+    public synchronized void start() throws IOException {
+        if (isRunning) {
+            users++;
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        isRunning = true;
+        thread = new Thread(this::run, "CodeGRITS Stream Server");
+        thread.setDaemon(true);
+        thread.start();
+        users = 1;
+    }
+
+    /**
+     * Release the server. When the last caller of {@link #start()} releases it, the server is stopped and all clients
+     * are disconnected. The events still queued are discarded.
+     */
+    public synchronized void stop() {
+        if (!isRunning || --users > 0) {
+            return;
+        }
+        isRunning = false;
+        selector.wakeup();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Client client : clients) {
+            disconnect(client);
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Broadcast an event to the subscribed clients. The event is serialized once, and only if a client subscribed to it.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The element of the event.
+     */
+    @Override
+    public void accept(Source source, Element element) {
+        if (!isRunning || clients.isEmpty()) {
+            return;
+        }
+        Frame frame = null;
+        boolean isWakeupNeeded = false;
+        long now = System.nanoTime();
+        for (Client client : clients) {
+            Subscription subscription = client.subscription;
+            if (!subscription.matches(source, element)) {
+                continue;
+            }
+            if (subscription.isRateLimited(source, element)) {
+                Admission admission = client.admit(source, element, subscription.getIntervalNanos(), now);
+                if (admission != Admission.SEND) {
+                    // a new conflation changes the select timeout, later ones are sent with it
+                    isWakeupNeeded |= admission == Admission.CONFLATE_FIRST;
+                    continue;
+                }
+            }
+            if (frame == null) {
+                frame = toFrame(source, element);
+            }
+            // a client that already has output is flushed by the selector anyway
+            if (client.offer(frame.get(client.framing))) {
+                pendingClients.add(client);
+                isWakeupNeeded = true;
+            }
+        }
+        if (isWakeupNeeded) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Serialize an event.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The element of the event.
+     * @return The serialized event.
+     */
+    private static Frame toFrame(Source source, Element element) {
+        JsonObject json = new JsonObject();
+        json.addProperty("source", source.name());
+        toJson(element).entrySet().forEach(entry -> json.add(entry.getKey(), entry.getValue()));
+        return new Frame(json.toString());
+    }
+
+    /**
+     * Send the conflated events whose interval has ended.
+     *
+     * @return The time until the next conflated event is due in milliseconds, or 0 if there is none.
+     */
+    private long sendDueConflations() {
+        long wait = -1;
+        long now = System.nanoTime();
+        List<Object[]> due = new ArrayList<>();
+        for (Client client : clients) {
+            due.clear();
+            long clientWait = client.takeDueConflations(due, now);
+            for (Object[] event : due) {
+                client.offer(toFrame((Source) event[0], (Element) event[1]).get(client.framing));
+            }
+            if (!due.isEmpty()) {
+                flush(client);
+            }
+            if (clientWait >= 0 && (wait < 0 || clientWait < wait)) {
+                wait = clientWait;
+            }
+        }
+        return wait < 0 ? 0 : Math.max(1, wait / 1_000_000);
+    }
+
+    /**
+     * The loop of the selector thread.
+     */
+    private void run() {
+        long timeout = 0;
+        while (isRunning) {
+            try {
+                selector.select(timeout);
+                Client pending;
+                while ((pending = pendingClients.poll()) != null) {
+                    flush(pending);
+                }
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptClient();
+                    } else {
+                        Client client = (Client) key.attachment();
+                        if (key.isReadable()) {
+                            read(client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(client);
+                        }
+                    }
+                }
+                timeout = sendDueConflations();
+            } catch (IOException | ClosedSelectorException e) {
+                if (isRunning) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Accept a new client.
+     */
+    private void acceptClient() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        Client client = new Client(channel, key);
+        key.attach(client);
+        clients.add(client);
+    }
+
+    /**
+     * Read the commands sent by a client.
+     *
+     * @param client The client.
+     */
+    private void read(Client client) {
+        try {
+            int count = client.channel.read(client.readBuffer);
+            if (count < 0) {
+                disconnect(client);
+                return;
+            }
+        } catch (IOException e) {
+            disconnect(client);
+            return;
+        }
+        client.readBuffer.flip();
+        while (client.readBuffer.hasRemaining()) {
+            char c = (char) client.readBuffer.get();
+            if (c == '\n') {
+                handleCommand(client, client.command.toString().trim());
+                client.command.setLength(0);
+            } else if (client.command.length() < MAX_COMMAND_LENGTH) {
+                client.command.append(c);
+            } else {
+                System.err.println("Stream server: command too long, disconnecting the client");
+                disconnect(client);
+                return;
+            }
+        }
+        client.readBuffer.clear();
+    }
+
+    /**
+     * Handle a command sent by a client.
+     *
+     * @param client  The client.
+     * @param command The command line.
+     */
+    private void handleCommand(Client client, String command) {
+        String[] parts = command.split("\\s+", 2);
+        String argument = parts.length > 1 ? parts[1].trim() : "";
+        switch (parts[0].toUpperCase(Locale.ROOT)) {
+            case "SUBSCRIBE" -> client.subscription = client.subscription.withTypes(parseList(argument));
+            case "PATHS" -> {
+                Set<String> prefixes = parseList(argument);
+                client.subscription = client.subscription.withPathPrefixes(
+                        prefixes == null ? List.of() : new ArrayList<>(prefixes));
+            }
+            case "RATE" -> {
+                String[] rateParts = argument.split("\\s+", 2);
+                try {
+                    double rate = Double.parseDouble(rateParts[0]);
+                    client.subscription = client.subscription.withRate(rate,
+                            parseList(rateParts.length > 1 ? rateParts[1] : ""));
+                } catch (NumberFormatException e) {
+                    System.err.println("Stream server: invalid rate " + argument);
+                }
+            }
+            case "FORMAT" -> {
+                try {
+                    client.framing = Framing.valueOf(argument.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Stream server: unknown format " + argument);
+                }
+            }
+            case "" -> {
+            }
+            default -> System.err.println("Stream server: unknown command " + command);
+        }
+    }
+
+    /**
+     * Parse a comma-separated list of a command.
+     *
+     * @param argument The argument of the command.
+     * @return The items, or {@code null} if the argument is empty or {@code *}, or an empty set if it is
+     * {@link Subscription#NONE}.
+     */
+    private static Set<String> parseList(String argument) {
+        if (argument.isBlank() || argument.trim().equals("*")) {
+            return null;
+        }
+        if (argument.trim().equals(Subscription.NONE)) {
+            return new LinkedHashSet<>();
+        }
+        Set<String> items = new LinkedHashSet<>();
+        for (String item : argument.split(",")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Write the queued events of a client until its socket buffer is full. The client is then registered for
+     * {@code OP_WRITE} until it can take more.
+     *
+     * @param client The client.
+     */
+    private void flush(Client client) {
+        if (!client.key.isValid()) {
+            return;
+        }
+        try {
+            while (true) {
+                if (client.current == null) {
+                    client.current = client.next();
+                    if (client.current == null) {
+                        client.key.interestOps(SelectionKey.OP_READ);
+                        return;
+                    }
+                }
+                client.channel.write(client.current);
+                if (client.current.hasRemaining()) {
+                    client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                client.current = null;
+            }
+        } catch (IOException | CancelledKeyException e) {
+            disconnect(client);
+        }
+    }
+
+    /**
+     * Disconnect a client.
+     *
+     * @param client The client.
+     */
+    private void disconnect(Client client) {
+        clients.remove(client);
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Convert an XML element to JSON, with its attributes, text and child elements.
+     *
+     * @param element The element.
+     * @return The JSON object.
+     */
+    public static JsonObject toJson(Element element) {
+        JsonObject json = new JsonObject();
+        json.addProperty("tag", element.getTagName());
+        JsonObject attributes = new JsonObject();
+        NamedNodeMap attributeMap = element.getAttributes();
+        for (int i = 0; i < attributeMap.getLength(); i++) {
+            Node attribute = attributeMap.item(i);
+            attributes.addProperty(attribute.getNodeName(), attribute.getNodeValue());
+        }
+        json.add("attributes", attributes);
+        JsonArray children = new JsonArray();
+        StringBuilder text = new StringBuilder();
+        NodeList childNodes = element.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            Node child = childNodes.item(i);
+            if (child instanceof Element childElement) {
+                children.add(toJson(childElement));
+            } else if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                text.append(child.getNodeValue());
+            }
+        }
+        if (!children.isEmpty()) {
+            json.add("children", children);
+        }
+        if (!text.toString().isBlank()) {
+            json.addProperty("text", text.toString());
+        }
+        return json;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Get the number of connected clients.
+     *
+     * @return The number of clients.
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Get the number of events dropped for all clients because their queues were full.
+     *
+     * @return The number of dropped events.
+     */
+    public long getDroppedEvents() {
+        return totalDroppedEvents.get();
+    }
+
+    /**
+     * Get the number of rate-limited events replaced by a later event of the same kind, for all clients.
+     *
+     * @return The number of downsampled events.
+     */
+    public long getDownsampledEvents() {
+        return totalDownsampledEvents.get();
+    }
+}
@@ -0,0 +1,85 @@
+package api;
+
+/**
+ * This class is an event read from the shared-memory event ring by {@link SharedMemoryEventReader}. The reader reuses
+ * the same instance for every event, so its values must be copied if they are kept.
+ */
+public class SharedMemoryEvent {
+    long sequence;
+    long timestamp;
+    EventSink.Source source;
+    int x;
+    int y;
+    int line;
+    int column;
+    float gazeX;
+    float gazeY;
+    float pupilDiameter;
+    final byte[] kindBytes = new byte[SharedMemoryLayout.KIND_SIZE];
+    int kindLength;
+    final byte[] pathBytes = new byte[SharedMemoryLayout.PATH_SIZE];
+    int pathLength;
+
+    /**
+     * Get the sequence number of the event, i.e., its position in the stream of events.
+     *
+     * @return The sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public EventSink.Source getSource() {
+        return source;
+    }
+
+    /**
+     * Get the kind of the event, i.e., its id (e.g., {@code mouseMoved}) or its tag if it has no id (e.g., {@code gaze}).
+     *
+     * @return The kind of the event.
+     */
+    public String getKind() {
+        return new String(kindBytes, 0, kindLength, java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Get the relative path of the file of the event.
+     *
+     * @return The path, or an empty string if the event has no path.
+     */
+    public String getPath() {
+        return new String(pathBytes, 0, pathLength, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public float getGazeX() {
+        return gazeX;
+    }
+
+    public float getGazeY() {
+        return gazeY;
+    }
+
+    public float getPupilDiameter() {
+        return pupilDiameter;
+    }
+}
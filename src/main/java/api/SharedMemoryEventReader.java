@@ -0,0 +1,173 @@
+package api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static api.SharedMemoryLayout.*;
+
+/**
+ * This class tails the shared-memory event ring written by {@link SharedMemoryEventSink}. It maps the ring file
+ * read-only and reads each slot in place, validating it with the slot version (see {@link SharedMemoryLayout}), so
+ * several readers in any local process can follow the events without slowing down the writer.
+ * <p>
+ * A reader is not thread-safe; each thread should use its own reader.
+ *
+ * <pre>{@code
+ * SharedMemoryEventReader reader = new SharedMemoryEventReader(SharedMemoryLayout.DEFAULT_FILE);
+ * SharedMemoryEvent event = new SharedMemoryEvent();
+ * while (running) {
+ *     if (reader.poll(event)) {
+ *         System.out.println(event.getKind() + " " + event.getX() + " " + event.getY());
+ *     } else {
+ *         Thread.onSpinWait();
+ *     }
+ * }
+ * }</pre>
+ */
+public class SharedMemoryEventReader implements AutoCloseable {
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private long cursor;
+    private long startTime;
+    private long lostEvents = 0;
+
+    /**
+     * The constructor of the reader. The reader starts at the next event to be written.
+     *
+     * @param ringFile The ring file.
+     */
+    public SharedMemoryEventReader(File ringFile) throws IOException {
+        file = new RandomAccessFile(ringFile, "r");
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (file.length() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            file.close();
+            throw new IOException("Not a CodeGRITS event ring: " + ringFile);
+        }
+        VarHandle.loadLoadFence();
+        if (buffer.getInt(VERSION_OFFSET) != VERSION || buffer.getInt(SLOT_SIZE_OFFSET) != SLOT_SIZE) {
+            file.close();
+            throw new IOException("Unsupported event ring version " + buffer.getInt(VERSION_OFFSET));
+        }
+        slotCount = buffer.getInt(SLOT_COUNT_OFFSET);
+        startTime = getStartTime();
+        cursor = getNextSequence();
+    }
+
+    /**
+     * Move the reader to the oldest event still in the ring.
+     */
+    public void seekToOldest() {
+        cursor = Math.max(0, getNextSequence() - slotCount);
+    }
+
+    /**
+     * Read the next event, if it has been written.
+     *
+     * @param event The event to fill.
+     * @return {@code true} if the event was filled, {@code false} if there is no new event.
+     */
+    public boolean poll(SharedMemoryEvent event) {
+        while (true) {
+            int slot = getSlotOffset(cursor, slotCount);
+            long expected = 2 * cursor + 2;
+            long before = (long) LONG_HANDLE.getAcquire(buffer, slot + SLOT_VERSION);
+            if (before < expected) {
+                if (getStartTime() != startTime) {
+                    // the writer has reset the ring for a new session
+                    startTime = getStartTime();
+                    cursor = 0;
+                    continue;
+                }
+                if (getNextSequence() - cursor > slotCount) {
+                    skipLostEvents();
+                    continue;
+                }
+                return false;
+            }
+            if (before == expected) {
+                read(slot, event);
+                VarHandle.loadLoadFence();
+                long after = (long) LONG_HANDLE.getAcquire(buffer, slot + SLOT_VERSION);
+                if (after == expected) {
+                    event.sequence = cursor;
+                    cursor++;
+                    return true;
+                }
+            }
+            // the slot has been overwritten by a later event
+            skipLostEvents();
+        }
+    }
+
+    /**
+     * Move the cursor to the oldest event that is still safe to read, counting the skipped events as lost.
+     */
+    private void skipLostEvents() {
+        // leave one slot of margin, since the writer may be overwriting the oldest slot
+        long oldest = Math.max(cursor + 1, getNextSequence() - slotCount + 1);
+        lostEvents += oldest - cursor;
+        cursor = oldest;
+    }
+
+    /**
+     * Copy a slot into an event.
+     */
+    private void read(int slot, SharedMemoryEvent event) {
+        event.timestamp = buffer.getLong(slot + SLOT_TIMESTAMP);
+        event.source = buffer.get(slot + SLOT_SOURCE) == 1 ? EventSink.Source.EYE : EventSink.Source.IDE;
+        event.x = buffer.getInt(slot + SLOT_X);
+        event.y = buffer.getInt(slot + SLOT_Y);
+        event.line = buffer.getInt(slot + SLOT_LINE);
+        event.column = buffer.getInt(slot + SLOT_COLUMN);
+        event.gazeX = buffer.getFloat(slot + SLOT_GAZE_X);
+        event.gazeY = buffer.getFloat(slot + SLOT_GAZE_Y);
+        event.pupilDiameter = buffer.getFloat(slot + SLOT_PUPIL_DIAMETER);
+        buffer.get(slot + SLOT_KIND, event.kindBytes);
+        int kindLength = 0;
+        while (kindLength < KIND_SIZE && event.kindBytes[kindLength] != 0) {
+            kindLength++;
+        }
+        event.kindLength = kindLength;
+        event.pathLength = Math.max(0, Math.min(PATH_SIZE, buffer.getShort(slot + SLOT_PATH_LENGTH)));
+        buffer.get(slot + SLOT_PATH, event.pathBytes, 0, event.pathLength);
+    }
+
+    /**
+     * Get the sequence of the next event to be written, i.e., the number of events written so far.
+     *
+     * @return The next sequence.
+     */
+    public long getNextSequence() {
+        return (long) LONG_HANDLE.getAcquire(buffer, NEXT_SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Get the number of events overwritten before this reader could read them.
+     *
+     * @return The number of lost events.
+     */
+    public long getLostEvents() {
+        return lostEvents;
+    }
+
+    /**
+     * Get the epoch milliseconds when the writer opened the ring.
+     *
+     * @return The start time of the ring.
+     */
+    public long getStartTime() {
+        return buffer.getLong(START_TIME_OFFSET);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,277 @@
+package api;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import utils.SessionClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static api.SharedMemoryLayout.*;
+
+/**
+ * This class publishes the tracking events to a memory-mapped ring file, so that local processes can read them with
+ * {@link SharedMemoryEventReader} without sockets or serialization. Each event is written in place into a fixed-size
+ * slot described by {@link SharedMemoryLayout}. The writer never waits for the readers: a reader that falls behind by
+ * more than the number of slots loses the overwritten events.
+ */
+public class SharedMemoryEventSink implements EventSink {
+    /**
+     * The default number of slots, i.e., about 17 seconds of gaze at 60 Hz plus the IDE events, in 1 MB.
+     */
+    public static final int DEFAULT_SLOT_COUNT = 4096;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final byte[] pathBytes = new byte[PATH_SIZE];
+    private long nextSequence = 0;
+    private boolean isClosed = false;
+
+    /**
+     * The constructor of the sink. The ring file is created, or reset if it exists. The file and its directory are
+     * made private to the current user where the file system supports POSIX permissions.
+     *
+     * @param ringFile  The ring file.
+     * @param slotCount The number of slots, rounded up to a power of two.
+     */
+    public SharedMemoryEventSink(File ringFile, int slotCount) throws IOException {
+        this.slotCount = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        long size = HEADER_SIZE + (long) this.slotCount * SLOT_SIZE;
+        if (ringFile.exists() && !isCompatible(ringFile, this.slotCount)) {
+            // readers keep their mapping of the old ring instead of seeing its header change under them
+            try {
+                Files.delete(ringFile.toPath());
+            } catch (IOException e) {
+                // the file is still mapped on Windows: it is initialized in place below
+            }
+        }
+        createPrivateFile(ringFile);
+        file = new RandomAccessFile(ringFile, "rw");
+        if (file.length() < size) {
+            file.setLength(size);
+        }
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        long startTime = SessionClock.getInstance().currentTimeMillis();
+        if (buffer.getInt(MAGIC_OFFSET) == MAGIC && buffer.getInt(SLOT_COUNT_OFFSET) == this.slotCount) {
+            // the header of a compatible ring is kept, since readers may still have it mapped: only the slots are
+            // cleared, and the new start time tells the readers that the ring was reset
+            for (long i = HEADER_SIZE; i < size; i += Long.BYTES) {
+                buffer.putLong((int) i, 0L);
+            }
+            LONG_HANDLE.setRelease(buffer, NEXT_SEQUENCE_OFFSET, 0L);
+            LONG_HANDLE.setRelease(buffer, START_TIME_OFFSET, startTime);
+            return;
+        }
+        for (long i = 0; i < size; i += Long.BYTES) {
+            buffer.putLong((int) i, 0L);
+        }
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(SLOT_COUNT_OFFSET, this.slotCount);
+        buffer.putInt(SLOT_SIZE_OFFSET, SLOT_SIZE);
+        buffer.putLong(START_TIME_OFFSET, startTime);
+        LONG_HANDLE.setRelease(buffer, NEXT_SEQUENCE_OFFSET, 0L);
+        // the magic is written last, so that a reader never sees a partially initialized header
+        VarHandle.storeStoreFence();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    /**
+     * Whether an existing file is a ring of this version with the given number of slots, which can be reset in place.
+     *
+     * @param ringFile  The ring file.
+     * @param slotCount The number of slots.
+     * @return {@code true} if the ring is compatible.
+     */
+    private static boolean isCompatible(File ringFile, int slotCount) throws IOException {
+        if (ringFile.length() < HEADER_SIZE + (long) slotCount * SLOT_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(ringFile.toPath(), StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        return header.getInt(MAGIC_OFFSET) == MAGIC && header.getInt(VERSION_OFFSET) == VERSION
+                && header.getInt(SLOT_COUNT_OFFSET) == slotCount && header.getInt(SLOT_SIZE_OFFSET) == SLOT_SIZE;
+    }
+
+    /**
+     * Create the ring file and its directory if needed, readable and writable only by the current user on POSIX file
+     * systems. A directory that is a symbolic link, or that belongs to another user, is rejected.
+     *
+     * @param ringFile The ring file.
+     */
+    private static void createPrivateFile(File ringFile) throws IOException {
+        Path path = ringFile.toPath().toAbsolutePath();
+        Path directory = path.getParent();
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return;
+        }
+        if (Files.isSymbolicLink(directory)) {
+            throw new IOException("The directory of the event ring is a symbolic link: " + directory);
+        }
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+        // fails if the directory belongs to another user
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        }
+    }
+
+    /**
+     * Write an event into the next slot of the ring.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The element of the event.
+     */
+    @Override
+    public synchronized void accept(Source source, Element element) {
+        if (isClosed) {
+            return;
+        }
+        long sequence = nextSequence;
+        int slot = getSlotOffset(sequence, slotCount);
+        LONG_HANDLE.setOpaque(buffer, slot + SLOT_VERSION, 2 * sequence + 1);
+        VarHandle.storeStoreFence();
+
+        Element location = getChild(element, "location");
+        Element leftEye = getChild(element, "left_eye");
+        Element rightEye = getChild(element, "right_eye");
+        // gazes and IDE events carry a timestamp, fixations and saccades a start_timestamp, both on the session clock
+        String timestamp = element.getAttribute("timestamp").isEmpty() ?
+                element.getAttribute("start_timestamp") : element.getAttribute("timestamp");
+        buffer.putLong(slot + SLOT_TIMESTAMP, parseLong(timestamp, SessionClock.getInstance().currentTimeMillis()));
+        buffer.put(slot + SLOT_SOURCE, (byte) (source == Source.EYE ? 1 : 0));
+        buffer.putInt(slot + SLOT_X, parseInt(getAttribute(element, location, "x"), Integer.MIN_VALUE));
+        buffer.putInt(slot + SLOT_Y, parseInt(getAttribute(element, location, "y"), Integer.MIN_VALUE));
+        buffer.putInt(slot + SLOT_LINE, parseInt(getAttribute(element, location, "line"), -1));
+        buffer.putInt(slot + SLOT_COLUMN, parseInt(getAttribute(element, location, "column"), -1));
+        buffer.putFloat(slot + SLOT_GAZE_X, average(leftEye, rightEye, "gaze_point_x"));
+        buffer.putFloat(slot + SLOT_GAZE_Y, average(leftEye, rightEye, "gaze_point_y"));
+        buffer.putFloat(slot + SLOT_PUPIL_DIAMETER, average(leftEye, rightEye, "pupil_diameter"));
+
+        String kind = element.getAttribute("id").isEmpty() ? element.getTagName() : element.getAttribute("id");
+        for (int i = 0; i < KIND_SIZE; i++) {
+            char c = i < kind.length() ? kind.charAt(i) : 0;
+            buffer.put(slot + SLOT_KIND + i, c < 128 ? (byte) c : (byte) '?');
+        }
+        int pathLength = encodePath(getAttribute(element, location, "path"));
+        buffer.putShort(slot + SLOT_PATH_LENGTH, (short) pathLength);
+        buffer.put(slot + SLOT_PATH, pathBytes, 0, pathLength);
+
+        LONG_HANDLE.setRelease(buffer, slot + SLOT_VERSION, 2 * sequence + 2);
+        nextSequence = sequence + 1;
+        LONG_HANDLE.setRelease(buffer, NEXT_SEQUENCE_OFFSET, nextSequence);
+    }
+
+    /**
+     * Close the ring file. The file is kept, so that readers can still read the last events.
+     */
+    @Override
+    public synchronized void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        buffer.force();
+        try {
+            file.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Get the number of events written so far.
+     *
+     * @return The number of events.
+     */
+    public synchronized long getWrittenEvents() {
+        return nextSequence;
+    }
+
+    /**
+     * Encode a path into {@code pathBytes}, truncated to {@link SharedMemoryLayout#PATH_SIZE} bytes.
+     *
+     * @param path The path.
+     * @return The length of the encoded path.
+     */
+    private int encodePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return 0;
+        }
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, PATH_SIZE);
+        System.arraycopy(bytes, 0, pathBytes, 0, length);
+        return length;
+    }
+
+    private static Element getChild(Element element, String tag) {
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element childElement && childElement.getTagName().equals(tag)) {
+                return childElement;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get an attribute of the element, or of its {@code <location>} child for gazes.
+     */
+    private static String getAttribute(Element element, Element location, String name) {
+        if (!element.getAttribute(name).isEmpty() || location == null) {
+            return element.getAttribute(name);
+        }
+        return location.getAttribute(name);
+    }
+
+    private static float average(Element leftEye, Element rightEye, String name) {
+        if (leftEye == null || rightEye == null) {
+            return Float.NaN;
+        }
+        try {
+            return (Float.parseFloat(leftEye.getAttribute(name)) + Float.parseFloat(rightEye.getAttribute(name))) / 2;
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value.isEmpty() ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return value.isEmpty() ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
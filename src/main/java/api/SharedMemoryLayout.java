@@ -0,0 +1,112 @@
+package api;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * This class defines the binary layout of the shared-memory event ring, written by {@link SharedMemoryEventSink} and
+ * read by {@link SharedMemoryEventReader}. All values are little-endian.
+ * <p>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes:
+ * <pre>
+ * offset  type   field
+ * 0       int    magic, {@code 0x43475254} ("CGRT")
+ * 4       int    version, {@value #VERSION}
+ * 8       int    number of slots, a power of two
+ * 12      int    size of a slot in bytes, {@value #SLOT_SIZE}
+ * 16      long   next sequence, i.e., the number of events written so far
+ * 24      long   epoch milliseconds when the writer opened the ring
+ * 32      -      reserved
+ * </pre>
+ * followed by the slots. Event {@code n} is written in slot {@code n % slots}:
+ * <pre>
+ * offset  type      field
+ * 0       long      version of the slot: {@code 2n + 1} while event n is written, {@code 2n + 2} once it is complete
+ * 8       long      timestamp in epoch milliseconds on the session clock
+ * 16      byte      source, 0 for IDE, 1 for EYE
+ * 17      byte      reserved
+ * 18      short     length of the path in bytes
+ * 20      int       x on screen in pixels, or {@link Integer#MIN_VALUE}
+ * 24      int       y on screen in pixels, or {@link Integer#MIN_VALUE}
+ * 28      int       line, or -1
+ * 32      int       column, or -1
+ * 36      float     normalized gaze point x (average of both eyes), or NaN
+ * 40      float     normalized gaze point y (average of both eyes), or NaN
+ * 44      float     pupil diameter (average of both eyes), or NaN
+ * 48      -         reserved
+ * 52      byte[32]  kind, i.e., the id of the event or its tag if it has no id (ASCII, zero-padded)
+ * 84      byte[172] relative path of the file (UTF-8, truncated)
+ * </pre>
+ * The slot version works as a seqlock: a reader reads the version, copies the slot, and reads the version again. The
+ * copy is valid if both versions are {@code 2n + 2}; otherwise, the writer has lapped the reader.
+ */
+public final class SharedMemoryLayout {
+    /**
+     * The default file of the ring, in a directory of the current user: {@code $XDG_RUNTIME_DIR/codegrits} if it is
+     * set, or {@code codegrits-<user>} in the temporary directory. On POSIX systems, the directory and the file are
+     * only accessible by the user, so the processes of the user can find the ring but the other users cannot.
+     */
+    public static final File DEFAULT_FILE = new File(getDefaultDirectory(), "codegrits-events.ring");
+
+    public static final int MAGIC = 0x43475254;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int SLOT_SIZE = 256;
+
+    public static final int MAGIC_OFFSET = 0;
+    public static final int VERSION_OFFSET = 4;
+    public static final int SLOT_COUNT_OFFSET = 8;
+    public static final int SLOT_SIZE_OFFSET = 12;
+    public static final int NEXT_SEQUENCE_OFFSET = 16;
+    public static final int START_TIME_OFFSET = 24;
+
+    public static final int SLOT_VERSION = 0;
+    public static final int SLOT_TIMESTAMP = 8;
+    public static final int SLOT_SOURCE = 16;
+    public static final int SLOT_PATH_LENGTH = 18;
+    public static final int SLOT_X = 20;
+    public static final int SLOT_Y = 24;
+    public static final int SLOT_LINE = 28;
+    public static final int SLOT_COLUMN = 32;
+    public static final int SLOT_GAZE_X = 36;
+    public static final int SLOT_GAZE_Y = 40;
+    public static final int SLOT_PUPIL_DIAMETER = 44;
+    public static final int SLOT_KIND = 52;
+    public static final int KIND_SIZE = 32;
+    public static final int SLOT_PATH = 84;
+    public static final int PATH_SIZE = SLOT_SIZE - SLOT_PATH;
+
+    /**
+     * Get the directory of the default ring file.
+     *
+     * @return The directory, which may not exist yet.
+     */
+    private static File getDefaultDirectory() {
+        String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+        if (runtimeDirectory != null && new File(runtimeDirectory).isDirectory()) {
+            return new File(runtimeDirectory, "codegrits");
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "codegrits-" + System.getProperty("user.name"));
+    }
+
+    /**
+     * The variable handle used for the ordered accesses to the sequence and version fields.
+     */
+    static final VarHandle LONG_HANDLE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private SharedMemoryLayout() {
+    }
+
+    /**
+     * Get the offset of a slot in the file.
+     *
+     * @param sequence  The sequence of the event.
+     * @param slotCount The number of slots.
+     * @return The offset of the slot.
+     */
+    static int getSlotOffset(long sequence, int slotCount) {
+        return HEADER_SIZE + (int) (sequence & (slotCount - 1)) * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,204 @@
+package api;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class describes which tracking events a real-time subscriber receives, and at which rate. It is immutable, so
+ * that it can be replaced while events are being dispatched.
+ * <p>
+ * An event matches the subscription if its source ({@code IDE}, {@code EYE}), tag (e.g., {@code gaze}) or {@code id}
+ * attribute (e.g., {@code mouseClicked}) is one of the subscribed types, and if its file path starts with one of the
+ * subscribed path prefixes. The path of an event is its {@code path} attribute, or the {@code path} attribute of its
+ * {@code <location>} child for gazes. Events without a path only match when no path prefix is set.
+ * <p>
+ * With a rate, the events of the rate-limited types are conflated: for each kind of event (tag and {@code id}), at most
+ * {@code rate} events are sent per second, and the latest event of a burst is sent at the end of the interval instead
+ * of the intermediate ones.
+ */
+public final class Subscription {
+    /**
+     * The argument of the commands for an empty list of types, which an empty argument cannot express, since it means all
+     * types.
+     */
+    public static final String NONE = "-";
+    private static final Subscription ALL = new Subscription(null, List.of(), 0, null);
+
+    private final Set<String> types;
+    private final List<String> pathPrefixes;
+    private final double rate;
+    private final Set<String> rateLimitedTypes;
+
+    private Subscription(Set<String> types, List<String> pathPrefixes, double rate, Set<String> rateLimitedTypes) {
+        this.types = types;
+        this.pathPrefixes = pathPrefixes;
+        this.rate = rate;
+        this.rateLimitedTypes = rateLimitedTypes;
+    }
+
+    /**
+     * Get the subscription to all events, without rate limit.
+     *
+     * @return The subscription.
+     */
+    public static Subscription all() {
+        return ALL;
+    }
+
+    /**
+     * Get a copy of this subscription with the given types.
+     *
+     * @param types The subscribed types, {@code null} for all types, or an empty set for no events.
+     * @return The new subscription.
+     */
+    public Subscription withTypes(Set<String> types) {
+        return new Subscription(types == null ? null : Set.copyOf(types), pathPrefixes, rate, rateLimitedTypes);
+    }
+
+    /**
+     * Get a copy of this subscription with the given path prefixes.
+     *
+     * @param pathPrefixes The prefixes of the relative paths of the subscribed files, or an empty list for all files.
+     * @return The new subscription.
+     */
+    public Subscription withPathPrefixes(List<String> pathPrefixes) {
+        return new Subscription(types, List.copyOf(pathPrefixes), rate, rateLimitedTypes);
+    }
+
+    /**
+     * Get a copy of this subscription with the given rate.
+     *
+     * @param rate             The maximum number of events per second of each kind, or 0 for no limit.
+     * @param rateLimitedTypes The types the rate applies to, {@code null} for all types, or an empty set for none.
+     * @return The new subscription.
+     */
+    public Subscription withRate(double rate, Set<String> rateLimitedTypes) {
+        return new Subscription(types, pathPrefixes, Math.max(0, rate),
+                rateLimitedTypes == null ? null : Set.copyOf(rateLimitedTypes));
+    }
+
+    /**
+     * Whether an event matches the types and path prefixes of the subscription.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The element of the event.
+     * @return {@code true} if the event is subscribed.
+     */
+    public boolean matches(EventSink.Source source, Element element) {
+        if (!isOfType(types, source, element)) {
+            return false;
+        }
+        if (pathPrefixes.isEmpty()) {
+            return true;
+        }
+        String path = getPath(element);
+        if (path == null) {
+            return false;
+        }
+        for (String prefix : pathPrefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an event is subject to the rate of the subscription.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The element of the event.
+     * @return {@code true} if the event is rate-limited.
+     */
+    public boolean isRateLimited(EventSink.Source source, Element element) {
+        return rate > 0 && isOfType(rateLimitedTypes, source, element);
+    }
+
+    /**
+     * Get the minimum interval between two events of the same kind.
+     *
+     * @return The interval in nanoseconds, or 0 if there is no rate limit.
+     */
+    public long getIntervalNanos() {
+        return rate > 0 ? (long) (1_000_000_000L / rate) : 0;
+    }
+
+    /**
+     * Get the kind of event, used to conflate the rate-limited events.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The element of the event.
+     * @return The kind of event.
+     */
+    public static String getKind(EventSink.Source source, Element element) {
+        return source.name() + "/" + element.getTagName() + "/" + element.getAttribute("id");
+    }
+
+    /**
+     * Get the commands that configure this subscription on the {@link RealtimeStreamServer}.
+     *
+     * @return The command lines, without line breaks.
+     */
+    public List<String> toCommands() {
+        return List.of(
+                "SUBSCRIBE " + (types == null ? "*" : toArgument(types)),
+                "PATHS " + (pathPrefixes.isEmpty() ? "*" : String.join(",", pathPrefixes)),
+                "RATE " + rate + (rateLimitedTypes == null ? "" : " " + toArgument(rateLimitedTypes)));
+    }
+
+    /**
+     * Get the argument of a command for a set of types.
+     *
+     * @param types The types.
+     * @return The comma-separated types, or {@link #NONE} if the set is empty.
+     */
+    private static String toArgument(Set<String> types) {
+        return types.isEmpty() ? NONE : String.join(",", types);
+    }
+
+    public Set<String> getTypes() {
+        return types;
+    }
+
+    public List<String> getPathPrefixes() {
+        return pathPrefixes;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Set<String> getRateLimitedTypes() {
+        return rateLimitedTypes;
+    }
+
+    private static boolean isOfType(Set<String> types, EventSink.Source source, Element element) {
+        return types == null || types.contains(source.name()) || types.contains(element.getTagName())
+                || types.contains(element.getAttribute("id"));
+    }
+
+    /**
+     * Get the relative path of the file of an event.
+     *
+     * @param element The element of the event.
+     * @return The path, or {@code null} if the event has no path.
+     */
+    private static String getPath(Element element) {
+        if (!element.getAttribute("path").isEmpty()) {
+            return element.getAttribute("path");
+        }
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element location && location.getTagName().equals("location")
+                    && !location.getAttribute("path").isEmpty()) {
+                return location.getAttribute("path");
+            }
+        }
+        return null;
+    }
+}
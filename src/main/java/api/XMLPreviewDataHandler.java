@@ -6,16 +6,25 @@ import components.XMLStatusWidget;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.swing.*;
+
 /**
  * Handler for XML preview updates during tracking.
  * Manages real-time display of XML data in the IDE.
+ * It is an {@link EventSink}, meant to be registered on the trackers wrapped in an {@link AsyncEventSink}.
  */
-public class XMLPreviewDataHandler {
+public class XMLPreviewDataHandler implements EventSink {
+
+    /**
+     * The minimum interval between two status updates in milliseconds, so that mouse and gaze events do not flood the EDT.
+     */
+    private static final long STATUS_UPDATE_INTERVAL = 100;
 
     private static XMLPreviewDataHandler instance;
     private XMLStatusWidget statusWidget;
     private Document currentIDEDocument;
     private Document currentEyeDocument;
+    private long lastStatusUpdate = 0;
 
     private XMLPreviewDataHandler() {
     }
@@ -82,6 +91,27 @@ public class XMLPreviewDataHandler {
         }
     }
 
+    /**
+     * Handle an event of the tracking event stream. The status widget is updated on the EDT, at most every
+     * {@link #STATUS_UPDATE_INTERVAL} milliseconds.
+     *
+     * @param source  The tracker that produced the event.
+     * @param element The element of the event.
+     */
+    @Override
+    public void accept(Source source, Element element) {
+        long now = System.currentTimeMillis();
+        if (statusWidget == null || now - lastStatusUpdate < STATUS_UPDATE_INTERVAL) {
+            return;
+        }
+        lastStatusUpdate = now;
+        if (source == Source.IDE) {
+            SwingUtilities.invokeLater(() -> onIDEElementAdded(element));
+        } else {
+            SwingUtilities.invokeLater(() -> statusWidget.updateStatus("Recording " + element.getTagName()));
+        }
+    }
+
     /**
      * Get the current IDE tracking document.
      *
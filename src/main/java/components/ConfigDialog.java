@@ -1,6 +1,8 @@
 package components;
 
 import actions.AddLabelAction;
+import api.RealtimeStreamServer;
+import api.SharedMemoryLayout;
 import com.intellij.openapi.project.ProjectManager;
 import com.intellij.openapi.ui.*;
 import com.intellij.ui.DocumentAdapter;
@@ -14,6 +16,8 @@ import com.intellij.openapi.fileChooser.FileChooserDescriptor;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.ui.JBUI;
 import entity.Config;
+import trackers.GazeResolutionPolicy;
+import trackers.SimulatedEyeTrackerDevice;
 import utils.OSDetector;
 
 import javax.swing.*;
@@ -41,6 +45,17 @@ public class ConfigDialog extends DialogWrapper {
 
     private final JComboBox<Double> freqCombo = new ComboBox<>();
     private final JComboBox<String> deviceCombo = new ComboBox<>(new String[]{"Mouse"});
+    private final JComboBox<GazeResolutionPolicy> gazeResolutionCombo = new ComboBox<>(GazeResolutionPolicy.values());
+    private final JSpinner gazeResolutionIntervalSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 120, 1));
+    private final JComboBox<String> simulatorCombo = new ComboBox<>(new String[]{"None (Python Device)",
+            SimulatedEyeTrackerDevice.Mode.MOUSE.toString(), SimulatedEyeTrackerDevice.Mode.SYNTHETIC.toString()});
+    private final JSpinner simulatorFrequencySpinner = new JSpinner(new SpinnerNumberModel(1000, 1,
+            (int) SimulatedEyeTrackerDevice.MAX_SAMPLE_FREQUENCY, 10));
+    private final JCheckBox continuousRecordingCheckBox = new JCheckBox("Single Clip (Keep Encoder Alive When Paused)");
+    private final JCheckBox regionCaptureCheckBox = new JCheckBox("Capture IDE Window Only");
+    private final JCheckBox adaptiveFrameRateCheckBox = new JCheckBox("Adaptive Frame Rate (1-12 fps, Driven by IDE Activity)");
+    private final JCheckBox sharedMemoryStreamingCheckBox = new JCheckBox("Publish Events to Shared Memory (" + SharedMemoryLayout.DEFAULT_FILE.getPath() + ")");
+    private final JCheckBox realTimeStreamingCheckBox = new JCheckBox("Stream Events to Local Subscribers (localhost:" + RealtimeStreamServer.DEFAULT_PORT + ")");
 
     private boolean pythonEnvironment = false;
     private boolean eyeTracker = false;
@@ -142,10 +157,37 @@ public class ConfigDialog extends DialogWrapper {
         } else {
             deviceCombo.setSelectedIndex(0);
         }
+        gazeResolutionCombo.setSelectedItem(GazeResolutionPolicy.fromName(config.getGazeResolutionPolicy()));
+        gazeResolutionIntervalSpinner.setValue(config.getGazeResolutionInterval());
+        SimulatedEyeTrackerDevice.Mode simulatorMode = SimulatedEyeTrackerDevice.Mode.fromName(config.getEyeTrackerSimulator());
+        simulatorCombo.setSelectedIndex(simulatorMode == null ? 0 : simulatorMode.ordinal() + 1);
+        simulatorFrequencySpinner.setValue(config.getSimulatorFrequency());
+        simulatorFrequencySpinner.setEnabled(simulatorMode != null);
         if (!checkBoxes.get(1).isSelected()) {
             freqCombo.setEnabled(false);
             deviceCombo.setEnabled(false);
         }
+        updateGazeResolutionControls(checkBoxes.get(1).isSelected());
+        continuousRecordingCheckBox.setSelected(config.isContinuousRecording());
+        continuousRecordingCheckBox.setEnabled(checkBoxes.get(2).isSelected());
+        regionCaptureCheckBox.setSelected(config.isRegionCapture());
+        regionCaptureCheckBox.setEnabled(checkBoxes.get(2).isSelected());
+        adaptiveFrameRateCheckBox.setSelected(config.isAdaptiveFrameRate());
+        adaptiveFrameRateCheckBox.setEnabled(checkBoxes.get(2).isSelected());
+        realTimeStreamingCheckBox.setSelected(config.isRealTimeStreaming());
+        sharedMemoryStreamingCheckBox.setSelected(config.isSharedMemoryStreaming());
+    }
+
+    /**
+     * Enable the gaze resolution controls if the eye tracking is selected. N is only enabled for the
+     * {@link GazeResolutionPolicy#EVERY_NTH} policy.
+     *
+     * @param isEyeTracking Whether the eye tracking is selected.
+     */
+    private void updateGazeResolutionControls(boolean isEyeTracking) {
+        gazeResolutionCombo.setEnabled(isEyeTracking);
+        gazeResolutionIntervalSpinner.setEnabled(isEyeTracking
+                && gazeResolutionCombo.getSelectedItem() == GazeResolutionPolicy.EVERY_NTH);
     }
 
     /**
@@ -154,9 +196,28 @@ public class ConfigDialog extends DialogWrapper {
     private void saveConfig() {
         Config config = new Config(getSelectedCheckboxes(), getCurrentLabels(), (Double) freqCombo.getSelectedItem(),
                 getPythonInterpreter(), getDataOutputPath(), deviceCombo.getSelectedIndex());
+        config.setContinuousRecording(continuousRecordingCheckBox.isSelected());
+        config.setRegionCapture(regionCaptureCheckBox.isSelected());
+        config.setAdaptiveFrameRate(adaptiveFrameRateCheckBox.isSelected());
+        config.setRealTimeStreaming(realTimeStreamingCheckBox.isSelected());
+        config.setSharedMemoryStreaming(sharedMemoryStreamingCheckBox.isSelected());
+        config.setGazeResolutionPolicy(((GazeResolutionPolicy) Objects.requireNonNull(gazeResolutionCombo.getSelectedItem())).name());
+        config.setGazeResolutionInterval((Integer) gazeResolutionIntervalSpinner.getValue());
+        config.setEyeTrackerSimulator(getSimulatorMode() == null ? "NONE" : getSimulatorMode().name());
+        config.setSimulatorFrequency((Integer) simulatorFrequencySpinner.getValue());
         config.saveAsJson();
     }
 
+    /**
+     * Get the selected mode of the in-JVM eye tracker simulator.
+     *
+     * @return The mode, or {@code null} if the Python eye tracker device is used.
+     */
+    private SimulatedEyeTrackerDevice.Mode getSimulatorMode() {
+        int index = simulatorCombo.getSelectedIndex();
+        return index <= 0 ? null : SimulatedEyeTrackerDevice.Mode.values()[index - 1];
+    }
+
     /**
      * Save the configuration when the OK button is clicked.
      */
@@ -335,11 +396,117 @@ public class ConfigDialog extends DialogWrapper {
         comboPanel.setBorder(new EmptyBorder(JBUI.insets(0, 20, 5, 20)));
         panel.add(comboPanel);
 
+        JPanel gazeResolutionPanel = new JPanel();
+        gazeResolutionPanel.setLayout(new BoxLayout(gazeResolutionPanel, BoxLayout.Y_AXIS));
+        gazeResolutionPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JLabel gazeResolutionLabel = new JLabel("Gaze-to-Code Mapping");
+        gazeResolutionLabel.setHorizontalTextPosition(JLabel.LEFT);
+        gazeResolutionLabel.setBorder(new EmptyBorder(JBUI.insetsBottom(5)));
+        gazeResolutionCombo.setAlignmentX(Component.LEFT_ALIGNMENT);
+        gazeResolutionCombo.setMaximumSize(new Dimension(230, 40));
+        gazeResolutionPanel.add(gazeResolutionLabel);
+        gazeResolutionPanel.add(gazeResolutionCombo);
+
+        JPanel gazeResolutionIntervalPanel = new JPanel();
+        gazeResolutionIntervalPanel.setLayout(new BoxLayout(gazeResolutionIntervalPanel, BoxLayout.Y_AXIS));
+        gazeResolutionIntervalPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JLabel gazeResolutionIntervalLabel = new JLabel("N (0 = Auto, About 10 per Second)");
+        gazeResolutionIntervalLabel.setHorizontalTextPosition(JLabel.LEFT);
+        gazeResolutionIntervalLabel.setBorder(new EmptyBorder(JBUI.insetsBottom(5)));
+        gazeResolutionIntervalSpinner.setAlignmentX(Component.LEFT_ALIGNMENT);
+        gazeResolutionIntervalSpinner.setMaximumSize(new Dimension(230, 40));
+        gazeResolutionIntervalPanel.add(gazeResolutionIntervalLabel);
+        gazeResolutionIntervalPanel.add(gazeResolutionIntervalSpinner);
+
+        JPanel gazeResolutionRow = new JPanel();
+        gazeResolutionRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        gazeResolutionRow.setLayout(new BoxLayout(gazeResolutionRow, BoxLayout.X_AXIS));
+        gazeResolutionRow.add(gazeResolutionPanel);
+        gazeResolutionRow.add(gazeResolutionIntervalPanel);
+        gazeResolutionRow.setBorder(new EmptyBorder(JBUI.insets(0, 20, 5, 20)));
+        panel.add(gazeResolutionRow);
+        gazeResolutionCombo.addActionListener(e -> updateGazeResolutionControls(eyeTracking.isSelected()));
+
+        JPanel simulatorPanel = new JPanel();
+        simulatorPanel.setLayout(new BoxLayout(simulatorPanel, BoxLayout.Y_AXIS));
+        simulatorPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JLabel simulatorLabel = new JLabel("Eye Tracker Simulator");
+        simulatorLabel.setHorizontalTextPosition(JLabel.LEFT);
+        simulatorLabel.setBorder(new EmptyBorder(JBUI.insetsBottom(5)));
+        simulatorCombo.setAlignmentX(Component.LEFT_ALIGNMENT);
+        simulatorCombo.setMaximumSize(new Dimension(230, 40));
+        simulatorPanel.add(simulatorLabel);
+        simulatorPanel.add(simulatorCombo);
+
+        JPanel simulatorFrequencyPanel = new JPanel();
+        simulatorFrequencyPanel.setLayout(new BoxLayout(simulatorFrequencyPanel, BoxLayout.Y_AXIS));
+        simulatorFrequencyPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JLabel simulatorFrequencyLabel = new JLabel("Simulator Frequency (Hz)");
+        simulatorFrequencyLabel.setHorizontalTextPosition(JLabel.LEFT);
+        simulatorFrequencyLabel.setBorder(new EmptyBorder(JBUI.insetsBottom(5)));
+        simulatorFrequencySpinner.setAlignmentX(Component.LEFT_ALIGNMENT);
+        simulatorFrequencySpinner.setMaximumSize(new Dimension(230, 40));
+        simulatorFrequencySpinner.setEnabled(false);
+        simulatorFrequencyPanel.add(simulatorFrequencyLabel);
+        simulatorFrequencyPanel.add(simulatorFrequencySpinner);
+
+        JPanel simulatorRow = new JPanel();
+        simulatorRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        simulatorRow.setLayout(new BoxLayout(simulatorRow, BoxLayout.X_AXIS));
+        simulatorRow.add(simulatorPanel);
+        simulatorRow.add(simulatorFrequencyPanel);
+        simulatorRow.setBorder(new EmptyBorder(JBUI.insets(0, 20, 5, 20)));
+        panel.add(simulatorRow);
+        simulatorCombo.addActionListener(e -> simulatorFrequencySpinner.setEnabled(getSimulatorMode() != null));
+        updateGazeResolutionControls(false);
+
         eyeTracking.addChangeListener(e -> {
             freqCombo.setEnabled(eyeTracking.isSelected());
             deviceCombo.setEnabled(eyeTracking.isSelected());
+            updateGazeResolutionControls(eyeTracking.isSelected());
+        });
+
+        JLabel screenRecordingLabel = new JLabel("Screen Recording Options");
+        screenRecordingLabel.setHorizontalTextPosition(JLabel.LEFT);
+        screenRecordingLabel.setBorder(new EmptyBorder(JBUI.insetsLeft(20)));
+        panel.add(screenRecordingLabel);
+
+        JPanel screenRecordingPanel = new JPanel();
+        screenRecordingPanel.setLayout(new BoxLayout(screenRecordingPanel, BoxLayout.Y_AXIS));
+        screenRecordingPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        screenRecordingPanel.setBorder(new EmptyBorder(JBUI.insets(0, 20, 5, 20)));
+        continuousRecordingCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+        continuousRecordingCheckBox.setEnabled(false);
+        screenRecordingPanel.add(continuousRecordingCheckBox);
+        regionCaptureCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+        regionCaptureCheckBox.setEnabled(false);
+        screenRecordingPanel.add(regionCaptureCheckBox);
+        adaptiveFrameRateCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+        adaptiveFrameRateCheckBox.setEnabled(false);
+        screenRecordingPanel.add(adaptiveFrameRateCheckBox);
+        panel.add(screenRecordingPanel);
+
+        screenRecording.addChangeListener(e -> {
+            continuousRecordingCheckBox.setEnabled(screenRecording.isSelected());
+            regionCaptureCheckBox.setEnabled(screenRecording.isSelected());
+            adaptiveFrameRateCheckBox.setEnabled(screenRecording.isSelected());
         });
 
+        JLabel realTimeLabel = new JLabel("Real-time Options");
+        realTimeLabel.setHorizontalTextPosition(JLabel.LEFT);
+        realTimeLabel.setBorder(new EmptyBorder(JBUI.insetsLeft(20)));
+        panel.add(realTimeLabel);
+
+        JPanel realTimePanel = new JPanel();
+        realTimePanel.setLayout(new BoxLayout(realTimePanel, BoxLayout.Y_AXIS));
+        realTimePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        realTimePanel.setBorder(new EmptyBorder(JBUI.insets(0, 20, 5, 20)));
+        realTimeStreamingCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+        realTimePanel.add(realTimeStreamingCheckBox);
+        sharedMemoryStreamingCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+        realTimePanel.add(sharedMemoryStreamingCheckBox);
+        panel.add(realTimePanel);
+
         JPanel labelAreaPanel = new JPanel();
         JLabel labels = new JLabel("Preset Labels");
         labels.setFont(headingFont);
@@ -351,6 +518,11 @@ public class ConfigDialog extends DialogWrapper {
         panel.add(labelAreaPanel);
 
         eyeTracking.addActionListener(actionEvent -> {
+            if (!pythonEnvironment && getSimulatorMode() != null) {
+                // the in-JVM simulator does not need Python
+                updateGazeResolutionControls(eyeTracking.isSelected());
+                return;
+            }
             if (!pythonEnvironment) {
                 eyeTracking.setSelected(false);
                 new AlertDialog("Python environment not configured.", AllIcons.General.BalloonWarning).show();
@@ -22,6 +22,15 @@ public class Config implements Serializable {
     private String pythonInterpreter;
     private String dataOutputPath;
     private Integer eyeTrackerDevice;
+    private Boolean continuousRecording;
+    private Boolean regionCapture;
+    private Boolean adaptiveFrameRate;
+    private Boolean realTimeStreaming;
+    private Boolean sharedMemoryStreaming;
+    private String gazeResolutionPolicy;
+    private Integer gazeResolutionInterval;
+    private String eyeTrackerSimulator;
+    private Integer simulatorFrequency;
 
     /**
      * The constructor of the Config class.
@@ -68,6 +77,15 @@ public class Config implements Serializable {
         jsonObject.addProperty("checkBoxes", checkBoxes.toString());
         jsonObject.addProperty("dataOutputPath", dataOutputPath);
         jsonObject.addProperty("eyeTrackerDevice", eyeTrackerDevice);
+        jsonObject.addProperty("continuousRecording", isContinuousRecording());
+        jsonObject.addProperty("regionCapture", isRegionCapture());
+        jsonObject.addProperty("adaptiveFrameRate", isAdaptiveFrameRate());
+        jsonObject.addProperty("realTimeStreaming", isRealTimeStreaming());
+        jsonObject.addProperty("sharedMemoryStreaming", isSharedMemoryStreaming());
+        jsonObject.addProperty("gazeResolutionPolicy", getGazeResolutionPolicy());
+        jsonObject.addProperty("gazeResolutionInterval", getGazeResolutionInterval());
+        jsonObject.addProperty("eyeTrackerSimulator", getEyeTrackerSimulator());
+        jsonObject.addProperty("simulatorFrequency", getSimulatorFrequency());
 
         Gson gson = new Gson();
         try (FileWriter fileWriter = new FileWriter(PathManager.getPluginsPath() + "/config.json")) {
@@ -90,6 +108,16 @@ public class Config implements Serializable {
             sampleFreq = jsonObject.get("sampleFreq").getAsDouble();
             dataOutputPath = jsonObject.get("dataOutputPath").getAsString();
             eyeTrackerDevice = jsonObject.get("eyeTrackerDevice").getAsInt();
+            // optional settings added after the first release, missing from older config files
+            continuousRecording = jsonObject.has("continuousRecording") && jsonObject.get("continuousRecording").getAsBoolean();
+            regionCapture = jsonObject.has("regionCapture") && jsonObject.get("regionCapture").getAsBoolean();
+            adaptiveFrameRate = jsonObject.has("adaptiveFrameRate") && jsonObject.get("adaptiveFrameRate").getAsBoolean();
+            realTimeStreaming = jsonObject.has("realTimeStreaming") && jsonObject.get("realTimeStreaming").getAsBoolean();
+            sharedMemoryStreaming = jsonObject.has("sharedMemoryStreaming") && jsonObject.get("sharedMemoryStreaming").getAsBoolean();
+            gazeResolutionPolicy = jsonObject.has("gazeResolutionPolicy") ? jsonObject.get("gazeResolutionPolicy").getAsString() : null;
+            gazeResolutionInterval = jsonObject.has("gazeResolutionInterval") ? jsonObject.get("gazeResolutionInterval").getAsInt() : null;
+            eyeTrackerSimulator = jsonObject.has("eyeTrackerSimulator") ? jsonObject.get("eyeTrackerSimulator").getAsString() : null;
+            simulatorFrequency = jsonObject.has("simulatorFrequency") ? jsonObject.get("simulatorFrequency").getAsInt() : null;
             String labelsString = jsonObject.get("labels").getAsString().substring(1, jsonObject.get("labels").getAsString().length() - 1);
             if (labelsString.isEmpty()) {
                 labels = List.of();
@@ -125,6 +153,123 @@ public class Config implements Serializable {
         return eyeTrackerDevice;
     }
 
+    /**
+     * Whether the screen recorder keeps the encoder alive across pauses and records a single clip per session.
+     *
+     * @return {@code true} if continuous recording is enabled.
+     */
+    public boolean isContinuousRecording() {
+        return continuousRecording != null && continuousRecording;
+    }
+
+    public void setContinuousRecording(Boolean continuousRecording) {
+        this.continuousRecording = continuousRecording;
+    }
+
+    /**
+     * Whether the screen recorder captures only the IDE window instead of the whole screen.
+     *
+     * @return {@code true} if region capture is enabled.
+     */
+    public boolean isRegionCapture() {
+        return regionCapture != null && regionCapture;
+    }
+
+    public void setRegionCapture(Boolean regionCapture) {
+        this.regionCapture = regionCapture;
+    }
+
+    /**
+     * Whether the frame rate of the screen recorder adapts to the activity in the IDE.
+     *
+     * @return {@code true} if the adaptive frame rate is enabled.
+     */
+    public boolean isAdaptiveFrameRate() {
+        return adaptiveFrameRate != null && adaptiveFrameRate;
+    }
+
+    public void setAdaptiveFrameRate(Boolean adaptiveFrameRate) {
+        this.adaptiveFrameRate = adaptiveFrameRate;
+    }
+
+    /**
+     * Whether the tracking events are streamed to local subscribers by the {@link api.RealtimeStreamServer}.
+     *
+     * @return {@code true} if real-time streaming is enabled.
+     */
+    public boolean isRealTimeStreaming() {
+        return realTimeStreaming != null && realTimeStreaming;
+    }
+
+    public void setRealTimeStreaming(Boolean realTimeStreaming) {
+        this.realTimeStreaming = realTimeStreaming;
+    }
+
+    /**
+     * Whether the tracking events are published to the shared-memory event ring by the {@link api.SharedMemoryEventSink}.
+     *
+     * @return {@code true} if shared-memory streaming is enabled.
+     */
+    public boolean isSharedMemoryStreaming() {
+        return sharedMemoryStreaming != null && sharedMemoryStreaming;
+    }
+
+    public void setSharedMemoryStreaming(Boolean sharedMemoryStreaming) {
+        this.sharedMemoryStreaming = sharedMemoryStreaming;
+    }
+
+    /**
+     * Get the name of the policy for mapping the gazes to the source code, see {@link trackers.GazeResolutionPolicy}.
+     *
+     * @return The name of the policy, {@code ALL} by default, as before the policies existed.
+     */
+    public String getGazeResolutionPolicy() {
+        return gazeResolutionPolicy != null ? gazeResolutionPolicy : "ALL";
+    }
+
+    public void setGazeResolutionPolicy(String gazeResolutionPolicy) {
+        this.gazeResolutionPolicy = gazeResolutionPolicy;
+    }
+
+    /**
+     * Get N for the {@code EVERY_NTH} gaze resolution policy.
+     *
+     * @return N, or 0 if it is derived from the sample frequency.
+     */
+    public int getGazeResolutionInterval() {
+        return gazeResolutionInterval != null ? gazeResolutionInterval : 0;
+    }
+
+    public void setGazeResolutionInterval(Integer gazeResolutionInterval) {
+        this.gazeResolutionInterval = gazeResolutionInterval;
+    }
+
+    /**
+     * Get the name of the mode of the in-JVM eye tracker simulator, see {@link trackers.SimulatedEyeTrackerDevice}.
+     *
+     * @return The name of the mode, or {@code NONE} to use the Python eye tracker device.
+     */
+    public String getEyeTrackerSimulator() {
+        return eyeTrackerSimulator != null ? eyeTrackerSimulator : "NONE";
+    }
+
+    public void setEyeTrackerSimulator(String eyeTrackerSimulator) {
+        this.eyeTrackerSimulator = eyeTrackerSimulator;
+    }
+
+    /**
+     * Get the sample frequency of the in-JVM eye tracker simulator.
+     *
+     * @return The sample frequency in Hz, 1000 by default.
+     */
+    public int getSimulatorFrequency() {
+        return simulatorFrequency != null ? simulatorFrequency : 1000;
+    }
+
+    public void setSimulatorFrequency(Integer simulatorFrequency) {
+        this.simulatorFrequency = simulatorFrequency;
+    }
+
     public String toString() {
         return "Config{" +
                 "checkBoxes=" + checkBoxes +
@@ -133,6 +278,15 @@ public class Config implements Serializable {
                 ", pythonInterpreter='" + pythonInterpreter + '\'' +
                 ", dataOutputPath='" + dataOutputPath + '\'' +
                 ", eyeTrackerDevice=" + eyeTrackerDevice +
+                ", continuousRecording=" + continuousRecording +
+                ", regionCapture=" + regionCapture +
+                ", adaptiveFrameRate=" + adaptiveFrameRate +
+                ", realTimeStreaming=" + realTimeStreaming +
+                ", sharedMemoryStreaming=" + sharedMemoryStreaming +
+                ", gazeResolutionPolicy='" + gazeResolutionPolicy + '\'' +
+                ", gazeResolutionInterval=" + gazeResolutionInterval +
+                ", eyeTrackerSimulator='" + eyeTrackerSimulator + '\'' +
+                ", simulatorFrequency=" + simulatorFrequency +
                 '}';
     }
 
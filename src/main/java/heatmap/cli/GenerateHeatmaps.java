@@ -1,12 +1,16 @@
 package heatmap.cli;
 
+import heatmap.generator.HeatmapConfiguration;
 import heatmap.generator.HeatmapGenerator;
 import heatmap.model.*;
 import heatmap.parser.*;
 import heatmap.renderer.VideoOverlayRenderer;
 import heatmap.sync.TimeWindowSynchronizer;
+import heatmap.sync.ZoneMapper;
 import heatmap.validator.*;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,25 +19,130 @@ import java.util.List;
 public class GenerateHeatmaps {
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Usage: java heatmap.cli.GenerateHeatmaps <session-folder-path> [--video-only]");
-            System.out.println();
-            System.out.println("Options:");
-            System.out.println("  --video-only    Skip heatmap generation and only render video (requires existing heatmaps)");
-            System.out.println();
-            System.out.println("Example:");
-            System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241");
-            System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241 --video-only");
+            printUsage();
             System.exit(1);
         }
 
         String sessionPath = args[0];
-        boolean videoOnly = args.length > 1 && args[1].equals("--video-only");
+        boolean videoOnly = false;
+        String source = "mouse";
+        int gridColumns = ZoneMapper.DEFAULT_GRID_SIZE;
+        int gridRows = ZoneMapper.DEFAULT_GRID_SIZE;
+        boolean adaptive = false;
+        HeatmapConfiguration configuration = new HeatmapConfiguration();
+        List<Long> timeWindows = new ArrayList<>();  // Several windows run a parameter sweep on the parsed session
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--video-only")) {
+                videoOnly = true;
+            } else if (args[i].equals("--source") && i + 1 < args.length) {
+                source = args[++i];
+            } else if (args[i].equals("--grid") && i + 1 < args.length) {
+                String[] size = args[++i].toLowerCase().split("x");
+                try {
+                    gridColumns = Integer.parseInt(size[0]);
+                    gridRows = size.length == 2 ? Integer.parseInt(size[1]) : -1;
+                } catch (NumberFormatException e) {
+                    gridRows = -1;
+                }
+                if (gridColumns < 1 || gridRows < 1) {
+                    System.err.println("Invalid grid size: " + args[i]);
+                    printUsage();
+                    System.exit(1);
+                }
+            } else if (args[i].equals("--adaptive")) {
+                adaptive = true;
+            } else if (args[i].equals("--density")) {
+                configuration.setRenderMode(HeatmapConfiguration.RenderMode.DENSITY);
+            } else if (args[i].equals("--decay") && i + 1 < args.length) {
+                configuration.setIntensityModel(HeatmapConfiguration.IntensityModel.DECAY);
+                long halfLifeMs = parseSeconds(args[++i]);
+                if (halfLifeMs <= 0) {
+                    System.err.println("Invalid half-life: " + args[i]);
+                    printUsage();
+                    System.exit(1);
+                }
+                configuration.setDecayHalfLifeMs(halfLifeMs);
+            } else if (args[i].equals("--window") && i + 1 < args.length) {
+                for (String value : args[++i].split(",")) {
+                    long timeWindowMs = parseSeconds(value);
+                    if (timeWindowMs <= 0) {
+                        System.err.println("Invalid time window: " + value);
+                        printUsage();
+                        System.exit(1);
+                    }
+                    timeWindows.add(timeWindowMs);
+                }
+            } else if (args[i].equals("--scaling") && i + 1 < args.length) {
+                String scaling = args[++i];
+                if (scaling.equals("linear")) {
+                    configuration.setScalingMethod(HeatmapConfiguration.ScalingMethod.LINEAR);
+                } else if (scaling.equals("log")) {
+                    configuration.setScalingMethod(HeatmapConfiguration.ScalingMethod.LOGARITHMIC);
+                } else {
+                    System.err.println("Unknown scaling: " + scaling);
+                    printUsage();
+                    System.exit(1);
+                }
+            } else if (args[i].equals("--colors") && i + 1 < args.length) {
+                try {
+                    configuration.setColorStops(HeatmapConfiguration.parseColorStops(args[++i]));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    printUsage();
+                    System.exit(1);
+                }
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                printUsage();
+                System.exit(1);
+            }
+        }
+        if (!source.equals("mouse") && !source.equals("gaze") && !source.equals("both")) {
+            System.err.println("Unknown source: " + source);
+            printUsage();
+            System.exit(1);
+        }
+        boolean decaying = configuration.getIntensityModel() == HeatmapConfiguration.IntensityModel.DECAY;
+        if (decaying && configuration.getRenderMode() == HeatmapConfiguration.RenderMode.DENSITY) {
+            // The kernel density is rendered from the events of the time window and never decays
+            System.err.println("--decay cannot be combined with --density");
+            printUsage();
+            System.exit(1);
+        }
+        if (decaying && timeWindows.size() > 1) {
+            // The decaying heat does not depend on the time window, so every run of the sweep would be identical
+            System.err.println("--decay cannot be combined with a sweep of several --window values");
+            printUsage();
+            System.exit(1);
+        }
+
+        // One configuration per time window, each sweep run in its own heatmap folder
+        List<HeatmapConfiguration> configurations = new ArrayList<>();
+        if (timeWindows.size() <= 1) {
+            if (!timeWindows.isEmpty()) {
+                configuration.setTimeWindowMs(timeWindows.get(0));
+            }
+            configurations.add(configuration);
+        } else {
+            for (long timeWindowMs : timeWindows) {
+                HeatmapConfiguration sweepConfiguration = new HeatmapConfiguration(configuration);
+                sweepConfiguration.setTimeWindowMs(timeWindowMs);
+                sweepConfiguration.setOutputDirName(HeatmapConfiguration.OUTPUT_DIR_NAME + "_window" +
+                        formatSeconds(timeWindowMs) + "s");
+                configurations.add(sweepConfiguration);
+            }
+        }
 
         System.out.println("╔════════════════════════════════════════════════════════════╗");
         System.out.println("║         CodeGRITS Heatmap Generator v1.0                   ║");
         System.out.println("╚════════════════════════════════════════════════════════════╝");
         System.out.println();
         System.out.println("Session: " + sessionPath);
+        System.out.println("Source: " + source);
+        System.out.println("Grid: " + gridColumns + "x" + gridRows + (adaptive ? " (adaptive)" : ""));
+        for (HeatmapConfiguration sweepConfiguration : configurations) {
+            System.out.println("Configuration: " + sweepConfiguration);
+        }
         if (videoOnly) {
             System.out.println("Mode: Video rendering only");
         }
@@ -64,52 +173,90 @@ public class GenerateHeatmaps {
             System.out.println("   Screen size: " + metadata.getScreenSize().width + "x" + 
                               metadata.getScreenSize().height);
 
-            // 3. Parse mouse events
-            System.out.println("\n[3/5] Parsing mouse events...");
-            List<MouseEvent> mouseEvents = xmlParser.parseMouseEvents(
-                    sessionPath + "/ide_tracking.xml"
-            );
-            System.out.println("✅ Found " + mouseEvents.size() + " mouse events");
+            // 3. Parse mouse events and gaze samples
+            System.out.println("\n[3/5] Parsing " + (source.equals("both") ? "mouse and gaze" : source) + " events...");
+            List<MouseEvent> mouseEvents = new ArrayList<>();
+            List<GazeEvent> gazeEvents = new ArrayList<>();
+            if (!source.equals("gaze")) {
+                mouseEvents = xmlParser.parseMouseEvents(
+                        sessionPath + "/ide_tracking.xml"
+                );
+                System.out.println("✅ Found " + mouseEvents.size() + " mouse events");
+            }
+            if (!source.equals("mouse")) {
+                String eyeTrackingPath = sessionPath + "/eye_tracking.xml";
+                if (!new File(eyeTrackingPath).isFile()) {
+                    throw new SessionDataException("Missing eye_tracking.xml file for gaze heatmaps");
+                }
+                gazeEvents = new GazeXMLParser().parseGazeEvents(eyeTrackingPath, metadata.getScreenSize());
+                System.out.println("✅ Found " + gazeEvents.size() + " valid gaze samples");
+            }
 
             // 4. Parse frames
             System.out.println("\n[4/5] Parsing video frames...");
-            FrameCSVParser csvParser = new FrameCSVParser();
-            List<VideoFrame> frames = csvParser.parseFrames(
-                    sessionPath + "/screen_recording/frames.csv"
-            );
+            FrameIndexParser indexParser = new FrameIndexParser();
+            String indexPath = sessionPath + "/screen_recording/frames.idx";
+            List<VideoFrame> frames;
+            if (indexParser.isAvailable(indexPath)) {
+                frames = indexParser.parseFrames(indexPath);
+            } else {
+                FrameCSVParser csvParser = new FrameCSVParser();
+                frames = csvParser.parseFrames(sessionPath + "/screen_recording/frames.csv");
+            }
             System.out.println("✅ Found " + frames.size() + " video frames");
 
             // 5. Synchronize data
             System.out.println("\n[5/5] Synchronizing data...");
-            TimeWindowSynchronizer synchronizer = new TimeWindowSynchronizer();
-            HeatmapSession session = synchronizer.synchronize(metadata, frames, mouseEvents);
-            System.out.println("✅ Synchronized " + session.getTotalMouseEvents() + " events to " + 
+            CaptureRegionParser regionParser = new CaptureRegionParser();
+            String regionsPath = sessionPath + "/screen_recording/regions.csv";
+            if (regionParser.isAvailable(regionsPath)) {
+                metadata.setCaptureRegions(regionParser.parseRegions(regionsPath));
+                System.out.println("   Capture region: " + metadata.getCaptureSize().width + "x" +
+                                  metadata.getCaptureSize().height + " (IDE window)");
+            }
+            TimeWindowSynchronizer synchronizer = new TimeWindowSynchronizer(gridColumns, gridRows, adaptive);
+            HeatmapSession session = synchronizer.synchronize(metadata, frames,
+                    TimeWindowSynchronizer.mergeByTimestamp(mouseEvents, gazeEvents));
+            System.out.println("✅ Synchronized " + session.getTotalEvents() + " events to " + 
                               session.getFrameCount() + " frames");
+            System.out.println("   Zones: " + session.getZoneMapper().getZoneCount());
 
-            // 6. Generate heatmaps (unless --video-only)
-            if (!videoOnly) {
-                System.out.println("\n" + "=".repeat(60));
-                System.out.println("GENERATING HEATMAPS");
-                System.out.println("=".repeat(60) + "\n");
+            System.out.println("   Frame rate: " + String.format("%.2f", metadata.getFrameRate()) + " fps");
 
-                HeatmapGenerator generator = new HeatmapGenerator(session, sessionPath);
-                int processed = generator.generateAll();
+            // The parsed and synchronized session is shared by all configurations of a sweep
+            for (HeatmapConfiguration sweepConfiguration : configurations) {
+                if (configurations.size() > 1) {
+                    System.out.println("\n" + "#".repeat(60));
+                    System.out.println("SWEEP: " + sweepConfiguration);
+                    System.out.println("#".repeat(60));
+                }
 
-                System.out.println("\n✅ Successfully generated " + processed + " heatmap images!");
-            } else {
-                System.out.println("\n⏭ Skipping heatmap generation (--video-only mode)");
-            }
+                // 6. Generate heatmaps (unless --video-only)
+                if (!videoOnly) {
+                    System.out.println("\n" + "=".repeat(60));
+                    System.out.println("GENERATING HEATMAPS");
+                    System.out.println("=".repeat(60) + "\n");
+
+                    HeatmapGenerator generator = new HeatmapGenerator(session, sessionPath, sweepConfiguration);
+                    int processed = generator.generateAll();
+
+                    System.out.println("\n✅ Successfully generated " + processed + " heatmap images!");
+                } else {
+                    System.out.println("\n⏭ Skipping heatmap generation (--video-only mode)");
+                }
 
-            // 7. Render video with overlays
-            System.out.println("\n" + "=".repeat(60));
-            System.out.println("RENDERING VIDEO WITH HEATMAP OVERLAYS");
-            System.out.println("=".repeat(60));
+                // 7. Render video with overlays
+                System.out.println("\n" + "=".repeat(60));
+                System.out.println("RENDERING VIDEO WITH HEATMAP OVERLAYS");
+                System.out.println("=".repeat(60));
 
-            VideoOverlayRenderer renderer = new VideoOverlayRenderer(session, sessionPath);
-            String outputVideo = renderer.renderMergedVideo();
+                VideoOverlayRenderer renderer = new VideoOverlayRenderer(session, sessionPath,
+                        sweepConfiguration.getOutputDirName());
+                String outputVideo = renderer.renderMergedVideo();
 
-            System.out.println("\n✅ Video rendering complete!");
-            System.out.println("📹 Output: " + outputVideo);
+                System.out.println("\n✅ Video rendering complete!");
+                System.out.println("📹 Output: " + outputVideo);
+            }
 
         } catch (SessionDataException e) {
             System.err.println("\n❌ Error: " + e.getMessage());
@@ -123,4 +270,55 @@ public class GenerateHeatmaps {
             System.exit(1);
         }
     }
+
+    /**
+     * Parses a duration in seconds, e.g., "10" or "3.5".
+     *
+     * @param value The duration in seconds
+     * @return The duration in milliseconds, or -1 if it is invalid
+     */
+    private static long parseSeconds(String value) {
+        try {
+            return Math.round(Double.parseDouble(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Formats a duration in seconds for a folder name, e.g., "10" or "3.5".
+     *
+     * @param durationMs The duration in milliseconds
+     * @return The duration in seconds without trailing zeros
+     */
+    private static String formatSeconds(long durationMs) {
+        return durationMs % 1000 == 0 ? String.valueOf(durationMs / 1000) : String.valueOf(durationMs / 1000.0);
+    }
+
+    /**
+     * Prints the command-line usage.
+     */
+    private static void printUsage() {
+        System.out.println("Usage: java heatmap.cli.GenerateHeatmaps <session-folder-path> [--source mouse|gaze|both] [--grid COLSxROWS] [--adaptive] [--window SECONDS[,SECONDS...]] [--scaling linear|log] [--colors STOPS] [--density] [--decay SECONDS] [--video-only]");
+        System.out.println();
+        System.out.println("Options:");
+        System.out.println("  --source        Events to aggregate: mouse (default), gaze from eye_tracking.xml, or both");
+        System.out.println("  --grid          Zone grid size, e.g., 200x120 for fine heatmaps (default: 15x15)");
+        System.out.println("  --adaptive      Subdivide the zones with many events, down to the --grid resolution");
+        System.out.println("  --window        Time window in seconds (default: 10); several windows run a sweep into heatmaps_window<N>s folders (not with --decay)");
+        System.out.println("  --scaling       Intensity scaling: log (default) or linear");
+        System.out.println("  --colors        Color stops as INTENSITY:R,G,B,A separated by ';' (default: green to red)");
+        System.out.println("  --density       Render a smooth Gaussian kernel density instead of colored zones");
+        System.out.println("  --decay         Let zone heat decay exponentially with the given half-life in seconds instead of the window (not with --density or a sweep)");
+        System.out.println("  --video-only    Skip heatmap generation and only render video (requires existing heatmaps)");
+        System.out.println();
+        System.out.println("Example:");
+        System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241");
+        System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241 --source gaze");
+        System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241 --source gaze --grid 64x36 --adaptive");
+        System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241 --source both --density");
+        System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241 --decay 3.5");
+        System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241 --window 5,10,20 --scaling linear");
+        System.out.println("  java heatmap.cli.GenerateHeatmaps 1763167078241 --video-only");
+    }
 }
\ No newline at end of file
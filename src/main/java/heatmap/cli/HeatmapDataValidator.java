@@ -97,7 +97,7 @@ public class HeatmapDataValidator {
                     sessionPath + "/screen_recording/frames.csv"
             );
             System.out.println("✅ Found " + frames.size() + " video frames");
-            System.out.println("   Frame rate: " + metadata.getFrameRate() + " fps");
+            System.out.println("   Frame rate: " + String.format("%.2f", TimeWindowSynchronizer.measureFrameRate(frames)) + " fps");
 
             if (!frames.isEmpty()) {
                 System.out.println("   First frame: #" + frames.get(0).getFrameNumber() +
@@ -115,6 +115,13 @@ public class HeatmapDataValidator {
 
             // 5. Synchronize data
             System.out.println("\n[5/5] Synchronizing mouse events to frames and assigning zones...");
+            CaptureRegionParser regionParser = new CaptureRegionParser();
+            String regionsPath = sessionPath + "/screen_recording/regions.csv";
+            if (regionParser.isAvailable(regionsPath)) {
+                metadata.setCaptureRegions(regionParser.parseRegions(regionsPath));
+                System.out.println("   Capture region: " + metadata.getCaptureSize().width + "x" +
+                                  metadata.getCaptureSize().height + " (IDE window)");
+            }
             TimeWindowSynchronizer synchronizer = new TimeWindowSynchronizer();
             HeatmapSession session = synchronizer.synchronize(metadata, frames, mouseEvents);
 
@@ -142,8 +149,9 @@ public class HeatmapDataValidator {
             ZoneMapper zoneMapper = session.getZoneMapper();
             if (zoneMapper != null) {
                 System.out.println("Grid configuration:");
-                System.out.println("  Grid size: " + ZoneMapper.getGridSize() + "x" + ZoneMapper.getGridSize() +
-                                  " (" + (ZoneMapper.getGridSize() * ZoneMapper.getGridSize()) + " total zones)");
+                System.out.println("  Grid size: " + zoneMapper.getColumns() + "x" + zoneMapper.getRows() +
+                                  " (" + zoneMapper.getZoneCount() + " total zones" +
+                                  (zoneMapper.isAdaptive() ? ", adaptive" : "") + ")");
                 System.out.println("  Cell size: " + zoneMapper.getCellWidth() + "x" +
                                   zoneMapper.getCellHeight() + " pixels");
                 System.out.println("  Screen: " + metadata.getScreenSize().width + "x" +
@@ -166,7 +174,7 @@ public class HeatmapDataValidator {
                 System.out.println("  Events mapped to zones: " + mappedEvents + " / " +
                                   session.getTotalMouseEvents());
                 System.out.println("  Unique zones with activity: " + zoneEventCounts.size() +
-                                  " / " + (ZoneMapper.getGridSize() * ZoneMapper.getGridSize()));
+                                  " / " + zoneMapper.getZoneCount());
 
                 // Show top 5 hottest zones
                 if (!zoneEventCounts.isEmpty()) {
@@ -177,15 +185,15 @@ public class HeatmapDataValidator {
                             .forEach(entry -> {
                                 int zoneId = entry.getKey();
                                 int count = entry.getValue();
-                                int gridX = zoneId % ZoneMapper.getGridSize();
-                                int gridY = zoneId / ZoneMapper.getGridSize();
+                                int gridX = zoneMapper.getZone(zoneId).getGridX();
+                                int gridY = zoneMapper.getZone(zoneId).getGridY();
                                 System.out.printf("  Zone %3d (grid %2d,%2d): %4d events\n",
                                                  zoneId, gridX, gridY, count);
                             });
                     
                     // Detailed count grid
                     System.out.println("\nDetailed Event Counts per Zone:");
-                    printCountGrid(zoneEventCounts);
+                    printCountGrid(zoneMapper, zoneEventCounts);
                 }
             } else {
                 System.out.println("⚠ Zone mapper not initialized");
@@ -228,10 +236,16 @@ public class HeatmapDataValidator {
      * Prints a detailed grid showing the exact event count for each zone.
      * Numbers are right-aligned for easy reading.
      *
+     * @param zoneMapper      Zone mapper of the session
      * @param zoneEventCounts Map of zone IDs to event counts
      */
-    private static void printCountGrid(Map<Integer, Integer> zoneEventCounts) {
-        int gridSize = ZoneMapper.getGridSize();
+    private static void printCountGrid(ZoneMapper zoneMapper, Map<Integer, Integer> zoneEventCounts) {
+        if (zoneMapper.isAdaptive() || zoneMapper.getColumns() > 40 || zoneMapper.getRows() > 40) {
+            System.out.println("  (grid too large to print, see the top zones above)");
+            return;
+        }
+        int columns = zoneMapper.getColumns();
+        int rows = zoneMapper.getRows();
         
         // Find max count to determine column width
         int maxCount = zoneEventCounts.values().stream()
@@ -241,28 +255,28 @@ public class HeatmapDataValidator {
         
         // Print column header (X coordinates)
         System.out.print("     ");  // Space for row numbers
-        for (int x = 0; x < gridSize; x++) {
+        for (int x = 0; x < columns; x++) {
             System.out.printf("%" + columnWidth + "d ", x);
         }
         System.out.println();
         
         // Print top border
         System.out.print("   ┌");
-        for (int x = 0; x < gridSize; x++) {
+        for (int x = 0; x < columns; x++) {
             for (int i = 0; i < columnWidth; i++) {
                 System.out.print("─");
             }
-            if (x < gridSize - 1) {
+            if (x < columns - 1) {
                 System.out.print("─");
             }
         }
         System.out.println("┐");
 
         // Print grid with counts
-        for (int y = 0; y < gridSize; y++) {
+        for (int y = 0; y < rows; y++) {
             System.out.printf("%2d │", y);  // Row number
-            for (int x = 0; x < gridSize; x++) {
-                int zoneId = y * gridSize + x;
+            for (int x = 0; x < columns; x++) {
+                int zoneId = y * columns + x;
                 int count = zoneEventCounts.getOrDefault(zoneId, 0);
                 
                 if (count == 0) {
@@ -278,11 +292,11 @@ public class HeatmapDataValidator {
 
         // Print bottom border
         System.out.print("   └");
-        for (int x = 0; x < gridSize; x++) {
+        for (int x = 0; x < columns; x++) {
             for (int i = 0; i < columnWidth; i++) {
                 System.out.print("─");
             }
-            if (x < gridSize - 1) {
+            if (x < columns - 1) {
                 System.out.print("─");
             }
         }
@@ -0,0 +1,335 @@
+package heatmap.generator;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders smooth heatmap images from the kernel density of the event positions.
+ * Events are accumulated into a grid of density cells, which is blurred with a separable Gaussian kernel
+ * and interpolated to the full image resolution.
+ * <p>
+ * The density is updated incrementally: the events added to or removed from the time window since the last
+ * frame are splatted into the blurred grid with the kernel, which is much cheaper than blurring the whole grid
+ * when only a few events change per frame. When many events change, or periodically to discard float rounding
+ * errors, the grid is blurred again from the event counts, with the horizontal pass split over rows and the
+ * vertical pass split over columns on the fork/join pool.
+ * <p>
+ * Each layer (e.g., each event source) keeps its own density and is normalized on its own;
+ * a cell takes the highest intensity of all layers.
+ */
+public class DensityHeatmapRenderer {
+    private static final int MAX_INCREMENTAL_FRAMES = 256;  // Full blur at least this often to discard rounding errors
+    private static final int PARALLEL_GRAIN = 16;  // Rows or columns per fork/join task
+    private static final float MIN_DENSITY = 1e-3f;  // Below a tenth of the kernel at its 3 sigma cutoff
+
+    private final int width;
+    private final int height;
+    private final int cellSize;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final float[] kernel;  // Gaussian weights from -radius to +radius, 1.0 at the center
+    private final int radius;
+    private final ZoneHeatCalculator calculator;
+    private final int[] colorTable;  // ARGB color of 256 intensity levels
+    private final int[] pixelColumns;  // Left cell of the interpolation of each pixel column
+    private final float[] pixelWeights;  // Weight of the right cell of each pixel column
+
+    private final int[][] counts;  // Events per layer and cell
+    private final float[][] densities;  // Blurred counts per layer and cell
+    private final int[] layerCounts;  // Events per layer
+    private final int[][] pendingCells;  // Cells changed since the last render per layer, negative for removed events
+    private final int[] pendingCounts;
+    private final int[] incrementalFrames;  // Renders since the last full blur per layer
+    private final boolean[] blurPending;  // Too many changes per layer to splat them
+    private final int maxPendingCells;  // Changes at which splatting costs more than a full blur
+    private final float[] blurBuffer;
+    private final float[] intensities;
+
+    /**
+     * Creates a density heatmap renderer with the specified dimensions.
+     *
+     * @param width      Image width (capture width)
+     * @param height     Image height (capture height)
+     * @param layerCount Number of layers normalized on their own, e.g., the number of event sources
+     * @param cellSize   Size of a density cell in pixels
+     * @param sigma      Standard deviation of the Gaussian kernel in pixels
+     * @param colorStops Color gradient stops (intensity -> RGBA)
+     * @param calculator Heat calculator for the intensity scaling
+     */
+    public DensityHeatmapRenderer(int width, int height, int layerCount, int cellSize, double sigma,
+                                  double[][] colorStops, ZoneHeatCalculator calculator) {
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.gridWidth = (width + cellSize - 1) / cellSize;
+        this.gridHeight = (height + cellSize - 1) / cellSize;
+        this.calculator = calculator;
+
+        // Kernel in cell units, cut off at 3 standard deviations
+        double sigmaCells = Math.max(sigma / cellSize, 0.5);
+        this.radius = (int) Math.ceil(3 * sigmaCells);
+        this.kernel = new float[2 * radius + 1];
+        for (int i = -radius; i <= radius; i++) {
+            kernel[i + radius] = (float) Math.exp(-(i * i) / (2 * sigmaCells * sigmaCells));
+        }
+
+        this.colorTable = new int[256];
+        for (int i = 0; i < colorTable.length; i++) {
+            colorTable[i] = HeatmapRenderer.getColorForIntensity(i / 255.0, colorStops).getRGB();
+        }
+
+        // Bilinear interpolation between cell centers, the same for every row
+        this.pixelColumns = new int[width];
+        this.pixelWeights = new float[width];
+        for (int x = 0; x < width; x++) {
+            float gx = Math.max(0.0f, Math.min(gridWidth - 1.0f, (x + 0.5f) / cellSize - 0.5f));
+            pixelColumns[x] = Math.min((int) gx, Math.max(gridWidth - 2, 0));
+            pixelWeights[x] = gx - pixelColumns[x];
+        }
+
+        int cellCount = gridWidth * gridHeight;
+        this.counts = new int[layerCount][cellCount];
+        this.densities = new float[layerCount][cellCount];
+        this.layerCounts = new int[layerCount];
+        this.pendingCells = new int[layerCount][64];
+        this.pendingCounts = new int[layerCount];
+        this.incrementalFrames = new int[layerCount];
+        this.blurPending = new boolean[layerCount];
+        this.maxPendingCells = (int) Math.min(Integer.MAX_VALUE,
+                2L * cellCount * kernel.length / ((long) kernel.length * kernel.length));
+        this.blurBuffer = new float[cellCount];
+        this.intensities = new float[cellCount];
+    }
+
+    /**
+     * Adds an event to the density.
+     *
+     * @param layer The layer of the event
+     * @param x     The X coordinate in the image
+     * @param y     The Y coordinate in the image
+     */
+    public void addPoint(int layer, int x, int y) {
+        updatePoint(layer, x, y, true);
+    }
+
+    /**
+     * Removes an event previously added to the density, e.g., when it leaves the time window.
+     *
+     * @param layer The layer of the event
+     * @param x     The X coordinate in the image
+     * @param y     The Y coordinate in the image
+     */
+    public void removePoint(int layer, int x, int y) {
+        updatePoint(layer, x, y, false);
+    }
+
+    private void updatePoint(int layer, int x, int y, boolean add) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int cell = (y / cellSize) * gridWidth + x / cellSize;
+        counts[layer][cell] += add ? 1 : -1;
+        layerCounts[layer] += add ? 1 : -1;
+
+        if (blurPending[layer]) {
+            return;
+        }
+        if (pendingCounts[layer] >= maxPendingCells) {
+            blurPending[layer] = true;
+            pendingCounts[layer] = 0;
+            return;
+        }
+        if (pendingCounts[layer] == pendingCells[layer].length) {
+            pendingCells[layer] = Arrays.copyOf(pendingCells[layer], pendingCounts[layer] * 2);
+        }
+        pendingCells[layer][pendingCounts[layer]++] = add ? cell : -cell - 1;
+    }
+
+    /**
+     * Renders a heatmap image from the current density of all layers.
+     * All pixels are rendered with color, even those with 0 intensity.
+     *
+     * @return BufferedImage with ARGB color model
+     */
+    public BufferedImage render() {
+        Arrays.fill(intensities, 0.0f);
+        for (int layer = 0; layer < densities.length; layer++) {
+            updateDensity(layer);
+            if (layerCounts[layer] > 0) {
+                calculator.calculateDensityIntensities(densities[layer], MIN_DENSITY, intensities);
+            }
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        parallel(height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                renderRow(y, pixels);
+            }
+        });
+        return image;
+    }
+
+    /**
+     * Brings the density of a layer up to date with its pending events,
+     * either by splatting them or by blurring the counts again.
+     *
+     * @param layer The layer
+     */
+    private void updateDensity(int layer) {
+        int pending = pendingCounts[layer];
+        if (pending == 0 && !blurPending[layer]) {
+            return;
+        }
+        float[] density = densities[layer];
+
+        if (!blurPending[layer] && incrementalFrames[layer] < MAX_INCREMENTAL_FRAMES) {
+            for (int i = 0; i < pending; i++) {
+                int cell = pendingCells[layer][i];
+                if (cell >= 0) {
+                    splat(density, cell, 1.0f);
+                } else {
+                    splat(density, -cell - 1, -1.0f);
+                }
+            }
+            incrementalFrames[layer]++;
+        } else {
+            blur(counts[layer], density);
+            incrementalFrames[layer] = 0;
+            blurPending[layer] = false;
+        }
+        pendingCounts[layer] = 0;
+    }
+
+    /**
+     * Adds the kernel centered on a cell to the density.
+     *
+     * @param density The density grid
+     * @param cell    The center cell
+     * @param weight  1 to add an event, -1 to remove it
+     */
+    private void splat(float[] density, int cell, float weight) {
+        int cx = cell % gridWidth;
+        int cy = cell / gridWidth;
+        int x0 = Math.max(0, cx - radius);
+        int x1 = Math.min(gridWidth - 1, cx + radius);
+        int y0 = Math.max(0, cy - radius);
+        int y1 = Math.min(gridHeight - 1, cy + radius);
+
+        for (int y = y0; y <= y1; y++) {
+            float rowWeight = weight * kernel[y - cy + radius];
+            int offset = y * gridWidth;
+            for (int x = x0; x <= x1; x++) {
+                density[offset + x] += rowWeight * kernel[x - cx + radius];
+            }
+        }
+    }
+
+    /**
+     * Blurs the event counts into the density with the separable Gaussian kernel.
+     *
+     * @param counts  Events per cell
+     * @param density Receives the blurred counts
+     */
+    private void blur(int[] counts, float[] density) {
+        // Horizontal pass, split over rows
+        parallel(gridHeight, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int offset = y * gridWidth;
+                for (int x = 0; x < gridWidth; x++) {
+                    float sum = 0.0f;
+                    int k0 = Math.max(-radius, -x);
+                    int k1 = Math.min(radius, gridWidth - 1 - x);
+                    for (int k = k0; k <= k1; k++) {
+                        sum += counts[offset + x + k] * kernel[k + radius];
+                    }
+                    blurBuffer[offset + x] = sum;
+                }
+            }
+        });
+
+        // Vertical pass, split over columns
+        parallel(gridWidth, (from, to) -> {
+            for (int y = 0; y < gridHeight; y++) {
+                int k0 = Math.max(-radius, -y);
+                int k1 = Math.min(radius, gridHeight - 1 - y);
+                for (int x = from; x < to; x++) {
+                    float sum = 0.0f;
+                    for (int k = k0; k <= k1; k++) {
+                        sum += blurBuffer[(y + k) * gridWidth + x] * kernel[k + radius];
+                    }
+                    density[y * gridWidth + x] = sum;
+                }
+            }
+        });
+    }
+
+    /**
+     * Renders a row of pixels, interpolating the intensities of the cell centers bilinearly.
+     *
+     * @param y      The row
+     * @param pixels The ARGB pixels of the image
+     */
+    private void renderRow(int y, int[] pixels) {
+        float gy = Math.max(0.0f, Math.min(gridHeight - 1.0f, (y + 0.5f) / cellSize - 0.5f));
+        int row0 = (int) gy;
+        int row1 = Math.min(row0 + 1, gridHeight - 1);
+        float ty = gy - row0;
+
+        // Interpolate between the two rows of cells first, then along the row for each pixel
+        float[] row = new float[gridWidth + 1];
+        for (int x = 0; x < gridWidth; x++) {
+            row[x] = intensities[row0 * gridWidth + x] * (1 - ty) + intensities[row1 * gridWidth + x] * ty;
+        }
+        row[gridWidth] = row[gridWidth - 1];
+
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            int col = pixelColumns[x];
+            float intensity = row[col] + (row[col + 1] - row[col]) * pixelWeights[x];
+            pixels[offset + x] = colorTable[(int) (intensity * 255 + 0.5f)];
+        }
+    }
+
+    /**
+     * Runs an action over the range [0, size) on the fork/join pool, split into chunks.
+     *
+     * @param size   Size of the range
+     * @param action Action on a chunk [from, to)
+     */
+    private static void parallel(int size, RangeAction action) {
+        ForkJoinPool.commonPool().invoke(new RangeTask(0, size, action));
+    }
+
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Splits a range in halves until the chunks are small enough to run directly.
+     */
+    private static class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final RangeAction action;
+
+        RangeTask(int from, int to, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_GRAIN) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, action), new RangeTask(middle, to, action));
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package heatmap.generator;
 
 /**
- * Configuration constants for heatmap generation.
+ * Configuration for heatmap generation.
+ * The constants are the defaults; an instance holds the settings of one run, so that parameter sweeps
+ * can generate heatmaps with several configurations from one parsed session in the same JVM.
  */
 public class HeatmapConfiguration {
     // Time window for event aggregation (10 seconds in milliseconds)
-    public static final long TIME_WINDOW_MS = 10000;
+    public static final long DEFAULT_TIME_WINDOW_MS = 10000;
     
     // Intensity calculation method
     public enum ScalingMethod {
@@ -15,9 +17,35 @@ public class HeatmapConfiguration {
     
     public static final ScalingMethod DEFAULT_SCALING = ScalingMethod.LOGARITHMIC;
     
+    // Zone heat model
+    public enum IntensityModel {
+        WINDOW,  // heat = events in the time window
+        DECAY    // heat decays by exp(-dt / tau) between frames, each event adds its decayed weight
+    }
+    
+    public static final IntensityModel DEFAULT_INTENSITY_MODEL = IntensityModel.WINDOW;
+    
+    // Half-life of the decaying heat (3.5 seconds, i.e., a mean event age of 5 seconds like the time window)
+    public static final long DEFAULT_DECAY_HALF_LIFE_MS = 3500;
+    
+    // Decaying heat below which a zone counts as empty (a single event about 6.6 half-lives old)
+    public static final double MIN_DECAYED_HEAT = 0.01;
+    
+    // Rendering method
+    public enum RenderMode {
+        ZONES,   // one color block per zone
+        DENSITY  // Gaussian kernel density of the event positions
+    }
+    
+    public static final RenderMode DEFAULT_RENDER_MODE = RenderMode.ZONES;
+    
+    // Kernel density: size of a density cell and standard deviation of the Gaussian kernel, in pixels
+    public static final int DEFAULT_DENSITY_CELL_SIZE = 4;
+    public static final double DEFAULT_DENSITY_SIGMA = 32.0;
+    
     // Color gradient stops (intensity -> RGBA)
     // All colors have transparency (alpha < 255)
-    public static final double[][] COLOR_STOPS = {
+    public static final double[][] DEFAULT_COLOR_STOPS = {
         {0.0,  0,   255, 0,   51},   // 0%: Transparent green (20% alpha)
         {0.33, 128, 255, 0,   77},   // 33%: Yellow-green (30% alpha)
         {0.66, 255, 165, 0,   102},  // 66%: Orange (40% alpha)
@@ -29,7 +57,160 @@ public class HeatmapConfiguration {
     public static final String OUTPUT_DIR_NAME = "heatmaps";
     public static final String FILE_NAME_PATTERN = "frame_%05d.png";
     
-    private HeatmapConfiguration() {
-        // Utility class
+    private long timeWindowMs = DEFAULT_TIME_WINDOW_MS;
+    private ScalingMethod scalingMethod = DEFAULT_SCALING;
+    private IntensityModel intensityModel = DEFAULT_INTENSITY_MODEL;
+    private long decayHalfLifeMs = DEFAULT_DECAY_HALF_LIFE_MS;
+    private RenderMode renderMode = DEFAULT_RENDER_MODE;
+    private int densityCellSize = DEFAULT_DENSITY_CELL_SIZE;
+    private double densitySigma = DEFAULT_DENSITY_SIGMA;
+    private double[][] colorStops = DEFAULT_COLOR_STOPS;
+    private String outputDirName = OUTPUT_DIR_NAME;  // Subfolder of the session for the images
+    
+    /**
+     * Creates a configuration with the default settings.
+     */
+    public HeatmapConfiguration() {
+    }
+    
+    /**
+     * Creates a copy of a configuration, e.g., to vary one setting in a parameter sweep.
+     *
+     * @param other The configuration to copy
+     */
+    public HeatmapConfiguration(HeatmapConfiguration other) {
+        this.timeWindowMs = other.timeWindowMs;
+        this.scalingMethod = other.scalingMethod;
+        this.intensityModel = other.intensityModel;
+        this.decayHalfLifeMs = other.decayHalfLifeMs;
+        this.renderMode = other.renderMode;
+        this.densityCellSize = other.densityCellSize;
+        this.densitySigma = other.densitySigma;
+        this.colorStops = other.colorStops;
+        this.outputDirName = other.outputDirName;
+    }
+    
+    /**
+     * Parses color gradient stops, e.g., "0:0,255,0,51;1:255,0,0,128".
+     * Each stop is an intensity from 0.0 to 1.0 and an RGBA color, in increasing intensity order.
+     *
+     * @param value The color stops
+     * @return Color stops in the format of {@link #DEFAULT_COLOR_STOPS}
+     * @throws IllegalArgumentException If the format is invalid
+     */
+    public static double[][] parseColorStops(String value) {
+        String[] stops = value.split(";");
+        if (stops.length < 2) {
+            throw new IllegalArgumentException("At least 2 color stops are required: " + value);
+        }
+        
+        double[][] colorStops = new double[stops.length][];
+        for (int i = 0; i < stops.length; i++) {
+            String[] parts = stops[i].trim().split(":");
+            String[] rgba = parts.length == 2 ? parts[1].split(",") : new String[0];
+            if (rgba.length != 4) {
+                throw new IllegalArgumentException("Invalid color stop: " + stops[i]);
+            }
+            
+            double[] stop = new double[5];
+            try {
+                stop[0] = Double.parseDouble(parts[0].trim());
+                for (int c = 0; c < 4; c++) {
+                    stop[c + 1] = Integer.parseInt(rgba[c].trim());
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid color stop: " + stops[i], e);
+            }
+            for (int c = 1; c < 5; c++) {
+                if (stop[c] < 0 || stop[c] > 255) {
+                    throw new IllegalArgumentException("Invalid color stop: " + stops[i]);
+                }
+            }
+            if (stop[0] < 0.0 || stop[0] > 1.0 || (i > 0 && stop[0] <= colorStops[i - 1][0])) {
+                throw new IllegalArgumentException("Invalid color stop intensity: " + stops[i]);
+            }
+            colorStops[i] = stop;
+        }
+        return colorStops;
+    }
+    
+    // Getters
+    public long getTimeWindowMs() {
+        return timeWindowMs;
+    }
+    
+    public ScalingMethod getScalingMethod() {
+        return scalingMethod;
+    }
+    
+    public IntensityModel getIntensityModel() {
+        return intensityModel;
+    }
+    
+    public long getDecayHalfLifeMs() {
+        return decayHalfLifeMs;
+    }
+    
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+    
+    public int getDensityCellSize() {
+        return densityCellSize;
+    }
+    
+    public double getDensitySigma() {
+        return densitySigma;
+    }
+    
+    public double[][] getColorStops() {
+        return colorStops;
+    }
+    
+    public String getOutputDirName() {
+        return outputDirName;
+    }
+    
+    // Setters
+    public void setTimeWindowMs(long timeWindowMs) {
+        this.timeWindowMs = timeWindowMs;
+    }
+    
+    public void setScalingMethod(ScalingMethod scalingMethod) {
+        this.scalingMethod = scalingMethod;
+    }
+    
+    public void setIntensityModel(IntensityModel intensityModel) {
+        this.intensityModel = intensityModel;
+    }
+    
+    public void setDecayHalfLifeMs(long decayHalfLifeMs) {
+        this.decayHalfLifeMs = decayHalfLifeMs;
+    }
+    
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+    
+    public void setDensityCellSize(int densityCellSize) {
+        this.densityCellSize = densityCellSize;
+    }
+    
+    public void setDensitySigma(double densitySigma) {
+        this.densitySigma = densitySigma;
+    }
+    
+    public void setColorStops(double[][] colorStops) {
+        this.colorStops = colorStops;
+    }
+    
+    public void setOutputDirName(String outputDirName) {
+        this.outputDirName = outputDirName;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("HeatmapConfiguration{window=%.1fs, scaling=%s, model=%s, halfLife=%.1fs, render=%s, output=%s}",
+                timeWindowMs / 1000.0, scalingMethod, intensityModel, decayHalfLifeMs / 1000.0, renderMode, outputDirName);
     }
-}
\ No newline at end of file
+}
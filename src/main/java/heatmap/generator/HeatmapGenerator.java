@@ -1,49 +1,89 @@
 package heatmap.generator;
 
 import heatmap.model.HeatmapSession;
-import heatmap.model.MouseEvent;
+import heatmap.model.ScreenEvent;
+import heatmap.model.SessionMetadata;
 import heatmap.model.VideoFrame;
-import heatmap.sync.ZoneMapper;
 
 import javax.imageio.ImageIO;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Generates heatmap overlay images for all frames in a session.
- * Uses a rolling time window to aggregate mouse events.
+ * Uses a rolling time window to aggregate screen events (mouse events, gaze samples, or both).
+ * The window slides over the events in time order and keeps the event counts per zone up to date,
+ * so each event is added and removed once, which keeps dense gaze data fast.
+ * When both sources are present, each source is normalized on its own and a zone takes the higher
+ * of the two intensities, so the far more numerous gaze samples do not hide the mouse activity.
+ * Heatmaps are rendered as colored zones, or as a smooth kernel density of the event positions
+ * (see {@link DensityHeatmapRenderer}).
+ * Instead of the time window, zone heat can also decay exponentially, updated with the new events of each frame.
  */
 public class HeatmapGenerator {
     private final HeatmapSession session;
+    private final HeatmapConfiguration configuration;
     private final ZoneHeatCalculator calculator;
     private final HeatmapRenderer renderer;
+    private final DensityHeatmapRenderer densityRenderer;  // Null when rendering zones
     private final File outputDir;
     
     /**
-     * Creates a heatmap generator for the specified session.
+     * Creates a heatmap generator for the specified session with the default configuration.
      *
      * @param session    The heatmap session with synchronized data
      * @param outputPath Base output directory path
      * @throws IOException If output directory cannot be created
      */
     public HeatmapGenerator(HeatmapSession session, String outputPath) throws IOException {
+        this(session, outputPath, new HeatmapConfiguration());
+    }
+    
+    /**
+     * Creates a heatmap generator for the specified session.
+     * The session is only read, so one parsed session can be used by several generators, e.g., in a parameter sweep.
+     *
+     * @param session       The heatmap session with synchronized data
+     * @param outputPath    Base output directory path
+     * @param configuration Time window, intensity model, scaling, colors, and render mode
+     *                      (the kernel density always uses the time window)
+     * @throws IOException If output directory cannot be created
+     */
+    public HeatmapGenerator(HeatmapSession session, String outputPath,
+                            HeatmapConfiguration configuration) throws IOException {
         this.session = session;
-        this.calculator = new ZoneHeatCalculator(HeatmapConfiguration.DEFAULT_SCALING);
+        this.configuration = configuration;
+        this.calculator = new ZoneHeatCalculator(configuration);
         
-        Dimension screenSize = session.getMetadata().getScreenSize();
+        Dimension captureSize = session.getMetadata().getCaptureSize();
         this.renderer = new HeatmapRenderer(
-            screenSize.width,
-            screenSize.height,
-            session.getZoneMapper()
+            captureSize.width,
+            captureSize.height,
+            session.getZoneMapper(),
+            configuration.getColorStops()
         );
+        this.densityRenderer = configuration.getRenderMode() != HeatmapConfiguration.RenderMode.DENSITY ? null :
+            new DensityHeatmapRenderer(
+                captureSize.width,
+                captureSize.height,
+                ScreenEvent.Source.values().length,
+                configuration.getDensityCellSize(),
+                configuration.getDensitySigma(),
+                configuration.getColorStops(),
+                calculator
+            );
         
         // Create output directory
-        this.outputDir = new File(outputPath, HeatmapConfiguration.OUTPUT_DIR_NAME);
+        this.outputDir = new File(outputPath, configuration.getOutputDirName());
         if (!outputDir.exists() && !outputDir.mkdirs()) {
             throw new IOException("Failed to create output directory: " + outputDir.getAbsolutePath());
         }
@@ -58,17 +98,89 @@ public class HeatmapGenerator {
     public int generateAll() throws IOException {
         List<VideoFrame> frames = session.getFrames();
         int totalFrames = frames.size();
+        List<ScreenEvent> events = collectZoneMappedEvents(frames);
+        int[][] positions = densityRenderer != null ? getCapturePositions(frames, events) : null;
         
         System.out.println("Generating heatmaps for " + totalFrames + " frames...");
         System.out.println("Output directory: " + outputDir.getAbsolutePath());
-        System.out.println("Time window: " + (HeatmapConfiguration.TIME_WINDOW_MS / 1000) + " seconds");
+        boolean decaying = configuration.getIntensityModel() == HeatmapConfiguration.IntensityModel.DECAY && densityRenderer == null;
+        if (decaying) {
+            System.out.println("Decay half-life: " + (calculator.getHalfLifeMs() / 1000.0) + " seconds");
+        } else {
+            System.out.println("Time window: " + (configuration.getTimeWindowMs() / 1000.0) + " seconds");
+        }
+        System.out.println("Rendering: " + (densityRenderer != null ? "kernel density" : "zones"));
         System.out.println();
         
         int processed = 0;
         long startTime = System.currentTimeMillis();
         
+        // Sliding window [windowStart, windowEnd) over the events, with the counts per source and zone
+        int zoneCount = session.getZoneMapper().getZoneCount();
+        int[][] zoneCounts = new int[ScreenEvent.Source.values().length][zoneCount];
+        int[] sourceCounts = new int[ScreenEvent.Source.values().length];
+        double[] intensities = new double[zoneCount];
+        int windowStart = 0;
+        int windowEnd = 0;
+        
+        // Decaying heat per source and zone, and per source, instead of the window counts
+        double[][] zoneHeat = decaying ? new double[ScreenEvent.Source.values().length][zoneCount] : null;
+        double[] sourceHeat = new double[ScreenEvent.Source.values().length];
+        long previousFrameTime = frames.isEmpty() ? 0 : frames.get(0).getTimestamp();
+        
         for (VideoFrame frame : frames) {
-            generateFrameHeatmap(frame);
+            // Window: [frame.timestamp - time window, frame.timestamp]
+            long frameTime = frame.getTimestamp();
+            long windowStartTime = frameTime - configuration.getTimeWindowMs();
+            
+            if (decaying) {
+                for (ScreenEvent.Source source : ScreenEvent.Source.values()) {
+                    if (sourceHeat[source.ordinal()] > 0) {
+                        calculator.decay(zoneHeat[source.ordinal()], frameTime - previousFrameTime);
+                        sourceHeat[source.ordinal()] *= calculator.getDecayFactor(frameTime - previousFrameTime);
+                    }
+                }
+                previousFrameTime = frameTime;
+            }
+            
+            while (windowEnd < events.size() && events.get(windowEnd).getTimestamp() <= frameTime) {
+                ScreenEvent event = events.get(windowEnd);
+                zoneCounts[event.getSource().ordinal()][event.getZone().getZoneId()]++;
+                sourceCounts[event.getSource().ordinal()]++;
+                if (decaying) {
+                    double weight = calculator.getDecayFactor(frameTime - event.getTimestamp());
+                    zoneHeat[event.getSource().ordinal()][event.getZone().getZoneId()] += weight;
+                    sourceHeat[event.getSource().ordinal()] += weight;
+                }
+                if (densityRenderer != null) {
+                    densityRenderer.addPoint(event.getSource().ordinal(), positions[0][windowEnd], positions[1][windowEnd]);
+                }
+                windowEnd++;
+            }
+            while (!decaying && windowStart < windowEnd && events.get(windowStart).getTimestamp() < windowStartTime) {
+                ScreenEvent event = events.get(windowStart);
+                zoneCounts[event.getSource().ordinal()][event.getZone().getZoneId()]--;
+                sourceCounts[event.getSource().ordinal()]--;
+                if (densityRenderer != null) {
+                    densityRenderer.removePoint(event.getSource().ordinal(), positions[0][windowStart], positions[1][windowStart]);
+                }
+                windowStart++;
+            }
+            
+            // Calculate zone intensities, each source normalized on its own
+            if (densityRenderer == null) {
+                Arrays.fill(intensities, 0.0);
+                for (ScreenEvent.Source source : ScreenEvent.Source.values()) {
+                    if (decaying && sourceHeat[source.ordinal()] >= HeatmapConfiguration.MIN_DECAYED_HEAT) {
+                        calculator.calculateZoneIntensities(zoneHeat[source.ordinal()],
+                                HeatmapConfiguration.MIN_DECAYED_HEAT, intensities);
+                    } else if (!decaying && sourceCounts[source.ordinal()] > 0) {
+                        calculator.calculateZoneIntensities(zoneCounts[source.ordinal()], intensities);
+                    }
+                }
+            }
+            
+            generateFrameHeatmap(frame, intensities);
             processed++;
             
             // Progress indicator
@@ -93,18 +205,13 @@ public class HeatmapGenerator {
     /**
      * Generates a heatmap for a single frame.
      *
-     * @param frame The video frame to process
+     * @param frame       The video frame to process
+     * @param intensities Zone intensities of the frame, indexed by zone ID
      * @throws IOException If image writing fails
      */
-    private void generateFrameHeatmap(VideoFrame frame) throws IOException {
-        // Collect events within time window
-        List<MouseEvent> eventsInWindow = collectEventsInWindow(frame);
-        
-        // Calculate zone intensities
-        Map<Integer, Double> intensities = calculator.calculateZoneIntensities(eventsInWindow);
-        
-        // Render heatmap image
-        BufferedImage heatmap = renderer.render(intensities);
+    private void generateFrameHeatmap(VideoFrame frame, double[] intensities) throws IOException {
+        // Render the kernel density, each source normalized on its own, or the zones
+        BufferedImage heatmap = densityRenderer != null ? densityRenderer.render() : renderer.render(intensities);
         
         // Save to file
         String fileName = String.format(HeatmapConfiguration.FILE_NAME_PATTERN, frame.getFrameNumber());
@@ -113,37 +220,61 @@ public class HeatmapGenerator {
     }
     
     /**
-     * Collects all mouse events within the time window for a frame.
-     * Window: [frame.timestamp - TIME_WINDOW_MS, frame.timestamp]
+     * Collects the events of all frames that have a zone, sorted by timestamp.
+     * The frames hold their events in time order, so the sort only fixes events recorded slightly out of order.
      *
-     * @param targetFrame The frame to collect events for
-     * @return List of mouse events within the time window
+     * @param frames The video frames in time order
+     * @return List of zone-mapped events sorted by timestamp
      */
-    private List<MouseEvent> collectEventsInWindow(VideoFrame targetFrame) {
-        long frameTime = targetFrame.getTimestamp();
-        long windowStart = frameTime - HeatmapConfiguration.TIME_WINDOW_MS;
-        
-        List<MouseEvent> eventsInWindow = new ArrayList<>();
-        List<VideoFrame> allFrames = session.getFrames();
-        
-        // Scan backward through frames to collect events in window
-        for (int i = allFrames.indexOf(targetFrame); i >= 0; i--) {
-            VideoFrame frame = allFrames.get(i);
-            
-            // Stop if we've gone past the window
-            if (frame.getTimestamp() < windowStart) {
-                break;
+    private List<ScreenEvent> collectZoneMappedEvents(List<VideoFrame> frames) {
+        List<ScreenEvent> events = new ArrayList<>();
+        for (VideoFrame frame : frames) {
+            for (ScreenEvent event : frame.getEvents()) {
+                if (event.hasZone()) {
+                    events.add(event);
+                }
             }
-            
-            // Collect events from this frame that are in the window
-            for (MouseEvent event : frame.getMouseEvents()) {
-                if (event.getTimestamp() >= windowStart && event.getTimestamp() <= frameTime) {
-                    eventsInWindow.add(event);
+        }
+        events.sort(Comparator.comparingLong(ScreenEvent::getTimestamp));
+        return events;
+    }
+    
+    /**
+     * Gets the positions of events in capture coordinates, i.e., translated and scaled into the captured
+     * region of their clip for IDE window capture, like the zones assigned by the synchronizer. The clip of an
+     * event is the clip of its frame, since the frame numbers restart in each clip.
+     *
+     * @param frames The video frames of the events
+     * @param events The events
+     * @return X coordinates at index 0 and Y coordinates at index 1, in the order of the events
+     */
+    private int[][] getCapturePositions(List<VideoFrame> frames, List<ScreenEvent> events) {
+        SessionMetadata metadata = session.getMetadata();
+        Dimension captureSize = metadata.getCaptureSize();
+        Map<ScreenEvent, Rectangle> regions = new IdentityHashMap<>();
+        if (metadata.hasCaptureRegions()) {
+            for (VideoFrame frame : frames) {
+                Rectangle region = metadata.getCaptureRegion(frame.getClipNumber());
+                for (ScreenEvent event : frame.getEvents()) {
+                    regions.put(event, region);
                 }
             }
         }
         
-        return eventsInWindow;
+        int[][] positions = new int[2][events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            ScreenEvent event = events.get(i);
+            int x = event.getScreenX();
+            int y = event.getScreenY();
+            if (metadata.hasCaptureRegions()) {
+                Rectangle region = regions.get(event);
+                x = (int) ((long) (x - region.x) * captureSize.width / region.width);
+                y = (int) ((long) (y - region.y) * captureSize.height / region.height);
+            }
+            positions[0][i] = x;
+            positions[1][i] = y;
+        }
+        return positions;
     }
     
     /**
@@ -152,9 +283,9 @@ public class HeatmapGenerator {
      * @return Summary string with generation statistics
      */
     public String getStatistics() {
-        return String.format("Output directory: %s\nFrames: %d\nWindow: %d seconds",
+        return String.format("Output directory: %s\nFrames: %d\nWindow: %.1f seconds",
             outputDir.getAbsolutePath(),
             session.getFrameCount(),
-            HeatmapConfiguration.TIME_WINDOW_MS / 1000);
+            configuration.getTimeWindowMs() / 1000.0);
     }
 }
\ No newline at end of file
@@ -14,18 +14,32 @@ public class HeatmapRenderer {
     private final int width;
     private final int height;
     private final ZoneMapper zoneMapper;
+    private final double[][] colorStops;
     
     /**
-     * Creates a heatmap renderer with the specified dimensions.
+     * Creates a heatmap renderer with the specified dimensions and the default colors.
      *
      * @param width      Image width (screen width)
      * @param height     Image height (screen height)
      * @param zoneMapper Zone mapper for coordinate mapping
      */
     public HeatmapRenderer(int width, int height, ZoneMapper zoneMapper) {
+        this(width, height, zoneMapper, HeatmapConfiguration.DEFAULT_COLOR_STOPS);
+    }
+    
+    /**
+     * Creates a heatmap renderer with the specified dimensions and colors.
+     *
+     * @param width      Image width (screen width)
+     * @param height     Image height (screen height)
+     * @param zoneMapper Zone mapper for coordinate mapping
+     * @param colorStops Color gradient stops (intensity -> RGBA)
+     */
+    public HeatmapRenderer(int width, int height, ZoneMapper zoneMapper, double[][] colorStops) {
         this.width = width;
         this.height = height;
         this.zoneMapper = zoneMapper;
+        this.colorStops = colorStops;
     }
     
     /**
@@ -36,6 +50,19 @@ public class HeatmapRenderer {
      * @return BufferedImage with ARGB color model
      */
     public BufferedImage render(Map<Integer, Double> zoneIntensities) {
+        double[] intensities = new double[zoneMapper.getZoneCount()];
+        zoneIntensities.forEach((zoneId, intensity) -> intensities[zoneId] = intensity);
+        return render(intensities);
+    }
+    
+    /**
+     * Renders a heatmap image from zone intensities.
+     * All zones are rendered with color, even those with 0 intensity.
+     *
+     * @param zoneIntensities Intensity of each zone (0.0 to 1.0), indexed by zone ID
+     * @return BufferedImage with ARGB color model
+     */
+    public BufferedImage render(double[] zoneIntensities) {
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2d = image.createGraphics();
         
@@ -48,16 +75,14 @@ public class HeatmapRenderer {
         g2d.setComposite(AlphaComposite.SrcOver);
         
         // Render ALL zones with color (even 0 intensity zones)
-        for (HeatmapZone zone : zoneMapper.getAllZones()) {
-            int zoneId = zone.getZoneId();
-            double intensity = zoneIntensities.getOrDefault(zoneId, 0.0);
+        for (HeatmapZone zone : zoneMapper.getZones()) {
+            double intensity = zoneIntensities[zone.getZoneId()];
             
             // Always render color, even for 0 intensity
-            Color color = getColorForIntensity(intensity);
+            Color color = getColorForIntensity(intensity, colorStops);
             g2d.setColor(color);
             
-            Rectangle bounds = zone.getBounds();
-            g2d.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            g2d.fillRect(zone.getX(), zone.getY(), zone.getWidth(), zone.getHeight());
         }
         
         g2d.dispose();
@@ -69,15 +94,16 @@ public class HeatmapRenderer {
      * Color scheme: Green (low) → Yellow → Orange → Red (high)
      * All colors have transparency.
      *
-     * @param intensity Normalized intensity (0.0 to 1.0)
+     * @param intensity  Normalized intensity (0.0 to 1.0)
+     * @param colorStops Color gradient stops (intensity -> RGBA)
      * @return Color with alpha channel
      */
-    private Color getColorForIntensity(double intensity) {
+    static Color getColorForIntensity(double intensity, double[][] colorStops) {
         // Clamp intensity to valid range
         intensity = Math.max(0.0, Math.min(1.0, intensity));
         
         // Find surrounding color stops
-        double[][] stops = HeatmapConfiguration.COLOR_STOPS;
+        double[][] stops = colorStops;
         
         for (int i = 0; i < stops.length - 1; i++) {
             double lower = stops[i][0];
@@ -109,7 +135,7 @@ public class HeatmapRenderer {
      * @param t Interpolation factor (0.0 to 1.0)
      * @return Interpolated value
      */
-    private double lerp(double a, double b, double t) {
+    private static double lerp(double a, double b, double t) {
         return a + (b - a) * t;
     }
 }
\ No newline at end of file
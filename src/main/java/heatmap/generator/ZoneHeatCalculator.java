@@ -1,90 +1,211 @@
 package heatmap.generator;
 
-import heatmap.model.HeatmapZone;
-import heatmap.model.MouseEvent;
-import heatmap.model.VideoFrame;
+import heatmap.model.ScreenEvent;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Calculates heat intensity for zones based on mouse event counts.
+ * Calculates heat intensity for zones based on screen event counts,
+ * either counted in a time window or accumulated with an exponential decay.
  */
 public class ZoneHeatCalculator {
     private final HeatmapConfiguration.ScalingMethod scalingMethod;
+    private final double decayTimeConstantMs;  // tau = half-life / ln(2)
     
     /**
-     * Creates a heat calculator with the specified scaling method.
+     * Creates a heat calculator with the scaling method and decay half-life of the configuration.
+     *
+     * @param configuration The heatmap configuration
+     */
+    public ZoneHeatCalculator(HeatmapConfiguration configuration) {
+        this(configuration.getScalingMethod(), configuration.getDecayHalfLifeMs());
+    }
+    
+    /**
+     * Creates a heat calculator with the specified scaling method and the default decay half-life.
      *
      * @param scalingMethod The intensity scaling method
      */
     public ZoneHeatCalculator(HeatmapConfiguration.ScalingMethod scalingMethod) {
+        this(scalingMethod, HeatmapConfiguration.DEFAULT_DECAY_HALF_LIFE_MS);
+    }
+    
+    /**
+     * Creates a heat calculator with the specified scaling method and decay half-life.
+     *
+     * @param scalingMethod The intensity scaling method
+     * @param halfLifeMs    Time in which the decaying heat of an event halves
+     */
+    public ZoneHeatCalculator(HeatmapConfiguration.ScalingMethod scalingMethod, long halfLifeMs) {
         this.scalingMethod = scalingMethod;
+        this.decayTimeConstantMs = halfLifeMs / Math.log(2);
     }
     
     /**
-     * Calculates normalized heat intensities for all zones based on mouse events
+     * Calculates normalized heat intensities for all zones based on screen events
      * within the time window.
      *
-     * @param eventsInWindow All mouse events within the time window
+     * @param eventsInWindow All screen events within the time window
      * @return Map of zone ID to normalized intensity (0.0 to 1.0)
      */
-    public Map<Integer, Double> calculateZoneIntensities(List<MouseEvent> eventsInWindow) {
+    public Map<Integer, Double> calculateZoneIntensities(List<? extends ScreenEvent> eventsInWindow) {
         // Count events per zone
         Map<Integer, Integer> zoneCounts = new HashMap<>();
         
-        for (MouseEvent event : eventsInWindow) {
+        for (ScreenEvent event : eventsInWindow) {
             if (event.hasZone()) {
-                int zoneId = event.getZone().getZoneId();
-                zoneCounts.put(zoneId, zoneCounts.getOrDefault(zoneId, 0) + 1);
+                zoneCounts.merge(event.getZone().getZoneId(), 1, Integer::sum);
             }
         }
         
-        if (zoneCounts.isEmpty()) {
-            return new HashMap<>();
-        }
-        
         // Find maximum count for normalization
-        int maxCount = zoneCounts.values().stream()
-                .max(Integer::compareTo)
-                .orElse(1);
+        int maxCount = zoneCounts.values().stream().max(Integer::compareTo).orElse(0);
         
         // Calculate normalized intensities
         Map<Integer, Double> intensities = new HashMap<>();
+        zoneCounts.forEach((zoneId, count) -> intensities.put(zoneId, calculateIntensity(count, maxCount)));
         
-        for (Map.Entry<Integer, Integer> entry : zoneCounts.entrySet()) {
-            int zoneId = entry.getKey();
-            int count = entry.getValue();
-            double intensity = calculateIntensity(count, maxCount);
-            intensities.put(zoneId, intensity);
+        return intensities;
+    }
+    
+    /**
+     * Calculates normalized heat intensities from event counts per zone,
+     * e.g., the counts maintained incrementally by a sliding time window.
+     * Arrays avoid boxing every zone of fine grids, which have tens of thousands of zones.
+     *
+     * @param zoneCounts  Event count of each zone, indexed by zone ID
+     * @param intensities Receives the normalized intensity (0.0 to 1.0) of each zone, indexed by zone ID;
+     *                    each zone keeps the higher of its current and its calculated intensity,
+     *                    so several sources can be merged into one array
+     */
+    public void calculateZoneIntensities(int[] zoneCounts, double[] intensities) {
+        // Find maximum count for normalization
+        int maxCount = 0;
+        for (int count : zoneCounts) {
+            maxCount = Math.max(maxCount, count);
+        }
+        if (maxCount == 0) {
+            return;
         }
         
-        return intensities;
+        // Calculate normalized intensities
+        for (int zoneId = 0; zoneId < zoneCounts.length; zoneId++) {
+            if (zoneCounts[zoneId] > 0) {
+                intensities[zoneId] = Math.max(intensities[zoneId], calculateIntensity(zoneCounts[zoneId], maxCount));
+            }
+        }
+    }
+    
+    public long getHalfLifeMs() {
+        return Math.round(decayTimeConstantMs * Math.log(2));
+    }
+    
+    /**
+     * Gets the weight of an event after the given time, exp(-elapsed / tau).
+     *
+     * @param elapsedMs Time since the event
+     * @return Decay factor (0.0 to 1.0)
+     */
+    public double getDecayFactor(long elapsedMs) {
+        return Math.exp(-Math.max(0, elapsedMs) / decayTimeConstantMs);
+    }
+    
+    /**
+     * Decays the heat of all zones, e.g., by the time between two frames.
+     * Together with adding the decayed weight of each new event, this updates the heat
+     * in O(zones + new events) per frame without scanning a time window.
+     *
+     * @param zoneHeat  Heat of each zone, indexed by zone ID, updated in place
+     * @param elapsedMs Time since the last update
+     */
+    public void decay(double[] zoneHeat, long elapsedMs) {
+        double factor = getDecayFactor(elapsedMs);
+        for (int zoneId = 0; zoneId < zoneHeat.length; zoneId++) {
+            zoneHeat[zoneId] *= factor;
+        }
+    }
+    
+    /**
+     * Calculates normalized heat intensities from the decaying heat per zone.
+     * Zones whose heat has decayed below {@code minHeat} are treated as empty, so old activity fades out
+     * instead of being normalized back to full intensity.
+     *
+     * @param zoneHeat    Heat of each zone, indexed by zone ID
+     * @param minHeat     Smallest heat with an intensity
+     * @param intensities Receives the normalized intensity (0.0 to 1.0) of each zone, indexed by zone ID;
+     *                    each zone keeps the higher of its current and its calculated intensity
+     */
+    public void calculateZoneIntensities(double[] zoneHeat, double minHeat, double[] intensities) {
+        // Find maximum heat for normalization
+        double maxHeat = 0.0;
+        for (double heat : zoneHeat) {
+            maxHeat = Math.max(maxHeat, heat);
+        }
+        if (maxHeat < minHeat) {
+            return;
+        }
+        
+        // Calculate normalized intensities
+        for (int zoneId = 0; zoneId < zoneHeat.length; zoneId++) {
+            if (zoneHeat[zoneId] >= minHeat) {
+                intensities[zoneId] = Math.max(intensities[zoneId], calculateIntensity(zoneHeat[zoneId], maxHeat));
+            }
+        }
+    }
+    
+    /**
+     * Calculates normalized heat intensities from the blurred event counts of the density renderer.
+     * Densities below {@code minDensity}, i.e., kernel tails and rounding errors, are treated as 0.
+     *
+     * @param densities   Density of each cell
+     * @param minDensity  Smallest density with an intensity
+     * @param intensities Receives the normalized intensity (0.0 to 1.0) of each cell;
+     *                    each cell keeps the higher of its current and its calculated intensity
+     */
+    void calculateDensityIntensities(float[] densities, float minDensity, float[] intensities) {
+        float maxDensity = 0.0f;
+        for (float density : densities) {
+            maxDensity = Math.max(maxDensity, density);
+        }
+        if (maxDensity < minDensity) {
+            return;
+        }
+        
+        // Same scaling as calculateIntensity, with the denominator calculated once
+        boolean logarithmic = scalingMethod == HeatmapConfiguration.ScalingMethod.LOGARITHMIC;
+        double scale = 1.0 / (logarithmic ? Math.log1p(maxDensity) : maxDensity);
+        for (int cell = 0; cell < densities.length; cell++) {
+            if (densities[cell] >= minDensity) {
+                float intensity = (float) ((logarithmic ? Math.log1p(densities[cell]) : densities[cell]) * scale);
+                intensities[cell] = Math.max(intensities[cell], intensity);
+            }
+        }
     }
     
     /**
      * Calculates normalized intensity for a given count.
      *
-     * @param count    The event count
-     * @param maxCount The maximum count across all zones
+     * @param count    The event count, or the decaying heat
+     * @param maxCount The maximum count or heat across all zones
      * @return Normalized intensity (0.0 to 1.0)
      */
-    private double calculateIntensity(int count, int maxCount) {
+    private double calculateIntensity(double count, double maxCount) {
         if (maxCount == 0) {
             return 0.0;
         }
         
         switch (scalingMethod) {
             case LINEAR:
-                return (double) count / maxCount;
+                return count / maxCount;
                 
             case LOGARITHMIC:
                 // Logarithmic scaling for better distribution
                 return Math.log1p(count) / Math.log1p(maxCount);
                 
             default:
-                return (double) count / maxCount;
+                return count / maxCount;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package heatmap.model;
+
+/**
+ * Represents a single valid gaze sample captured by the eye tracker during a CodeGRITS session.
+ * The gaze point is the average of both eyes, converted from normalized coordinates to screen coordinates.
+ */
+public class GazeEvent extends ScreenEvent {
+
+    /**
+     * Constructs a GazeEvent with the specified parameters.
+     *
+     * @param timestamp The timestamp in Unix milliseconds
+     * @param screenX   The X coordinate on screen
+     * @param screenY   The Y coordinate on screen
+     */
+    public GazeEvent(long timestamp, int screenX, int screenY) {
+        super(timestamp, screenX, screenY);
+    }
+
+    @Override
+    public Source getSource() {
+        return Source.GAZE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GazeEvent{timestamp=%d, pos=(%d,%d), frame=%d, zone=%s}",
+                getTimestamp(), getScreenX(), getScreenY(), getFrameNumber(),
+                hasZone() ? getZone().getZoneId() : "null");
+    }
+}
@@ -9,7 +9,7 @@ import java.util.Map;
 
 /**
  * Main data container for a heatmap generation session.
- * Contains all parsed and synchronized data including metadata, frames, and mouse events.
+ * Contains all parsed and synchronized data including metadata, frames, and screen events.
  */
 public class HeatmapSession {
     private final SessionMetadata metadata;
@@ -61,13 +61,24 @@ public class HeatmapSession {
     }
 
     /**
-     * Gets the number of frames that have at least one mouse event.
+     * Gets the total number of screen events (mouse events and gaze samples) across all frames.
+     *
+     * @return Total event count
+     */
+    public int getTotalEvents() {
+        return frames.stream()
+                .mapToInt(VideoFrame::getEventCount)
+                .sum();
+    }
+
+    /**
+     * Gets the number of frames that have at least one screen event.
      *
      * @return Count of active frames
      */
     public int getActiveFrameCount() {
         return (int) frames.stream()
-                .filter(f -> f.getMouseEventCount() > 0)
+                .filter(f -> f.getEventCount() > 0)
                 .count();
     }
 
@@ -104,7 +115,7 @@ public class HeatmapSession {
 
     @Override
     public String toString() {
-        return String.format("HeatmapSession{frames=%d, activeFrames=%d, totalMouseEvents=%d, %s}",
-                getFrameCount(), getActiveFrameCount(), getTotalMouseEvents(), metadata);
+        return String.format("HeatmapSession{frames=%d, activeFrames=%d, totalMouseEvents=%d, totalEvents=%d, %s}",
+                getFrameCount(), getActiveFrameCount(), getTotalMouseEvents(), getTotalEvents(), metadata);
     }
 }
\ No newline at end of file
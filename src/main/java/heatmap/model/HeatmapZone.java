@@ -7,23 +7,23 @@ import java.awt.Rectangle;
  * Zones are immutable and identified by both a unique ID and grid coordinates.
  */
 public class HeatmapZone {
-    private final int zoneId;        // Unique identifier (0-224)
-    private final int gridX;         // Column position (0-14)
-    private final int gridY;         // Row position (0-14)
+    private final int zoneId;        // Unique identifier (0 to zone count - 1)
+    private final int gridX;         // Column position (top-left cell for a quadtree zone)
+    private final int gridY;         // Row position (top-left cell for a quadtree zone)
     private final Rectangle bounds;  // Screen coordinates of this zone
 
     /**
-     * Creates a heatmap zone with grid coordinates and bounds.
-     * The zone ID is automatically calculated as: gridY * 15 + gridX
+     * Creates a heatmap zone with an ID, grid coordinates and bounds.
      *
-     * @param gridX  The column position in the grid (0-14)
-     * @param gridY  The row position in the grid (0-14)
+     * @param zoneId The zone ID assigned by the zone mapper, e.g., gridY * columns + gridX for a uniform grid
+     * @param gridX  The column position in the grid
+     * @param gridY  The row position in the grid
      * @param bounds The screen coordinate boundaries of this zone
      */
-    public HeatmapZone(int gridX, int gridY, Rectangle bounds) {
+    public HeatmapZone(int zoneId, int gridX, int gridY, Rectangle bounds) {
+        this.zoneId = zoneId;
         this.gridX = gridX;
         this.gridY = gridY;
-        this.zoneId = gridY * 15 + gridX;
         this.bounds = new Rectangle(bounds); // Defensive copy
     }
 
@@ -44,6 +44,23 @@ public class HeatmapZone {
         return new Rectangle(bounds); // Defensive copy
     }
 
+    // Bounds without a copy, for rendering many zones per frame
+    public int getX() {
+        return bounds.x;
+    }
+
+    public int getY() {
+        return bounds.y;
+    }
+
+    public int getWidth() {
+        return bounds.width;
+    }
+
+    public int getHeight() {
+        return bounds.height;
+    }
+
     @Override
     public String toString() {
         return String.format("Zone{id=%d, grid=(%d,%d), bounds=[%d,%d,%d,%d]}",
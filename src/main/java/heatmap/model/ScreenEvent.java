@@ -0,0 +1,92 @@
+package heatmap.model;
+
+/**
+ * Base class for events located on the screen, such as mouse events and gaze samples.
+ * Screen events are synchronized to video frames and assigned to heatmap zones.
+ */
+public abstract class ScreenEvent {
+    /**
+     * The data source of a screen event.
+     */
+    public enum Source {
+        MOUSE,  // <mouse> elements of ide_tracking.xml
+        GAZE    // <gaze> elements of eye_tracking.xml
+    }
+
+    private final long timestamp;      // Unix milliseconds
+    private final int screenX;         // Screen X coordinate
+    private final int screenY;         // Screen Y coordinate
+    private int frameNumber;           // Mapped frame number (set during synchronization)
+    private HeatmapZone zone;          // Assigned heatmap zone (set during synchronization)
+
+    /**
+     * Constructs a screen event at the specified time and position.
+     *
+     * @param timestamp The timestamp in Unix milliseconds
+     * @param screenX   The X coordinate on screen
+     * @param screenY   The Y coordinate on screen
+     */
+    protected ScreenEvent(long timestamp, int screenX, int screenY) {
+        this.timestamp = timestamp;
+        this.screenX = screenX;
+        this.screenY = screenY;
+        this.frameNumber = -1; // Not yet mapped
+        this.zone = null;      // Not yet assigned
+    }
+
+    /**
+     * Gets the data source of this event.
+     *
+     * @return The source
+     */
+    public abstract Source getSource();
+
+    // Getters
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getScreenX() {
+        return screenX;
+    }
+
+    public int getScreenY() {
+        return screenY;
+    }
+
+    public int getFrameNumber() {
+        return frameNumber;
+    }
+
+    // Setter for frame mapping
+    public void setFrameNumber(int frameNumber) {
+        this.frameNumber = frameNumber;
+    }
+
+    /**
+     * Sets the heatmap zone for this event.
+     *
+     * @param zone The heatmap zone
+     */
+    public void setZone(HeatmapZone zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Gets the heatmap zone for this event.
+     *
+     * @return The heatmap zone, or null if not yet assigned
+     */
+    public HeatmapZone getZone() {
+        return zone;
+    }
+
+    /**
+     * Checks if this event has been assigned a zone.
+     *
+     * @return true if zone is assigned, false otherwise
+     */
+    public boolean hasZone() {
+        return zone != null;
+    }
+}
@@ -1,6 +1,10 @@
 package heatmap.model;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Contains metadata about a CodeGRITS recording session.
@@ -11,9 +15,10 @@ public class SessionMetadata {
     private final Dimension screenSize;     // Screen resolution from environment XML
     private final double scaleX;            // DPI scaling factor X
     private final double scaleY;            // DPI scaling factor Y
-    private final int frameRate;            // Frames per second (typically 4)
+    private double frameRate;               // Frames per second, measured from the frame timestamps
     private long startTimestamp;            // Session start time (from frames.csv)
     private long endTimestamp;              // Session end time (from frames.csv)
+    private Map<Integer, Rectangle> captureRegions = new TreeMap<>(); // Captured region per clip (from regions.csv)
     
     // Additional metadata
     private String ideName;
@@ -28,10 +33,10 @@ public class SessionMetadata {
      * @param screenSize  Screen dimensions
      * @param scaleX      X scaling factor
      * @param scaleY      Y scaling factor
-     * @param frameRate   Frames per second
+     * @param frameRate   Frames per second, until it is measured from the frames
      */
     public SessionMetadata(String sessionPath, Dimension screenSize, 
-                          double scaleX, double scaleY, int frameRate) {
+                          double scaleX, double scaleY, double frameRate) {
         this.sessionPath = sessionPath;
         this.screenSize = screenSize;
         this.scaleX = scaleX;
@@ -58,7 +63,7 @@ public class SessionMetadata {
         return scaleY;
     }
 
-    public int getFrameRate() {
+    public double getFrameRate() {
         return frameRate;
     }
 
@@ -87,6 +92,10 @@ public class SessionMetadata {
     }
 
     // Setters for timing and additional metadata
+    public void setFrameRate(double frameRate) {
+        this.frameRate = frameRate;
+    }
+
     public void setStartTimestamp(long startTimestamp) {
         this.startTimestamp = startTimestamp;
     }
@@ -111,6 +120,55 @@ public class SessionMetadata {
         this.projectName = projectName;
     }
 
+    /**
+     * Sets the captured screen region of each clip, for sessions recorded with IDE window capture.
+     *
+     * @param captureRegions Map of clip number to captured region
+     */
+    public void setCaptureRegions(Map<Integer, Rectangle> captureRegions) {
+        this.captureRegions = new TreeMap<>(captureRegions);
+    }
+
+    /**
+     * Checks whether the session was recorded with IDE window capture.
+     *
+     * @return true if capture regions are available
+     */
+    public boolean hasCaptureRegions() {
+        return !captureRegions.isEmpty();
+    }
+
+    /**
+     * Gets the captured screen region of a clip.
+     * Clips without a recorded region fall back to the full screen.
+     *
+     * @param clipNumber The clip number
+     * @return The captured region in screen coordinates
+     */
+    public Rectangle getCaptureRegion(int clipNumber) {
+        Rectangle region = captureRegions.get(clipNumber);
+        return region != null ? new Rectangle(region) : new Rectangle(0, 0, screenSize.width, screenSize.height);
+    }
+
+    public Map<Integer, Rectangle> getCaptureRegions() {
+        return Collections.unmodifiableMap(captureRegions);
+    }
+
+    /**
+     * Gets the size of the heatmap coordinate system.
+     * This is the screen size, or the region of the first clip when the IDE window was captured.
+     * Heatmaps are stretched to each clip's video size when composited.
+     *
+     * @return Capture dimensions
+     */
+    public Dimension getCaptureSize() {
+        if (captureRegions.isEmpty()) {
+            return screenSize;
+        }
+        Rectangle first = captureRegions.values().iterator().next();
+        return new Dimension(first.width, first.height);
+    }
+
     /**
      * Gets the session duration in milliseconds.
      *
@@ -125,7 +183,9 @@ public class SessionMetadata {
 
     @Override
     public String toString() {
-        return String.format("SessionMetadata{screen=%dx%d, scale=%.1fx/%.1fy, fps=%d, duration=%.1fs}",
-                screenSize.width, screenSize.height, scaleX, scaleY, frameRate, getDurationMs() / 1000.0);
+        Dimension captureSize = getCaptureSize();
+        return String.format("SessionMetadata{screen=%dx%d, capture=%dx%d, scale=%.1fx/%.1fy, fps=%.2f, duration=%.1fs}",
+                screenSize.width, screenSize.height, captureSize.width, captureSize.height,
+                scaleX, scaleY, frameRate, getDurationMs() / 1000.0);
     }
 }
\ No newline at end of file
@@ -1,17 +1,19 @@
 package heatmap.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents a single frame in the recorded video.
- * Contains the frame timing information and associated mouse events.
+ * Contains the frame timing information and associated screen events (mouse events and gaze samples).
  */
 public class VideoFrame {
     private final long timestamp;           // Unix milliseconds
     private final int frameNumber;          // Frame number within clip
     private final int clipNumber;           // Which video clip this frame belongs to
-    private final List<MouseEvent> mouseEvents; // Mouse events occurring during this frame
+    private final List<ScreenEvent> events;  // Screen events occurring during this frame, in time order
+    private int mouseEventCount;
 
     /**
      * Constructs a VideoFrame with the specified parameters.
@@ -24,7 +26,19 @@ public class VideoFrame {
         this.timestamp = timestamp;
         this.frameNumber = frameNumber;
         this.clipNumber = clipNumber;
-        this.mouseEvents = new ArrayList<>();
+        this.events = new ArrayList<>();
+    }
+
+    /**
+     * Adds a screen event to this frame.
+     *
+     * @param event The screen event to add
+     */
+    public void addEvent(ScreenEvent event) {
+        events.add(event);
+        if (event.getSource() == ScreenEvent.Source.MOUSE) {
+            mouseEventCount++;
+        }
     }
 
     /**
@@ -33,7 +47,7 @@ public class VideoFrame {
      * @param event The mouse event to add
      */
     public void addMouseEvent(MouseEvent event) {
-        mouseEvents.add(event);
+        addEvent(event);
     }
 
     // Getters
@@ -50,16 +64,35 @@ public class VideoFrame {
     }
 
     public List<MouseEvent> getMouseEvents() {
-        return new ArrayList<>(mouseEvents); // Return defensive copy
+        List<MouseEvent> mouseEvents = new ArrayList<>(mouseEventCount);
+        for (ScreenEvent event : events) {
+            if (event instanceof MouseEvent) {
+                mouseEvents.add((MouseEvent) event);
+            }
+        }
+        return mouseEvents;
     }
 
     public int getMouseEventCount() {
-        return mouseEvents.size();
+        return mouseEventCount;
+    }
+
+    /**
+     * Gets all screen events of this frame without copying them, as gaze samples can be numerous.
+     *
+     * @return Read-only view of the events
+     */
+    public List<ScreenEvent> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    public int getEventCount() {
+        return events.size();
     }
 
     @Override
     public String toString() {
-        return String.format("VideoFrame{frame=%d, clip=%d, timestamp=%d, mouseEvents=%d}",
-                frameNumber, clipNumber, timestamp, mouseEvents.size());
+        return String.format("VideoFrame{frame=%d, clip=%d, timestamp=%d, mouseEvents=%d, gazeEvents=%d}",
+                frameNumber, clipNumber, timestamp, mouseEventCount, events.size() - mouseEventCount);
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package heatmap.parser;
+
+import com.opencsv.CSVReader;
+import heatmap.validator.SessionDataException;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.FileReader;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Parses the captured screen region of each clip from regions.csv.
+ * The file is only written when the IDE window is captured instead of the whole screen.
+ * Regions are in the same coordinate system as the screen size and the mouse coordinates.
+ */
+public class CaptureRegionParser {
+
+    /**
+     * Checks whether a regions.csv file exists.
+     *
+     * @param csvFilePath Path to regions.csv
+     * @return true if the file exists
+     */
+    public boolean isAvailable(String csvFilePath) {
+        return new File(csvFilePath).isFile();
+    }
+
+    /**
+     * Parses the captured region of each clip.
+     *
+     * @param csvFilePath Path to regions.csv
+     * @return Map of clip number to captured region, sorted by clip number
+     * @throws SessionDataException if parsing fails
+     */
+    public Map<Integer, Rectangle> parseRegions(String csvFilePath) throws SessionDataException {
+        Map<Integer, Rectangle> regions = new TreeMap<>();
+
+        try (CSVReader reader = new CSVReader(new FileReader(csvFilePath))) {
+            List<String[]> rows = reader.readAll();
+
+            // Skip header row
+            for (int i = 1; i < rows.size(); i++) {
+                String[] row = rows.get(i);
+
+                if (row.length < 5) {
+                    System.err.println("Warning: Skipping malformed region at index " + i);
+                    continue;
+                }
+
+                try {
+                    int clipNumber = Integer.parseInt(row[0]);
+                    Rectangle region = new Rectangle(
+                            Integer.parseInt(row[1]),
+                            Integer.parseInt(row[2]),
+                            Integer.parseInt(row[3]),
+                            Integer.parseInt(row[4])
+                    );
+                    if (region.width > 0 && region.height > 0) {
+                        regions.put(clipNumber, region);
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println("Warning: Skipping invalid region data at row " + i);
+                }
+            }
+
+        } catch (Exception e) {
+            throw new SessionDataException("Failed to parse regions.csv: " + e.getMessage(), e);
+        }
+
+        return regions;
+    }
+}
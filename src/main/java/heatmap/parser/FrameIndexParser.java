@@ -0,0 +1,82 @@
+package heatmap.parser;
+
+import heatmap.model.VideoFrame;
+import heatmap.validator.SessionDataException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses frame timing data from the binary frames.idx file written by the screen recorder.
+ * The file is memory-mapped and read record by record, which avoids parsing frames.csv.
+ * Layout: 16-byte header (magic "CGFI", version, record size, reserved), then one
+ * 16-byte big-endian record per frame (timestamp long, frame number int, clip number int).
+ */
+public class FrameIndexParser {
+    private static final int MAGIC = 0x43474649;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Checks whether a usable frames.idx file exists.
+     *
+     * @param indexFilePath Path to frames.idx
+     * @return true if the file exists and is at least as long as the header
+     */
+    public boolean isAvailable(String indexFilePath) {
+        File file = new File(indexFilePath);
+        return file.isFile() && file.length() >= HEADER_SIZE;
+    }
+
+    /**
+     * Parses video frames from the binary frame index.
+     * A trailing partial record (e.g. after a crash) is ignored.
+     *
+     * @param indexFilePath Path to frames.idx
+     * @return List of video frames
+     * @throws SessionDataException if the file cannot be read or has an unknown format
+     */
+    public List<VideoFrame> parseFrames(String indexFilePath) throws SessionDataException {
+        try (FileChannel channel = FileChannel.open(new File(indexFilePath).toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new SessionDataException("frames.idx is truncated");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new SessionDataException("frames.idx has an invalid header");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new SessionDataException("Unsupported frames.idx version: " + buffer.getInt(4));
+            }
+            int recordSize = buffer.getInt(8);
+            if (recordSize < 16) {
+                throw new SessionDataException("Invalid frames.idx record size: " + recordSize);
+            }
+
+            int recordCount = (int) ((size - HEADER_SIZE) / recordSize);
+            List<VideoFrame> frames = new ArrayList<>(recordCount);
+            for (int i = 0; i < recordCount; i++) {
+                int offset = HEADER_SIZE + i * recordSize;
+                long timestamp = buffer.getLong(offset);
+                int frameNumber = buffer.getInt(offset + 8);
+                int clipNumber = buffer.getInt(offset + 12);
+                frames.add(new VideoFrame(timestamp, frameNumber, clipNumber));
+            }
+
+            if (frames.isEmpty()) {
+                throw new SessionDataException("No frames found in frames.idx");
+            }
+            return frames;
+
+        } catch (IOException e) {
+            throw new SessionDataException("Failed to read frames.idx: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package heatmap.parser;
+
+import heatmap.model.GazeEvent;
+import heatmap.validator.SessionDataException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.awt.Dimension;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses gaze samples from eye_tracking.xml files.
+ * The file is read with a streaming (StAX) parser instead of a DOM, because it holds one
+ * {@code <gaze>} element per sample, i.e., about 100 times more events than the mouse events
+ * of ide_tracking.xml, and each of them has nested eye, location, and AST elements.
+ */
+public class GazeXMLParser {
+
+    /**
+     * Parses the valid gaze samples from the eye tracking XML file.
+     * The gaze point is the average of both eyes, converted to screen coordinates with the
+     * screen size recorded in {@code <setting>}, or the given screen size for older sessions.
+     * Samples with an invalid gaze point of either eye are skipped.
+     *
+     * @param xmlFilePath       Path to eye_tracking.xml
+     * @param defaultScreenSize Screen size used if {@code <setting>} has no screen_width and screen_height
+     * @return List of gaze events in file order
+     * @throws SessionDataException if parsing fails
+     */
+    public List<GazeEvent> parseGazeEvents(String xmlFilePath, Dimension defaultScreenSize) throws SessionDataException {
+        List<GazeEvent> gazeEvents = new ArrayList<>();
+        int screenWidth = defaultScreenSize.width;
+        int screenHeight = defaultScreenSize.height;
+        int skippedCount = 0;
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+
+        try (InputStream input = new BufferedInputStream(new FileInputStream(xmlFilePath), 1 << 16)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+            try {
+                boolean inGazes = false;
+                boolean inGaze = false;
+                String timestamp = null;
+                double leftX = Double.NaN, leftY = Double.NaN, rightX = Double.NaN, rightY = Double.NaN;
+
+                while (reader.hasNext()) {
+                    int eventType = reader.next();
+
+                    if (eventType == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("setting")) {
+                            String width = reader.getAttributeValue(null, "screen_width");
+                            String height = reader.getAttributeValue(null, "screen_height");
+                            if (width != null && height != null) {
+                                screenWidth = Integer.parseInt(width);
+                                screenHeight = Integer.parseInt(height);
+                            }
+                        } else if (name.equals("gazes")) {
+                            inGazes = true;
+                        } else if (inGazes && name.equals("gaze")) {
+                            inGaze = true;
+                            timestamp = reader.getAttributeValue(null, "timestamp");
+                            leftX = leftY = rightX = rightY = Double.NaN;
+                        } else if (inGaze && name.equals("left_eye")) {
+                            leftX = parseCoordinate(reader.getAttributeValue(null, "gaze_point_x"));
+                            leftY = parseCoordinate(reader.getAttributeValue(null, "gaze_point_y"));
+                        } else if (inGaze && name.equals("right_eye")) {
+                            rightX = parseCoordinate(reader.getAttributeValue(null, "gaze_point_x"));
+                            rightY = parseCoordinate(reader.getAttributeValue(null, "gaze_point_y"));
+                        }
+                    } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("gazes")) {
+                            inGazes = false;
+                        } else if (inGaze && name.equals("gaze")) {
+                            inGaze = false;
+                            if (Double.isNaN(leftX) || Double.isNaN(leftY) || Double.isNaN(rightX) || Double.isNaN(rightY)) {
+                                continue;
+                            }
+                            try {
+                                int x = (int) ((leftX + rightX) / 2 * screenWidth);
+                                int y = (int) ((leftY + rightY) / 2 * screenHeight);
+                                gazeEvents.add(new GazeEvent(Long.parseLong(timestamp), x, y));
+                            } catch (NumberFormatException e) {
+                                skippedCount++;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException | NumberFormatException e) {
+            throw new SessionDataException("Failed to parse gaze events from XML: " + e.getMessage(), e);
+        }
+
+        if (skippedCount > 0) {
+            // Skip malformed gazes
+            System.err.println("Warning: Skipped " + skippedCount + " malformed gaze events");
+        }
+
+        return gazeEvents;
+    }
+
+    /**
+     * Parses a normalized gaze coordinate.
+     *
+     * @param value The attribute value, e.g., "0.53" or "nan"
+     * @return The coordinate, or NaN if it is missing or invalid
+     */
+    private double parseCoordinate(String value) {
+        if (value == null || value.isEmpty() || value.equalsIgnoreCase("nan")) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.util.regex.Pattern;
  */
 public class XMLParser {
     private static final Pattern SCREEN_SIZE_PATTERN = Pattern.compile("\\((\\d+),(\\d+)\\)");
+    public static final double DEFAULT_FRAME_RATE = 4.0;  // Default frame rate of ScreenRecorder
 
     /**
      * Parses mouse events from the IDE tracking XML file.
@@ -101,11 +102,9 @@ public class XMLParser {
             double scaleX = Double.parseDouble(envElement.getAttribute("scale_x"));
             double scaleY = Double.parseDouble(envElement.getAttribute("scale_y"));
 
-            // Frame rate is typically 4 (from ScreenRecorder), but we'll default to 4
-            // This could be made configurable later
-            int frameRate = 4;
-
-            SessionMetadata metadata = new SessionMetadata(sessionPath, screenSize, scaleX, scaleY, frameRate);
+            // The frame rate is not recorded in the environment, it is measured from the frame
+            // timestamps when the frames are synchronized (see TimeWindowSynchronizer)
+            SessionMetadata metadata = new SessionMetadata(sessionPath, screenSize, scaleX, scaleY, DEFAULT_FRAME_RATE);
 
             // Set additional metadata
             metadata.setIdeName(envElement.getAttribute("ide_name"));
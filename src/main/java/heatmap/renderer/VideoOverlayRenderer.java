@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 public class VideoOverlayRenderer {
     private final HeatmapSession session;
     private final String sessionPath;
+    private final String heatmapDirName;
     private final ClipFrameMapper frameMapper;
     private final FrameCompositor compositor;
     
@@ -27,11 +28,26 @@ public class VideoOverlayRenderer {
      * @param sessionPath Base path to the session folder
      */
     public VideoOverlayRenderer(HeatmapSession session, String sessionPath) {
+        this(session, sessionPath, "heatmaps");
+    }
+    
+    /**
+     * Creates a video overlay renderer for the heatmaps in the specified folder,
+     * e.g., one of the folders of a parameter sweep.
+     * The video is named after the folder: heatmaps gives recording_with_heatmap.mp4,
+     * and any other folder gives recording_with_&lt;folder&gt;.mp4.
+     *
+     * @param session        The heatmap session with frame data
+     * @param sessionPath    Base path to the session folder
+     * @param heatmapDirName Name of the heatmap folder in the session folder
+     */
+    public VideoOverlayRenderer(HeatmapSession session, String sessionPath, String heatmapDirName) {
         this.session = session;
         this.sessionPath = sessionPath;
+        this.heatmapDirName = heatmapDirName;
         this.frameMapper = new ClipFrameMapper(
             session.getFrames(),
-            sessionPath + "/heatmaps"
+            sessionPath + "/" + heatmapDirName
         );
         this.compositor = new FrameCompositor();
     }
@@ -55,7 +71,8 @@ public class VideoOverlayRenderer {
         System.out.println("Found " + sortedClips.size() + " clip(s) to process");
         System.out.println();
         
-        String outputPath = sessionPath + "/screen_recording/recording_with_heatmap.mp4";
+        String outputPath = sessionPath + "/screen_recording/recording_with_" +
+            (heatmapDirName.equals("heatmaps") ? "heatmap" : heatmapDirName) + ".mp4";
         
         // Set up output recorder for merged video
         FFmpegFrameRecorder recorder = null;
@@ -86,7 +103,9 @@ public class VideoOverlayRenderer {
                         grabber.getImageHeight()
                     );
                     recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
-                    recorder.setFrameRate(session.getMetadata().getFrameRate());
+                    // Keep the frame rate of the clips, or use the rate measured from the frame timestamps
+                    recorder.setFrameRate(grabber.getFrameRate() > 0 ?
+                                         grabber.getFrameRate() : session.getMetadata().getFrameRate());
                     recorder.setPixelFormat(avutil.AV_PIX_FMT_YUV420P); // Match input format
                     recorder.setVideoBitrate(grabber.getVideoBitrate() > 0 ? 
                                             grabber.getVideoBitrate() : 2000000);
@@ -1,70 +1,171 @@
 package heatmap.sync;
 
 import heatmap.model.HeatmapSession;
-import heatmap.model.MouseEvent;
+import heatmap.model.ScreenEvent;
 import heatmap.model.SessionMetadata;
 import heatmap.model.VideoFrame;
 import heatmap.model.HeatmapZone;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Synchronizes mouse events to video frames using sequential time windows.
- * Each frame captures all mouse events from its timestamp until the next frame's timestamp.
- * Also assigns heatmap zones to all mouse events.
+ * Synchronizes screen events (mouse events and gaze samples) to video frames using sequential time windows.
+ * Each frame captures all events from its timestamp until the next frame's timestamp.
+ * Also assigns heatmap zones to all events.
  */
 public class TimeWindowSynchronizer {
+    private final int gridColumns;
+    private final int gridRows;
+    private final boolean adaptive;  // Build a quadtree over the event positions instead of a uniform grid
 
     /**
-     * Synchronizes mouse events to frames using sequential time windows
-     * and assigns zones to each mouse event.
+     * Creates a synchronizer that maps events to the default 15x15 grid.
+     */
+    public TimeWindowSynchronizer() {
+        this(ZoneMapper.DEFAULT_GRID_SIZE, ZoneMapper.DEFAULT_GRID_SIZE, false);
+    }
+
+    /**
+     * Creates a synchronizer with the given zone grid.
+     *
+     * @param gridColumns Number of grid columns (finest columns of an adaptive grid)
+     * @param gridRows    Number of grid rows (finest rows of an adaptive grid)
+     * @param adaptive    Whether to subdivide the regions with many events instead of using a uniform grid
+     */
+    public TimeWindowSynchronizer(int gridColumns, int gridRows, boolean adaptive) {
+        this.gridColumns = gridColumns;
+        this.gridRows = gridRows;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Synchronizes screen events to frames using sequential time windows
+     * and assigns zones to each event.
      *
      * @param metadata    Session metadata containing screen size
      * @param frames      List of video frames (must be sorted by timestamp)
-     * @param mouseEvents List of mouse events (should be sorted by timestamp)
+     * @param events      List of screen events (should be sorted by timestamp), e.g., mouse events,
+     *                    gaze events, or both merged with {@link #mergeByTimestamp(List, List)}
      * @return Complete heatmap session with synchronized and zone-mapped data
      */
     public HeatmapSession synchronize(SessionMetadata metadata,
                                      List<VideoFrame> frames,
-                                     List<MouseEvent> mouseEvents) {
+                                     List<? extends ScreenEvent> events) {
         HeatmapSession session = new HeatmapSession(metadata);
 
-        // Create zone mapper from screen dimensions
-        ZoneMapper zoneMapper = new ZoneMapper(metadata.getScreenSize());
-        session.setZoneMapper(zoneMapper);
-
         // Add all frames to session
         for (VideoFrame frame : frames) {
             session.addFrame(frame);
         }
 
-        // Map mouse events to frames using sequential windows
-        mapEventsToFrames(frames, mouseEvents);
+        // Map events to frames using sequential windows
+        mapEventsToFrames(frames, events);
+
+        // Create zone mapper from capture dimensions (the screen, or the IDE window if only the window was captured)
+        ZoneMapper zoneMapper = adaptive ?
+                createAdaptiveZoneMapper(frames, metadata, events) :
+                new ZoneMapper(metadata.getCaptureSize(), gridColumns, gridRows);
+        session.setZoneMapper(zoneMapper);
 
-        // Assign zones to all mouse events
-        assignZonesToEvents(mouseEvents, zoneMapper);
+        // Assign zones to all events
+        if (metadata.hasCaptureRegions()) {
+            assignZonesToEventsInRegions(frames, metadata, zoneMapper);
+        } else {
+            assignZonesToEvents(events, zoneMapper);
+        }
 
-        // Set session timestamps
+        // Set session timestamps and the measured frame rate
         if (!frames.isEmpty()) {
             metadata.setStartTimestamp(frames.get(0).getTimestamp());
             metadata.setEndTimestamp(frames.get(frames.size() - 1).getTimestamp());
         }
+        double frameRate = measureFrameRate(frames);
+        if (frameRate > 0) {
+            metadata.setFrameRate(frameRate);
+        }
 
         return session;
     }
 
     /**
-     * Maps mouse events to frames using sequential iteration.
+     * Merges two lists of screen events sorted by timestamp into one sorted list,
+     * e.g., the mouse events and the gaze samples for a combined heatmap.
+     *
+     * @param first  First sorted list of events
+     * @param second Second sorted list of events
+     * @return Merged list sorted by timestamp, keeping the order of equal timestamps
+     */
+    public static List<ScreenEvent> mergeByTimestamp(List<? extends ScreenEvent> first,
+                                                     List<? extends ScreenEvent> second) {
+        List<ScreenEvent> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+
+        while (i < first.size() && j < second.size()) {
+            if (second.get(j).getTimestamp() < first.get(i).getTimestamp()) {
+                merged.add(second.get(j++));
+            } else {
+                merged.add(first.get(i++));
+            }
+        }
+        merged.addAll(first.subList(i, first.size()));
+        merged.addAll(second.subList(j, second.size()));
+
+        return merged;
+    }
+
+    /**
+     * Measures the frame rate from the frame timestamps of frames.csv or frames.idx.
+     * Intervals across clips and pauses, i.e., longer than twice the median interval, are ignored,
+     * and the remaining intervals are averaged, since the timestamps only have millisecond resolution.
+     *
+     * @param frames List of video frames (sorted by timestamp)
+     * @return Frames per second, or 0 if there are not enough frames
+     */
+    public static double measureFrameRate(List<VideoFrame> frames) {
+        long[] intervals = new long[Math.max(0, frames.size() - 1)];
+        int count = 0;
+        for (int i = 1; i < frames.size(); i++) {
+            long interval = frames.get(i).getTimestamp() - frames.get(i - 1).getTimestamp();
+            if (interval > 0 && frames.get(i).getClipNumber() == frames.get(i - 1).getClipNumber()) {
+                intervals[count++] = interval;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long[] sorted = Arrays.copyOf(intervals, count);
+        Arrays.sort(sorted);
+        long median = sorted[count / 2];
+
+        long total = 0;
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            if (intervals[i] <= 2 * median) {
+                total += intervals[i];
+                used++;
+            }
+        }
+        return 1000.0 * used / total;
+    }
+
+    /**
+     * Maps screen events to frames using sequential iteration.
      * Each frame captures events from its timestamp until the next frame's timestamp.
      * Events before the first frame are assigned to the first frame.
      * Events after the last frame are assigned to the last frame.
      *
-     * @param frames      List of video frames
-     * @param mouseEvents List of mouse events
+     * @param frames List of video frames
+     * @param events List of screen events
      */
     private void mapEventsToFrames(List<VideoFrame> frames,
-                                   List<MouseEvent> mouseEvents) {
-        if (frames.isEmpty() || mouseEvents.isEmpty()) {
+                                   List<? extends ScreenEvent> events) {
+        if (frames.isEmpty() || events.isEmpty()) {
             return;
         }
 
@@ -72,12 +173,12 @@ public class TimeWindowSynchronizer {
         VideoFrame currentFrame = frames.get(0);
         VideoFrame nextFrame = frames.size() > 1 ? frames.get(1) : null;
 
-        for (MouseEvent event : mouseEvents) {
+        for (ScreenEvent event : events) {
             long eventTime = event.getTimestamp();
 
             // Handle events before first frame
             if (eventTime < currentFrame.getTimestamp()) {
-                currentFrame.addMouseEvent(event);
+                currentFrame.addEvent(event);
                 event.setFrameNumber(currentFrame.getFrameNumber());
                 continue;
             }
@@ -92,23 +193,64 @@ public class TimeWindowSynchronizer {
             }
 
             // Assign event to current frame
-            currentFrame.addMouseEvent(event);
+            currentFrame.addEvent(event);
             event.setFrameNumber(currentFrame.getFrameNumber());
         }
     }
 
     /**
-     * Assigns zones to all mouse events based on their screen coordinates.
+     * Creates an adaptive zone mapper over the positions of all events in capture coordinates,
+     * i.e., translated and scaled into the captured region of their clip for IDE window capture.
+     *
+     * @param frames   List of video frames with their mapped screen events
+     * @param metadata Session metadata containing the capture size and regions
+     * @param events   List of screen events
+     * @return Zone mapper whose zones are smaller where there are more events
+     */
+    private ZoneMapper createAdaptiveZoneMapper(List<VideoFrame> frames,
+                                                SessionMetadata metadata,
+                                                List<? extends ScreenEvent> events) {
+        Dimension captureSize = metadata.getCaptureSize();
+        int[] xs = new int[events.size()];
+        int[] ys = new int[events.size()];
+        int count = 0;
+
+        if (metadata.hasCaptureRegions()) {
+            for (VideoFrame frame : frames) {
+                Rectangle region = metadata.getCaptureRegion(frame.getClipNumber());
+                for (ScreenEvent event : frame.getEvents()) {
+                    int x = event.getScreenX() - region.x;
+                    int y = event.getScreenY() - region.y;
+                    if (x >= 0 && x < region.width && y >= 0 && y < region.height) {
+                        xs[count] = (int) ((long) x * captureSize.width / region.width);
+                        ys[count] = (int) ((long) y * captureSize.height / region.height);
+                        count++;
+                    }
+                }
+            }
+        } else {
+            for (ScreenEvent event : events) {
+                xs[count] = event.getScreenX();
+                ys[count] = event.getScreenY();
+                count++;
+            }
+        }
+
+        return ZoneMapper.adaptive(captureSize, xs, ys, count, gridColumns, gridRows);
+    }
+
+    /**
+     * Assigns zones to all screen events based on their screen coordinates.
      * Events with out-of-bounds coordinates will not have a zone assigned.
      *
-     * @param mouseEvents List of mouse events
-     * @param zoneMapper  Zone mapper for coordinate-to-zone conversion
+     * @param events     List of screen events
+     * @param zoneMapper Zone mapper for coordinate-to-zone conversion
      */
-    private void assignZonesToEvents(List<MouseEvent> mouseEvents,
+    private void assignZonesToEvents(List<? extends ScreenEvent> events,
                                      ZoneMapper zoneMapper) {
         int unmappedCount = 0;
 
-        for (MouseEvent event : mouseEvents) {
+        for (ScreenEvent event : events) {
             HeatmapZone zone = zoneMapper.getZoneForCoordinates(
                 event.getScreenX(),
                 event.getScreenY()
@@ -123,7 +265,52 @@ public class TimeWindowSynchronizer {
 
         if (unmappedCount > 0) {
             System.err.println("Warning: " + unmappedCount +
-                             " mouse events had out-of-bounds coordinates");
+                             " screen events had out-of-bounds coordinates");
+        }
+    }
+
+    /**
+     * Assigns zones to screen events of a session recorded with IDE window capture.
+     * Screen coordinates are translated into the captured region of the event's clip,
+     * then scaled to the capture size so that regions of different sizes share one grid.
+     * Events outside the captured region will not have a zone assigned.
+     *
+     * @param frames     List of video frames with their mapped screen events
+     * @param metadata   Session metadata containing the capture regions
+     * @param zoneMapper Zone mapper for coordinate-to-zone conversion
+     */
+    private void assignZonesToEventsInRegions(List<VideoFrame> frames,
+                                              SessionMetadata metadata,
+                                              ZoneMapper zoneMapper) {
+        Dimension captureSize = metadata.getCaptureSize();
+        int unmappedCount = 0;
+
+        for (VideoFrame frame : frames) {
+            Rectangle region = metadata.getCaptureRegion(frame.getClipNumber());
+
+            for (ScreenEvent event : frame.getEvents()) {
+                int x = event.getScreenX() - region.x;
+                int y = event.getScreenY() - region.y;
+                HeatmapZone zone = null;
+
+                if (x >= 0 && x < region.width && y >= 0 && y < region.height) {
+                    zone = zoneMapper.getZoneForCoordinates(
+                        (int) ((long) x * captureSize.width / region.width),
+                        (int) ((long) y * captureSize.height / region.height)
+                    );
+                }
+
+                if (zone != null) {
+                    event.setZone(zone);
+                } else {
+                    unmappedCount++;
+                }
+            }
+        }
+
+        if (unmappedCount > 0) {
+            System.err.println("Warning: " + unmappedCount +
+                             " screen events were outside the captured region");
         }
     }
-}
\ No newline at end of file
+}
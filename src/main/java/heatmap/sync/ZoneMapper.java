@@ -5,37 +5,140 @@ import heatmap.model.HeatmapZone;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Maps screen coordinates to heatmap zones using a 15x15 adaptive grid.
- * The grid adapts to any screen resolution by calculating cell sizes dynamically.
+ * Maps screen coordinates to heatmap zones.
+ * The zones are either a uniform grid (15x15 by default, configurable up to fine resolutions such as 200x120),
+ * or an adaptive quadtree that subdivides the regions with many events (see {@link #adaptive}).
+ * Cell boundaries are proportional to the screen size, so any grid covers the screen exactly.
+ * Lookups are O(1): the uniform grid computes the cell directly, and the quadtree uses a lookup table
+ * of its finest cells.
  */
 public class ZoneMapper {
-    private static final int GRID_SIZE = 15;  // 15x15 grid = 225 zones
+    public static final int DEFAULT_GRID_SIZE = 15;  // 15x15 grid = 225 zones
+    private static final int MAX_QUADTREE_DEPTH = 10;  // 1024x1024 finest cells
 
-    private final int cellWidth;
-    private final int cellHeight;
+    private final int columns;
+    private final int rows;
     private final int screenWidth;
     private final int screenHeight;
-    private final List<HeatmapZone> allZones;  // Pre-computed 225 zones
+    private final List<HeatmapZone> allZones;  // Pre-computed zones, indexed by zone ID
+    private final List<HeatmapZone> zonesView;  // Read-only view of allZones
+    private final int[] lookup;  // Zone ID of each finest cell of the quadtree, or null for a uniform grid
 
     /**
-     * Creates a zone mapper for the given screen dimensions.
-     * Cell dimensions are calculated by rounding up: ceil(screenDimension / 15)
+     * Creates a zone mapper with the default 15x15 grid for the given screen dimensions.
      *
      * @param screenSize The screen dimensions
      */
     public ZoneMapper(Dimension screenSize) {
+        this(screenSize, DEFAULT_GRID_SIZE, DEFAULT_GRID_SIZE);
+    }
+
+    /**
+     * Creates a zone mapper with a uniform grid for the given screen dimensions.
+     *
+     * @param screenSize The screen dimensions
+     * @param columns    Number of grid columns
+     * @param rows       Number of grid rows
+     */
+    public ZoneMapper(Dimension screenSize, int columns, int rows) {
+        this(screenSize, columns, rows, null);
+    }
+
+    private ZoneMapper(Dimension screenSize, int columns, int rows, int[] lookup) {
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("Invalid grid size: " + columns + "x" + rows);
+        }
         this.screenWidth = screenSize.width;
         this.screenHeight = screenSize.height;
+        this.columns = columns;
+        this.rows = rows;
+        this.lookup = lookup;
+
+        // Pre-generate all zones
+        this.allZones = lookup == null ? generateGridZones() : new ArrayList<>();
+        this.zonesView = Collections.unmodifiableList(allZones);
+    }
+
+    /**
+     * Creates a zone mapper whose zones form an adaptive quadtree over the given event positions.
+     * Starting from the whole screen, a region is split into four while it holds more events than
+     * the average number of events per zone of a uniform columns x rows grid, down to the resolution
+     * of that grid. Hot regions therefore get small zones and cold regions stay coarse, with a number
+     * of zones similar to the uniform grid.
+     * The grid coordinates of a quadtree zone are those of its top-left finest cell.
+     *
+     * @param screenSize The screen dimensions
+     * @param xs         X coordinates of the events
+     * @param ys         Y coordinates of the events
+     * @param count      Number of events in xs and ys
+     * @param columns    Number of columns of the finest uniform grid
+     * @param rows       Number of rows of the finest uniform grid
+     * @return The adaptive zone mapper
+     */
+    public static ZoneMapper adaptive(Dimension screenSize, int[] xs, int[] ys, int count, int columns, int rows) {
+        int depth = 0;
+        while (depth < MAX_QUADTREE_DEPTH && (1 << depth) < Math.max(columns, rows)) {
+            depth++;
+        }
+        int cells = 1 << depth;
+
+        // Count the events of each finest cell, and sum them into a table for O(1) region counts
+        long[] sums = new long[(cells + 1) * (cells + 1)];
+        for (int i = 0; i < count; i++) {
+            if (xs[i] < 0 || xs[i] >= screenSize.width || ys[i] < 0 || ys[i] >= screenSize.height) {
+                continue;
+            }
+            int cellX = (int) ((long) xs[i] * cells / screenSize.width);
+            int cellY = (int) ((long) ys[i] * cells / screenSize.height);
+            sums[(cellY + 1) * (cells + 1) + cellX + 1]++;
+        }
+        for (int y = 1; y <= cells; y++) {
+            for (int x = 1; x <= cells; x++) {
+                int index = y * (cells + 1) + x;
+                sums[index] += sums[index - 1] + sums[index - cells - 1] - sums[index - cells - 2];
+            }
+        }
+        long splitThreshold = Math.max(1, sums[sums.length - 1] / ((long) columns * rows));
 
-        // Calculate cell dimensions (round up to ensure full coverage)
-        this.cellWidth = (int) Math.ceil((double) screenWidth / GRID_SIZE);
-        this.cellHeight = (int) Math.ceil((double) screenHeight / GRID_SIZE);
+        ZoneMapper mapper = new ZoneMapper(screenSize, cells, cells, new int[cells * cells]);
+        mapper.subdivide(sums, cells, 0, 0, cells, splitThreshold);
+        return mapper;
+    }
 
-        // Pre-generate all 225 zones
-        this.allZones = generateAllZones();
+    /**
+     * Adds the leaves of a quadtree region as zones, splitting it while it holds too many events.
+     *
+     * @param sums           Summed-area table of the event counts of the finest cells
+     * @param cells          Number of finest cells per side
+     * @param cellX          Column of the top-left finest cell of the region
+     * @param cellY          Row of the top-left finest cell of the region
+     * @param size           Number of finest cells per side of the region
+     * @param splitThreshold Maximum number of events of a region that is not split
+     */
+    private void subdivide(long[] sums, int cells, int cellX, int cellY, int size, long splitThreshold) {
+        int stride = cells + 1;
+        long events = sums[(cellY + size) * stride + cellX + size] - sums[cellY * stride + cellX + size]
+                - sums[(cellY + size) * stride + cellX] + sums[cellY * stride + cellX];
+        if (size > 1 && events > splitThreshold) {
+            int half = size / 2;
+            subdivide(sums, cells, cellX, cellY, half, splitThreshold);
+            subdivide(sums, cells, cellX + half, cellY, half, splitThreshold);
+            subdivide(sums, cells, cellX, cellY + half, half, splitThreshold);
+            subdivide(sums, cells, cellX + half, cellY + half, half, splitThreshold);
+            return;
+        }
+
+        int zoneId = allZones.size();
+        allZones.add(new HeatmapZone(zoneId, cellX, cellY, getCellBounds(cellX, cellY, size, size)));
+        for (int y = cellY; y < cellY + size; y++) {
+            for (int x = cellX; x < cellX + size; x++) {
+                lookup[y * cells + x] = zoneId;
+            }
+        }
     }
 
     /**
@@ -53,52 +156,103 @@ public class ZoneMapper {
         }
 
         // Calculate grid position
-        int gridX = Math.min(screenX / cellWidth, GRID_SIZE - 1);
-        int gridY = Math.min(screenY / cellHeight, GRID_SIZE - 1);
+        int gridX = (int) ((long) screenX * columns / screenWidth);
+        int gridY = (int) ((long) screenY * rows / screenHeight);
 
         // Return pre-computed zone
-        int zoneId = gridY * GRID_SIZE + gridX;
-        return allZones.get(zoneId);
+        int cellId = gridY * columns + gridX;
+        return allZones.get(lookup == null ? cellId : lookup[cellId]);
     }
 
     /**
-     * Pre-generates all 225 zones with their boundaries.
+     * Pre-generates all zones of the uniform grid with their boundaries.
      *
      * @return List of all zones in the grid
      */
-    private List<HeatmapZone> generateAllZones() {
-        List<HeatmapZone> zones = new ArrayList<>(GRID_SIZE * GRID_SIZE);
-
-        for (int y = 0; y < GRID_SIZE; y++) {
-            for (int x = 0; x < GRID_SIZE; x++) {
-                int x1 = x * cellWidth;
-                int y1 = y * cellHeight;
-                int x2 = Math.min(x1 + cellWidth, screenWidth);
-                int y2 = Math.min(y1 + cellHeight, screenHeight);
-
-                Rectangle bounds = new Rectangle(x1, y1, x2 - x1, y2 - y1);
-                zones.add(new HeatmapZone(x, y, bounds));
+    private List<HeatmapZone> generateGridZones() {
+        List<HeatmapZone> zones = new ArrayList<>(columns * rows);
+
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                zones.add(new HeatmapZone(y * columns + x, x, y, getCellBounds(x, y, 1, 1)));
             }
         }
 
         return zones;
     }
 
+    /**
+     * Gets the screen boundaries of a block of grid cells.
+     * A pixel belongs to cell floor(pixel * cells / size), so a cell starts at ceil(cell * size / cells).
+     *
+     * @param gridX  Column of the top-left cell
+     * @param gridY  Row of the top-left cell
+     * @param width  Number of cells in X
+     * @param height Number of cells in Y
+     * @return The boundaries
+     */
+    private Rectangle getCellBounds(int gridX, int gridY, int width, int height) {
+        int x1 = getCellStart(gridX, screenWidth, columns);
+        int y1 = getCellStart(gridY, screenHeight, rows);
+        int x2 = getCellStart(gridX + width, screenWidth, columns);
+        int y2 = getCellStart(gridY + height, screenHeight, rows);
+        return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    private static int getCellStart(int cell, int size, int cells) {
+        return (int) (((long) cell * size + cells - 1) / cells);
+    }
+
+    /**
+     * Gets the zone with the given ID.
+     *
+     * @param zoneId The zone ID, from 0 to {@link #getZoneCount()} - 1
+     * @return The zone
+     */
+    public HeatmapZone getZone(int zoneId) {
+        return allZones.get(zoneId);
+    }
+
+    /**
+     * Gets all zones without copying them, e.g., for rendering every frame.
+     *
+     * @return Read-only list of all zones, indexed by zone ID
+     */
+    public List<HeatmapZone> getZones() {
+        return zonesView;
+    }
+
     /**
      * Gets all zones in the grid.
      *
-     * @return Defensive copy of all 225 zones
+     * @return Defensive copy of all zones
      */
     public List<HeatmapZone> getAllZones() {
         return new ArrayList<>(allZones);
     }
 
+    public int getZoneCount() {
+        return allZones.size();
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public boolean isAdaptive() {
+        return lookup != null;
+    }
+
     public int getCellWidth() {
-        return cellWidth;
+        return (int) Math.ceil((double) screenWidth / columns);
     }
 
     public int getCellHeight() {
-        return cellHeight;
+        return (int) Math.ceil((double) screenHeight / rows);
     }
 
     public int getScreenWidth() {
@@ -109,13 +263,10 @@ public class ZoneMapper {
         return screenHeight;
     }
 
-    public static int getGridSize() {
-        return GRID_SIZE;
-    }
-
     @Override
     public String toString() {
-        return String.format("ZoneMapper{grid=%dx%d, cells=%dx%d, screen=%dx%d}",
-                GRID_SIZE, GRID_SIZE, cellWidth, cellHeight, screenWidth, screenHeight);
+        return String.format("ZoneMapper{grid=%dx%d, zones=%d%s, cells=%dx%d, screen=%dx%d}",
+                columns, rows, getZoneCount(), isAdaptive() ? " (adaptive)" : "",
+                getCellWidth(), getCellHeight(), screenWidth, screenHeight);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package trackers;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class writes the index of the archives of a session to {@code archives/index.csv}. Every successful archive is
+ * appended and flushed as it is written, so that the index survives an unexpected exit of the IDE. When the tracking
+ * stops, the index is rewritten sorted by {@code id}, {@code path} and {@code timestamp}, so that readers can find the
+ * state of a file at any timestamp by binary search (see {@link utils.ArchiveIndex}).
+ * <p>
+ * Each row records the byte range of the archive in {@code [timestamp].archive}, since several archives triggered in
+ * the same millisecond share the same archive file.
+ */
+public class ArchiveIndexWriter {
+    /**
+     * The name of the archive index file in the {@code archives} directory.
+     */
+    public static final String FILE_NAME = "index.csv";
+    /**
+     * The header of the archive index file.
+     */
+    public static final String[] HEADER = {"id", "path", "timestamp", "offset", "length"};
+
+    private final File indexFile;
+    private final CSVWriter csvWriter;
+    /**
+     * This variable keeps the rows of the index, which are sorted when the index is closed.
+     */
+    private final List<String[]> rows = new ArrayList<>();
+    private boolean isClosed = false;
+
+    /**
+     * The constructor of the archive index writer. The header is written immediately.
+     *
+     * @param archiveDirectory The {@code archives} directory of the session.
+     */
+    public ArchiveIndexWriter(File archiveDirectory) throws IOException {
+        archiveDirectory.mkdirs();
+        indexFile = new File(archiveDirectory, FILE_NAME);
+        csvWriter = new CSVWriter(new BufferedWriter(new FileWriter(indexFile)));
+        csvWriter.writeNext(HEADER);
+        csvWriter.flush();
+    }
+
+    /**
+     * Append an archive to the index.
+     *
+     * @param id        The id of the archive, i.e., {@code fileArchive} or {@code consoleArchive}.
+     * @param path      The relative path of the archived file, or an empty string for console archives.
+     * @param timestamp The timestamp of the archive.
+     * @param offset    The offset of the archive in the archive file in bytes.
+     * @param length    The length of the archive in bytes.
+     */
+    public synchronized void append(String id, String path, long timestamp, long offset, long length) {
+        if (isClosed) {
+            return;
+        }
+        String[] row = {id, path, String.valueOf(timestamp), String.valueOf(offset), String.valueOf(length)};
+        rows.add(row);
+        csvWriter.writeNext(row);
+        try {
+            csvWriter.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Close the index and rewrite it sorted by {@code id}, {@code path}, {@code timestamp} and {@code offset}.
+     */
+    public synchronized void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        csvWriter.close();
+        rows.sort(Comparator.<String[], String>comparing(row -> row[0])
+                .thenComparing(row -> row[1])
+                .thenComparingLong(row -> Long.parseLong(row[2]))
+                .thenComparingLong(row -> Long.parseLong(row[3])));
+        File sortedFile = new File(indexFile.getParentFile(), FILE_NAME + ".tmp");
+        try (CSVWriter sortedWriter = new CSVWriter(new BufferedWriter(new FileWriter(sortedFile)))) {
+            sortedWriter.writeNext(HEADER);
+            sortedWriter.writeAll(rows);
+        }
+        Files.move(sortedFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
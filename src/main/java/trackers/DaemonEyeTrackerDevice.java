@@ -0,0 +1,143 @@
+package trackers;
+
+import utils.AvailabilityChecker;
+import utils.DeviceCapabilities;
+import utils.PythonDeviceDaemon;
+import utils.SessionClock;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * This class is the eye tracker device that streams the mouse or the Tobii eye tracker from the warm
+ * {@link PythonDeviceDaemon}, so that a tracking session does not start a new Python process, import
+ * {@code tobii_research} and discover the eye tracker again. It is the default device of {@link EyeTracker}.
+ */
+public class DaemonEyeTrackerDevice implements EyeTrackerDevice {
+    /**
+     * The number of round trips to calibrate the clock of the daemon, of which the fastest is used.
+     */
+    private static final int CLOCK_CALIBRATION_ROUNDS = 20;
+    private final String pythonInterpreter;
+    private final boolean isMouse;
+    private String name;
+    private long startCpuTime = -1;
+    private long cpuTime = -1;
+    private long clockUncertainty = -1;
+
+    /**
+     * The constructor of the device.
+     *
+     * @param pythonInterpreter The path of the Python interpreter.
+     * @param isMouse           Whether the mouse is used as the eye tracker.
+     */
+    public DaemonEyeTrackerDevice(String pythonInterpreter, boolean isMouse) {
+        this.pythonInterpreter = pythonInterpreter;
+        this.isMouse = isMouse;
+    }
+
+    /**
+     * Get the name of the device, i.e., {@code Mouse} or the name of the Tobii eye tracker, usually cached by
+     * {@link AvailabilityChecker} when the tracking was started.
+     *
+     * @return The name of the device.
+     */
+    @Override
+    public String getName() {
+        if (name == null) {
+            name = isMouse ? "Mouse" : "Tobii Pro Fusion";
+            if (!isMouse) {
+                try {
+                    DeviceCapabilities capabilities = AvailabilityChecker.getCapabilities(pythonInterpreter);
+                    if (capabilities.isEyeTrackerFound()) {
+                        name = capabilities.getEyeTrackerName();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Calibrate the clock of the daemon against the {@link SessionClock} and start streaming. The capture time of each
+     * sample is converted to the session clock, and replaces the wall-clock timestamp of the daemon.
+     *
+     * @param sampleFrequency The sample frequency in Hz.
+     * @param sampleConsumer  The consumer of the raw data messages.
+     */
+    @Override
+    public void start(double sampleFrequency, Consumer<String> sampleConsumer) throws IOException {
+        PythonDeviceDaemon daemon = PythonDeviceDaemon.getInstance(pythonInterpreter);
+        startCpuTime = daemon.getCpuTime();
+        try {
+            long[] calibration = daemon.calibrateClock(CLOCK_CALIBRATION_ROUNDS);
+            long clockOffset = calibration[0];
+            clockUncertainty = calibration[1];
+            SessionClock clock = SessionClock.getInstance();
+            daemon.startStreaming(isMouse ? "MOUSE" : "TOBII", sampleFrequency,
+                    message -> sampleConsumer.accept(toSessionClock(message, clock, clockOffset)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            PythonDeviceDaemon daemon = PythonDeviceDaemon.getInstance(pythonInterpreter);
+            daemon.stopStreaming();
+            long endCpuTime = daemon.getCpuTime();
+            cpuTime = startCpuTime >= 0 && endCpuTime >= 0 ? endCpuTime - startCpuTime : -1;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public long getClockUncertainty() {
+        return clockUncertainty;
+    }
+
+    /**
+     * Replace the timestamp of a raw data message with the capture time of the sample on the session clock, in
+     * milliseconds and in nanoseconds in the fourth field.
+     *
+     * @param message     The raw data message of the daemon, whose fourth field is the capture time on the clock of the
+     *                    daemon.
+     * @param clock       The session clock.
+     * @param clockOffset The offset from the clock of the daemon to {@link System#nanoTime()}.
+     * @return The raw data message on the session clock, or the message itself if it has no capture time.
+     */
+    static String toSessionClock(String message, SessionClock clock, long clockOffset) {
+        int timestampEnd = message.indexOf("; ");
+        int leftEyeEnd = timestampEnd < 0 ? -1 : message.indexOf("; ", timestampEnd + 2);
+        int rightEyeEnd = leftEyeEnd < 0 ? -1 : message.indexOf("; ", leftEyeEnd + 2);
+        if (rightEyeEnd < 0) {
+            return message;
+        }
+        long epochNanos;
+        try {
+            epochNanos = clock.toEpochNanos(Long.parseLong(message.substring(rightEyeEnd + 2).trim()) + clockOffset);
+        } catch (NumberFormatException e) {
+            return message;
+        }
+        return SessionClock.toMillis(epochNanos) + message.substring(timestampEnd, rightEyeEnd) + "; " + epochNanos;
+    }
+
+    /**
+     * Get the CPU time used by the daemon during the session.
+     *
+     * @return The CPU time in nanoseconds, or -1 if it is unknown.
+     */
+    @Override
+    public long getCpuTime() {
+        return cpuTime;
+    }
+}
@@ -0,0 +1,305 @@
+package trackers;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.FoldRegion;
+import com.intellij.openapi.editor.LogicalPosition;
+import com.intellij.openapi.editor.VisualPosition;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.openapi.editor.ex.FoldingListener;
+import com.intellij.openapi.editor.ex.FoldingModelEx;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class caches the geometry of the selected editor in an immutable {@link Snapshot}, so that the gazes can be
+ * mapped to logical positions on the thread that reads the eye tracker, without calling Swing or the editor for each
+ * sample. The snapshot is only rebuilt on the EDT when the visible area, the size or location of the editor, the
+ * folding or the document changes, and is {@code null} until then.
+ * <p>
+ * The snapshot covers the visible lines. A visual line with a collapsed fold region, a soft wrap, an inline inlay or a
+ * character that is not single-width is marked as inexact, and the gazes on it are still mapped by the editor on the
+ * EDT.
+ */
+public class EditorGeometryCache implements Disposable {
+
+    /**
+     * This class is the geometry of an editor at a point of time. It is immutable and can be used on any thread.
+     */
+    public static final class Snapshot {
+        private final Editor editor;
+        private final int editorX, editorY;
+        private final Rectangle visibleArea;
+        private final int originX;
+        private final int lineHeight;
+        private final double charWidth;
+        /**
+         * These variables are, for each visible visual line, its y coordinate, the logical line and column at its
+         * start, and whether the gazes on it can be mapped arithmetically.
+         */
+        private final int[] lineY;
+        private final int[] logicalLine;
+        private final int[] logicalColumn;
+        private final boolean[] isExact;
+
+        private Snapshot(Editor editor, int editorX, int editorY, Rectangle visibleArea, int originX, int lineHeight,
+                         double charWidth, int[] lineY, int[] logicalLine, int[] logicalColumn, boolean[] isExact) {
+            this.editor = editor;
+            this.editorX = editorX;
+            this.editorY = editorY;
+            this.visibleArea = visibleArea;
+            this.originX = originX;
+            this.lineHeight = lineHeight;
+            this.charWidth = charWidth;
+            this.lineY = lineY;
+            this.logicalLine = logicalLine;
+            this.logicalColumn = logicalColumn;
+            this.isExact = isExact;
+        }
+
+        /**
+         * Get the editor of the snapshot.
+         *
+         * @return The editor.
+         */
+        public Editor getEditor() {
+            return editor;
+        }
+
+        /**
+         * Get the point relative to the content component of the editor.
+         *
+         * @param screenX The x coordinate on the screen.
+         * @param screenY The y coordinate on the screen.
+         * @return The relative point.
+         */
+        public Point toRelativePoint(int screenX, int screenY) {
+            return new Point(screenX - editorX, screenY - editorY);
+        }
+
+        /**
+         * Check whether a point on the screen is in the visible area of the editor.
+         *
+         * @param screenX The x coordinate on the screen.
+         * @param screenY The y coordinate on the screen.
+         * @return Whether the point is in the visible area.
+         */
+        public boolean contains(int screenX, int screenY) {
+            int relativeX = screenX - editorX;
+            int relativeY = screenY - editorY;
+            return (relativeX - visibleArea.x) >= 0 && (relativeY - visibleArea.y) >= 0
+                    && (relativeX - visibleArea.x) <= visibleArea.width && (relativeY - visibleArea.y) <= visibleArea.height;
+        }
+
+        /**
+         * Map a point on the screen to a logical position arithmetically, as {@link Editor#xyToLogicalPosition} does.
+         *
+         * @param screenX The x coordinate on the screen.
+         * @param screenY The y coordinate on the screen.
+         * @return The logical position, or {@code null} if the point is on an inexact line or outside the cached lines,
+         * in which case it must be mapped by the editor.
+         */
+        public LogicalPosition getLogicalPosition(int screenX, int screenY) {
+            int relativeY = screenY - editorY;
+            int low = 0;
+            int high = lineY.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (lineY[mid] <= relativeY) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            // the point is above the first line, below the last line or on a block inlay between two lines
+            if (high < 0 || !isExact[high] || relativeY >= lineY[high] + lineHeight) {
+                return null;
+            }
+            int column = (int) Math.round((screenX - editorX - originX) / charWidth);
+            return new LogicalPosition(logicalLine[high], logicalColumn[high] + Math.max(0, column));
+        }
+    }
+
+    private volatile Snapshot snapshot;
+    private Editor editor;
+    private Disposable editorDisposable;
+    private Window window;
+    private final AtomicBoolean isRefreshScheduled = new AtomicBoolean(false);
+    private final ComponentAdapter componentListener = new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+            invalidate();
+        }
+
+        @Override
+        public void componentMoved(ComponentEvent e) {
+            invalidate();
+        }
+    };
+
+    /**
+     * Get the current snapshot. It can be called on any thread.
+     *
+     * @return The snapshot, or {@code null} if there is no editor or the snapshot is being rebuilt.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Set the editor to cache, and listen to its changes. It must be called on the EDT.
+     *
+     * @param newEditor The editor, or {@code null} to stop caching.
+     */
+    public void setEditor(Editor newEditor) {
+        if (newEditor == editor) {
+            return;
+        }
+        detach();
+        editor = newEditor;
+        if (editor == null) {
+            return;
+        }
+        editorDisposable = Disposer.newDisposable("CodeGRITS editor geometry");
+        editor.getScrollingModel().addVisibleAreaListener(e -> invalidate(), editorDisposable);
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void documentChanged(@NotNull DocumentEvent event) {
+                invalidate();
+            }
+        }, editorDisposable);
+        if (editor.getFoldingModel() instanceof FoldingModelEx foldingModel) {
+            foldingModel.addListener(new FoldingListener() {
+                @Override
+                public void onFoldProcessingEnd() {
+                    invalidate();
+                }
+            }, editorDisposable);
+        }
+        editor.getComponent().addComponentListener(componentListener);
+        window = SwingUtilities.getWindowAncestor(editor.getComponent());
+        if (window != null) {
+            window.addComponentListener(componentListener);
+        }
+        refresh();
+    }
+
+    /**
+     * Drop the snapshot and rebuild it on the EDT. Several invalidations before the rebuild are coalesced.
+     */
+    public void invalidate() {
+        snapshot = null;
+        if (isRefreshScheduled.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().invokeLater(() -> {
+                isRefreshScheduled.set(false);
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * Rebuild the snapshot from the editor. It must be called on the EDT.
+     */
+    private void refresh() {
+        if (editor == null || editor.isDisposed()) {
+            snapshot = null;
+            return;
+        }
+        Point location;
+        try {
+            location = editor.getContentComponent().getLocationOnScreen();
+        } catch (IllegalComponentStateException e) {
+            snapshot = null;
+            return;
+        }
+        Rectangle visibleArea = editor.getScrollingModel().getVisibleArea();
+        int lineHeight = editor.getLineHeight();
+        Point origin = editor.logicalPositionToXY(new LogicalPosition(0, 0));
+        Point nextColumn = editor.logicalPositionToXY(new LogicalPosition(0, 1));
+        Document document = editor.getDocument();
+        CharSequence text = document.getImmutableCharSequence();
+
+        int firstVisualLine = editor.yToVisualLine(visibleArea.y);
+        int lastVisualLine = editor.yToVisualLine(visibleArea.y + visibleArea.height);
+        int lineCount = Math.max(0, lastVisualLine - firstVisualLine + 1);
+        int[] lineY = new int[lineCount];
+        int[] logicalLine = new int[lineCount];
+        int[] logicalColumn = new int[lineCount];
+        boolean[] isExact = new boolean[lineCount];
+        FoldRegion[] foldRegions = editor.getFoldingModel().getAllFoldRegions();
+        for (int i = 0; i < lineCount; i++) {
+            int visualLine = firstVisualLine + i;
+            lineY[i] = editor.visualLineToY(visualLine);
+            LogicalPosition start = editor.visualToLogicalPosition(new VisualPosition(visualLine, 0));
+            logicalLine[i] = start.line;
+            logicalColumn[i] = start.column;
+            if (start.line >= document.getLineCount()) {
+                // the virtual space after the last line
+                isExact[i] = true;
+                continue;
+            }
+            int startOffset = document.getLineStartOffset(start.line);
+            int endOffset = document.getLineEndOffset(start.line);
+            isExact[i] = start.column == 0
+                    && !hasCollapsedFoldRegion(foldRegions, startOffset, endOffset)
+                    && editor.getSoftWrapModel().getSoftWrapsForRange(startOffset, endOffset).isEmpty()
+                    && editor.getInlayModel().getInlineElementsInRange(startOffset, endOffset).isEmpty()
+                    && isSingleWidth(text, startOffset, endOffset);
+        }
+        snapshot = new Snapshot(editor, location.x, location.y, visibleArea, origin.x, lineHeight,
+                Math.max(1, nextColumn.x - origin.x), lineY, logicalLine, logicalColumn, isExact);
+    }
+
+    private static boolean hasCollapsedFoldRegion(FoldRegion[] foldRegions, int startOffset, int endOffset) {
+        for (FoldRegion foldRegion : foldRegions) {
+            if (!foldRegion.isExpanded() && foldRegion.getStartOffset() <= endOffset && foldRegion.getEndOffset() >= startOffset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether all the characters of a range are printable ASCII or tabs, i.e., have the width of a column in a
+     * monospaced font.
+     */
+    private static boolean isSingleWidth(CharSequence text, int startOffset, int endOffset) {
+        for (int i = startOffset; i < endOffset; i++) {
+            char c = text.charAt(i);
+            if ((c < ' ' && c != '\t') || c > '~') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void detach() {
+        snapshot = null;
+        if (editorDisposable != null) {
+            Disposer.dispose(editorDisposable);
+            editorDisposable = null;
+        }
+        if (editor != null) {
+            editor.getComponent().removeComponentListener(componentListener);
+        }
+        if (window != null) {
+            window.removeComponentListener(componentListener);
+            window = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        detach();
+        editor = null;
+    }
+}
@@ -0,0 +1,128 @@
+package trackers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a bounded, lock-free, multi-producer single-consumer ring buffer of preallocated
+ * {@link TrackingEvent} records. Producers (the listeners on the EDT, the action callbacks, and the timer thread)
+ * claim a record, fill it and publish it; a single consumer thread polls the records in order and releases them.
+ * <p>
+ * Each slot carries a sequence number: a slot at position {@code p} is free when its sequence is {@code p}, and
+ * published when its sequence is {@code p + 1}. Producers reserve positions with a CAS on the tail. When the buffer
+ * is full, the event is dropped and counted instead of blocking the producer.
+ */
+public class EventRingBuffer {
+    private final TrackingEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    /**
+     * This variable is the position of the next record to consume. It is only accessed by the consumer thread.
+     */
+    private long head = 0;
+
+    /**
+     * The constructor of the ring buffer.
+     *
+     * @param capacity The capacity of the ring buffer, rounded up to a power of two.
+     */
+    public EventRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new TrackingEvent[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new TrackingEvent();
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Claim a free record. The record must be filled and then passed to {@link #publish(TrackingEvent)}.
+     *
+     * @return The claimed record, or {@code null} if the buffer is full and the event is dropped.
+     */
+    public TrackingEvent claim() {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    TrackingEvent event = slots[index];
+                    event.position = position;
+                    return event;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                droppedEvents.incrementAndGet();
+                return null;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Publish a claimed record to the consumer.
+     *
+     * @param event The record returned by {@link #claim()}.
+     */
+    public void publish(TrackingEvent event) {
+        sequences.setRelease((int) event.position & mask, event.position + 1);
+    }
+
+    /**
+     * Get the next published record. This method must only be called by the consumer thread, and the record must be
+     * passed to {@link #release(TrackingEvent)} once consumed.
+     *
+     * @return The next record, or {@code null} if it is not published yet.
+     */
+    public TrackingEvent poll() {
+        int index = (int) head & mask;
+        if (sequences.getAcquire(index) != head + 1) {
+            return null;
+        }
+        return slots[index];
+    }
+
+    /**
+     * Release the record returned by {@link #poll()}, so that it can be claimed again by the producers.
+     *
+     * @param event The consumed record.
+     */
+    public void release(TrackingEvent event) {
+        event.clear();
+        sequences.setRelease((int) head & mask, head + slots.length);
+        head++;
+    }
+
+    /**
+     * Whether all the claimed records have been consumed. This method must only be called by the consumer thread.
+     *
+     * @return {@code true} if the buffer is empty.
+     */
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    /**
+     * Get the number of events dropped because the buffer was full.
+     *
+     * @return The number of dropped events.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Get the capacity of the ring buffer.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+}
@@ -1,15 +1,20 @@
 package trackers;
 
+import api.AsyncEventSink;
+import api.EventDispatcher;
+import api.EventSink;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.LogicalPosition;
 import com.intellij.openapi.editor.event.VisibleAreaListener;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
 import com.intellij.openapi.fileEditor.FileEditorManagerListener;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
@@ -18,16 +23,15 @@ import org.jetbrains.annotations.NotNull;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import utils.RelativePathGetter;
+import utils.SessionClock;
 import utils.XMLWriter;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 import java.awt.*;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.util.Locale;
 import java.util.function.Consumer;
 
 /**
@@ -48,6 +52,18 @@ public class EyeTracker implements Disposable {
     Element root = eyeTracking.createElement("eye_tracking");
     Element setting = eyeTracking.createElement("setting");
     Element gazes = eyeTracking.createElement("gazes");
+    Element fixations = eyeTracking.createElement("fixations");
+    Element saccades = eyeTracking.createElement("saccades");
+    /**
+     * This variable contains the geometry of the editor over time, recorded with the
+     * {@link GazeResolutionPolicy#DEFERRED} policy to map the gazes after the session.
+     */
+    Element editorGeometries = eyeTracking.createElement("editor_geometries");
+    /**
+     * This variable is the cached geometry of the editor, used to map the gazes to logical positions on the thread that
+     * reads the eye tracker instead of the EDT.
+     */
+    final EditorGeometryCache geometryCache = new EditorGeometryCache();
     /**
      * This variable indicates whether the tracking is started.
      */
@@ -56,12 +72,51 @@ public class EyeTracker implements Disposable {
     String projectPath = "", filePath = "";
     PsiElement lastElement = null;
     Rectangle visibleArea = null;
-    Process pythonProcess;
-    Thread pythonOutputThread;
+    /**
+     * This variable is the eye tracker device. If it is not set, a {@link DaemonEyeTrackerDevice} is created for the
+     * mouse or the Tobii eye tracker according to the {@code deviceIndex}.
+     */
+    EyeTrackerDevice device;
+    long deviceStartNanos;
     String pythonInterpreter = "";
-    String pythonScriptTobii;
-    String pythonScriptMouse;
     int deviceIndex = 0;
+    /**
+     * This variable is the policy for mapping the gazes to the source code.
+     */
+    GazeResolutionPolicy gazeResolutionPolicy = GazeResolutionPolicy.ALL;
+    /**
+     * This variable is N for the {@link GazeResolutionPolicy#EVERY_NTH} policy, or 0 to derive it from the sample
+     * frequency so that about {@link #AUTO_RESOLUTION_FREQUENCY} gazes are mapped per second.
+     */
+    int gazeResolutionInterval = 0;
+    /**
+     * The number of gazes mapped per second by the {@link GazeResolutionPolicy#EVERY_NTH} policy when N is automatic.
+     */
+    static final double AUTO_RESOLUTION_FREQUENCY = 10;
+    long validSampleCount = 0;
+    /**
+     * This variable is the last mapped logical position, file and AST leaf, used by the
+     * {@link GazeResolutionPolicy#ON_CHANGE} policy. They are only accessed on the EDT.
+     */
+    LogicalPosition lastLogicalPosition = null;
+    String lastMappedFilePath = null;
+    String lastToken = "", lastType = "";
+    /**
+     * This variable is the online fixation detector. With the {@link GazeResolutionPolicy#FIXATIONS} policy, only the
+     * detected fixations are mapped to the source code, instead of every gaze sample.
+     */
+    FixationDetector fixationDetector = new FixationDetector(FixationDetector.DEFAULT_DISPERSION_THRESHOLD,
+            FixationDetector.DEFAULT_MIN_DURATION, FixationDetector.DEFAULT_MAX_GAP, new FixationDetector.Listener() {
+        @Override
+        public void onFixation(long startTimestamp, long endTimestamp, double x, double y, int sampleCount) {
+            handleFixation(startTimestamp, endTimestamp, x, y, sampleCount);
+        }
+
+        @Override
+        public void onSaccade(long startTimestamp, long endTimestamp, double fromX, double fromY, double toX, double toY) {
+            handleSaccade(startTimestamp, endTimestamp, fromX, fromY, toX, toY);
+        }
+    });
 
     /**
      * This variable indicates whether the real-time data is transmitting.
@@ -71,6 +126,16 @@ public class EyeTracker implements Disposable {
      * This variable is the handler for eye tracking data.
      */
     private Consumer<Element> eyeTrackerDataHandler;
+    /**
+     * This variable is the dispatcher of the gaze, fixation and saccade elements to the sinks, e.g., the real-time data
+     * handler and the preview. The elements are persisted in the XML document as soon as they are created, since the
+     * location and the AST structure of the fixations are appended to them later on the EDT.
+     */
+    private final EventDispatcher eventDispatcher = new EventDispatcher(EventSink.Source.EYE);
+    /**
+     * This variable is the asynchronous sink of {@link #eyeTrackerDataHandler} during the tracking.
+     */
+    private AsyncEventSink realTimeSink;
 
     /**
      * This is the default constructor.
@@ -80,6 +145,10 @@ public class EyeTracker implements Disposable {
         eyeTracking.appendChild(root);
         root.appendChild(setting);
         root.appendChild(gazes);
+        root.appendChild(fixations);
+        root.appendChild(saccades);
+        root.appendChild(editorGeometries);
+        Disposer.register(this, geometryCache);
 
         Dimension size = Toolkit.getDefaultToolkit().getScreenSize();
         screenWidth = size.getWidth();
@@ -94,6 +163,10 @@ public class EyeTracker implements Disposable {
                     visibleArea = editor.getScrollingModel().getVisibleArea();
                 }
                 filePath = file.getPath();
+                if (isTracking) {
+                    geometryCache.setEditor(editor);
+                }
+                recordEditorGeometry();
             }
 
             @Override
@@ -105,6 +178,10 @@ public class EyeTracker implements Disposable {
                         visibleArea = editor.getScrollingModel().getVisibleArea();
                     }
                     filePath = event.getNewFile().getPath();
+                    if (isTracking) {
+                        geometryCache.setEditor(editor);
+                    }
+                    recordEditorGeometry();
                 }
             }
         });
@@ -127,14 +204,53 @@ public class EyeTracker implements Disposable {
         }
         this.pythonInterpreter = pythonInterpreter;
         this.sampleFrequency = sampleFrequency;
-        setPythonScriptMouse();
-        setPythonScriptTobii();
     }
 
     /**
      * The listener for the visible area used for filtering the eye tracking data.
      */
-    VisibleAreaListener visibleAreaListener = e -> visibleArea = e.getNewRectangle();
+    VisibleAreaListener visibleAreaListener = e -> {
+        visibleArea = e.getNewRectangle();
+        if (e.getEditor() == editor) {
+            recordEditorGeometry();
+        }
+    };
+
+    /**
+     * This method records the geometry of the current editor in an {@code <editor_geometry>} element, i.e., where it is
+     * on the screen, its visible area and the size of its characters, so that the gazes can be mapped to the archived
+     * files after the session. It is only used with the {@link GazeResolutionPolicy#DEFERRED} policy and must be
+     * called on the EDT.
+     */
+    void recordEditorGeometry() {
+        if (gazeResolutionPolicy != GazeResolutionPolicy.DEFERRED || !isTracking || editor == null) {
+            return;
+        }
+        Point editorLocation;
+        try {
+            editorLocation = editor.getContentComponent().getLocationOnScreen();
+        } catch (IllegalComponentStateException e) {
+            return;
+        }
+        Rectangle area = editor.getScrollingModel().getVisibleArea();
+        Point origin = editor.logicalPositionToXY(new LogicalPosition(0, 0));
+        Point nextColumn = editor.logicalPositionToXY(new LogicalPosition(0, 1));
+        Element geometry = eyeTracking.createElement("editor_geometry");
+        geometry.setAttribute("timestamp", String.valueOf(SessionClock.getInstance().currentTimeMillis()));
+        geometry.setAttribute("path", RelativePathGetter.getRelativePath(filePath, projectPath));
+        geometry.setAttribute("editor_x", String.valueOf(editorLocation.x));
+        geometry.setAttribute("editor_y", String.valueOf(editorLocation.y));
+        geometry.setAttribute("visible_x", String.valueOf(area.x));
+        geometry.setAttribute("visible_y", String.valueOf(area.y));
+        geometry.setAttribute("visible_width", String.valueOf(area.width));
+        geometry.setAttribute("visible_height", String.valueOf(area.height));
+        geometry.setAttribute("origin_x", String.valueOf(origin.x));
+        geometry.setAttribute("origin_y", String.valueOf(origin.y));
+        geometry.setAttribute("line_height", String.valueOf(editor.getLineHeight()));
+        geometry.setAttribute("char_width", String.valueOf(Math.max(1, nextColumn.x - origin.x)));
+        geometry.setAttribute("tab_size", String.valueOf(editor.getSettings().getTabSize(editor.getProject())));
+        editorGeometries.appendChild(geometry);
+    }
 
     /**
      * This method starts the eye tracking.
@@ -144,23 +260,41 @@ public class EyeTracker implements Disposable {
      */
     public void startTracking(Project project) throws IOException {
         isTracking = true;
+        if (isRealTimeDataTransmitting && eyeTrackerDataHandler != null) {
+            realTimeSink = new AsyncEventSink("Eye Real-time", EventSink.of(EventSink.Source.EYE, eyeTrackerDataHandler),
+                    4096, AsyncEventSink.OverflowPolicy.DROP_OLDEST);
+            eventDispatcher.addSink(realTimeSink);
+        }
         psiDocumentManager = PsiDocumentManager.getInstance(project);
         editor = FileEditorManager.getInstance(project).getSelectedTextEditor();
         if (editor != null) {
             editor.getScrollingModel().addVisibleAreaListener(visibleAreaListener);
             visibleArea = editor.getScrollingModel().getVisibleArea();
         }
+        geometryCache.setEditor(editor);
         VirtualFile[] virtualFiles = FileEditorManager.getInstance(project).getSelectedFiles();
         if (virtualFiles.length > 0) {
             filePath = virtualFiles[0].getPath();
         }
-        if (deviceIndex == 0) {
-            setting.setAttribute("eye_tracker", "Mouse");
-        } else {
-            setting.setAttribute("eye_tracker", "Tobii Pro Fusion");
+        if (device == null) {
+            device = new DaemonEyeTrackerDevice(pythonInterpreter, deviceIndex == 0);
         }
+        setting.setAttribute("eye_tracker", device.getName());
         setting.setAttribute("sample_frequency", String.valueOf(sampleFrequency));
+        setting.setAttribute("fixation_dispersion_threshold", String.valueOf(FixationDetector.DEFAULT_DISPERSION_THRESHOLD));
+        setting.setAttribute("fixation_min_duration", String.valueOf(FixationDetector.DEFAULT_MIN_DURATION));
+        setting.setAttribute("gaze_resolution_policy", gazeResolutionPolicy.name());
+        if (gazeResolutionPolicy == GazeResolutionPolicy.EVERY_NTH) {
+            setting.setAttribute("gaze_resolution_interval", String.valueOf(getEffectiveResolutionInterval()));
+        }
+        setting.setAttribute("screen_width", String.valueOf((int) screenWidth));
+        setting.setAttribute("screen_height", String.valueOf((int) screenHeight));
+        setting.setAttribute("clock_anchor", String.valueOf(SessionClock.getInstance().getAnchorEpochMillis()));
+        recordEditorGeometry();
         track();
+        if (device.getClockUncertainty() >= 0) {
+            setting.setAttribute("clock_uncertainty_ns", String.valueOf(device.getClockUncertainty()));
+        }
     }
 
     /**
@@ -170,16 +304,48 @@ public class EyeTracker implements Disposable {
      */
     public void stopTracking() throws TransformerException {
         isTracking = false;
-        pythonOutputThread.interrupt();
-        pythonProcess.destroy();
+        device.stop();
+        recordDeviceCpuUsage();
+        synchronized (fixationDetector) {
+            fixationDetector.flush();
+        }
+        if (realTimeSink != null) {
+            eventDispatcher.removeSink(realTimeSink);
+            realTimeSink.close();
+            realTimeSink = null;
+        }
+        ApplicationManager.getApplication().invokeLater(() -> geometryCache.setEditor(null));
         XMLWriter.writeToXML(eyeTracking, dataOutputPath + "/eye_tracking.xml");
     }
 
+    /**
+     * This method records the CPU time used by the eye tracker device in the {@code <setting>}, as the CPU time and the
+     * percentage of one core over the session, so that a device that competes with the IDE and the screen recorder for
+     * the CPU can be noticed.
+     */
+    void recordDeviceCpuUsage() {
+        long cpuTime = device.getCpuTime();
+        long wallTime = System.nanoTime() - deviceStartNanos;
+        if (cpuTime < 0 || wallTime <= 0) {
+            return;
+        }
+        double cpuUsage = 100.0 * cpuTime / wallTime;
+        setting.setAttribute("device_cpu_time", String.valueOf(cpuTime / 1_000_000));
+        setting.setAttribute("device_cpu_usage", String.format(Locale.ROOT, "%.1f", cpuUsage));
+        if (cpuUsage > 50) {
+            System.err.println("Eye tracker device " + device.getName() + " used " + Math.round(cpuUsage)
+                    + "% of a CPU core");
+        }
+    }
+
     /**
      * This method pauses the eye tracking. The {@code isTracking} variable will be set to {@code false}.
      */
     public void pauseTracking() {
         isTracking = false;
+        synchronized (fixationDetector) {
+            fixationDetector.flush();
+        }
     }
 
     /**
@@ -187,10 +353,15 @@ public class EyeTracker implements Disposable {
      */
     public void resumeTracking() {
         isTracking = true;
+        ApplicationManager.getApplication().invokeLater(() -> {
+            geometryCache.setEditor(editor);
+            recordEditorGeometry();
+        });
     }
 
     /**
-     * This method processes the raw data message from the eye tracker. It will filter the data, map the data to the specific source code element, and perform the upward traversal in the AST.
+     * This method processes the raw data message from the eye tracker. It will filter the data, pass the valid gaze
+     * points to the fixation detector, and map the gaze to the source code according to the gaze resolution policy.
      *
      * @param message The raw data.
      */
@@ -198,6 +369,7 @@ public class EyeTracker implements Disposable {
         if (!isTracking) return;
         Element gaze = getRawGazeElement(message);
         gazes.appendChild(gaze);
+        long timestamp = Long.parseLong(gaze.getAttribute("timestamp"));
 
         String leftInfo = message.split("; ")[1];
         String leftGazePointX = leftInfo.split(", ")[0];
@@ -209,87 +381,205 @@ public class EyeTracker implements Disposable {
 
         if (leftGazePointX.equals("nan") || leftGazePointY.equals("nan") || rightGazePointX.equals("nan") || rightGazePointY.equals("nan")) {
             gaze.setAttribute("remark", "Fail | Invalid Gaze Point");
+            synchronized (fixationDetector) {
+                fixationDetector.addInvalidSample(timestamp);
+            }
+            handleElement(gaze);
             return;
         }
 
-        if (editor == null) {
-            gaze.setAttribute("remark", "Fail | No Editor");
+        int eyeX = (int) ((Double.parseDouble(leftGazePointX) + Double.parseDouble(rightGazePointX)) / 2 * screenWidth);
+        int eyeY = (int) ((Double.parseDouble(leftGazePointY) + Double.parseDouble(rightGazePointY)) / 2 * screenHeight);
+        long sampleIndex = validSampleCount++;
+        switch (gazeResolutionPolicy) {
+            case ALL -> mapToSourceCode(gaze, eyeX, eyeY, false);
+            case ON_CHANGE -> mapToSourceCode(gaze, eyeX, eyeY, true);
+            case EVERY_NTH -> {
+                if (sampleIndex % getEffectiveResolutionInterval() == 0) {
+                    mapToSourceCode(gaze, eyeX, eyeY, false);
+                } else {
+                    handleElement(gaze);
+                }
+            }
+            default -> handleElement(gaze);
+        }
+        synchronized (fixationDetector) {
+            fixationDetector.addSample(timestamp, eyeX, eyeY);
+        }
+    }
+
+    /**
+     * This method records a fixation detected by the fixation detector and maps its centroid to the source code.
+     *
+     * @param startTimestamp The timestamp of the first sample of the fixation.
+     * @param endTimestamp   The timestamp of the last sample of the fixation.
+     * @param x              The x coordinate of the centroid on the screen.
+     * @param y              The y coordinate of the centroid on the screen.
+     * @param sampleCount    The number of samples of the fixation.
+     */
+    void handleFixation(long startTimestamp, long endTimestamp, double x, double y, int sampleCount) {
+        Element fixation = eyeTracking.createElement("fixation");
+        fixation.setAttribute("start_timestamp", String.valueOf(startTimestamp));
+        fixation.setAttribute("end_timestamp", String.valueOf(endTimestamp));
+        fixation.setAttribute("duration", String.valueOf(endTimestamp - startTimestamp));
+        fixation.setAttribute("x", String.valueOf(Math.round(x)));
+        fixation.setAttribute("y", String.valueOf(Math.round(y)));
+        fixation.setAttribute("sample_count", String.valueOf(sampleCount));
+        fixations.appendChild(fixation);
+        if (gazeResolutionPolicy == GazeResolutionPolicy.FIXATIONS) {
+            mapToSourceCode(fixation, (int) Math.round(x), (int) Math.round(y), false);
+        } else {
+            handleElement(fixation);
+        }
+    }
+
+    /**
+     * This method records a saccade between two fixations detected by the fixation detector.
+     *
+     * @param startTimestamp The timestamp of the last sample of the previous fixation.
+     * @param endTimestamp   The timestamp of the first sample of the new fixation.
+     * @param fromX          The x coordinate of the centroid of the previous fixation.
+     * @param fromY          The y coordinate of the centroid of the previous fixation.
+     * @param toX            The x coordinate of the first sample of the new fixation.
+     * @param toY            The y coordinate of the first sample of the new fixation.
+     */
+    void handleSaccade(long startTimestamp, long endTimestamp, double fromX, double fromY, double toX, double toY) {
+        Element saccade = eyeTracking.createElement("saccade");
+        saccade.setAttribute("start_timestamp", String.valueOf(startTimestamp));
+        saccade.setAttribute("end_timestamp", String.valueOf(endTimestamp));
+        saccade.setAttribute("duration", String.valueOf(endTimestamp - startTimestamp));
+        saccade.setAttribute("from_x", String.valueOf(Math.round(fromX)));
+        saccade.setAttribute("from_y", String.valueOf(Math.round(fromY)));
+        saccade.setAttribute("to_x", String.valueOf(Math.round(toX)));
+        saccade.setAttribute("to_y", String.valueOf(Math.round(toY)));
+        saccade.setAttribute("amplitude", String.valueOf(Math.round(Math.hypot(toX - fromX, toY - fromY))));
+        saccades.appendChild(saccade);
+        handleElement(saccade);
+    }
+
+    /**
+     * This method maps a point on the screen to the source code element under it, and performs the upward traversal in
+     * the AST. The point is mapped to a logical position with the cached editor geometry on the calling thread when
+     * possible, and with the editor on the EDT otherwise. The {@code <location>} and {@code <ast_structure>} children
+     * are appended to the element on the EDT, and the element is then dispatched. If the point cannot be mapped, the
+     * {@code remark} attribute is set instead.
+     *
+     * @param element         The element to which the location is appended.
+     * @param eyeX            The x coordinate on the screen.
+     * @param eyeY            The y coordinate on the screen.
+     * @param isSkipUnchanged Whether the PSI lookup is skipped if the logical position has not changed since the last
+     *                        mapping, in which case the last AST leaf is recorded with the remark
+     *                        {@code Same (Last Successful AST)}.
+     */
+    void mapToSourceCode(Element element, int eyeX, int eyeY, boolean isSkipUnchanged) {
+        EditorGeometryCache.Snapshot snapshot = geometryCache.getSnapshot();
+        if (snapshot != null && snapshot.getEditor() == editor) {
+            if (!snapshot.contains(eyeX, eyeY)) {
+                element.setAttribute("remark", "Fail | Out of Text Editor");
+                handleElement(element);
+                return;
+            }
+            LogicalPosition logicalPosition = snapshot.getLogicalPosition(eyeX, eyeY);
+            Point relativePoint = snapshot.toRelativePoint(eyeX, eyeY);
+            Editor snapshotEditor = snapshot.getEditor();
+            EventQueue.invokeLater(() -> resolveToSourceCode(element, eyeX, eyeY, snapshotEditor,
+                    logicalPosition != null ? logicalPosition : snapshotEditor.xyToLogicalPosition(relativePoint),
+                    isSkipUnchanged));
             return;
         }
 
-        int eyeX = (int) ((Double.parseDouble(leftGazePointX) + Double.parseDouble(rightGazePointX)) / 2 * screenWidth);
-        int eyeY = (int) ((Double.parseDouble(leftGazePointY) + Double.parseDouble(rightGazePointY)) / 2 * screenHeight);
+        // the geometry is not cached yet, e.g., right after the editor has changed
+        if (editor == null) {
+            element.setAttribute("remark", "Fail | No Editor");
+            handleElement(element);
+            return;
+        }
 
         int editorX, editorY;
         try {
             editorX = editor.getContentComponent().getLocationOnScreen().x;
             editorY = editor.getContentComponent().getLocationOnScreen().y;
         } catch (IllegalComponentStateException e) {
-            gaze.setAttribute("remark", "Fail | No Editor");
+            element.setAttribute("remark", "Fail | No Editor");
+            handleElement(element);
             return;
         }
         int relativeX = eyeX - editorX;
         int relativeY = eyeY - editorY;
         if ((relativeX - visibleArea.x) < 0 || (relativeY - visibleArea.y) < 0
                 || (relativeX - visibleArea.x) > visibleArea.width || (relativeY - visibleArea.y) > visibleArea.height) {
-            gaze.setAttribute("remark", "Fail | Out of Text Editor");
+            element.setAttribute("remark", "Fail | Out of Text Editor");
+            handleElement(element);
             return;
         }
 
         Point relativePoint = new Point(relativeX, relativeY);
+        Editor currentEditor = editor;
+        EventQueue.invokeLater(() -> resolveToSourceCode(element, eyeX, eyeY, currentEditor,
+                currentEditor.xyToLogicalPosition(relativePoint), isSkipUnchanged));
+    }
 
-        EventQueue.invokeLater(new Thread(() -> {
-            PsiFile psiFile = psiDocumentManager.getPsiFile(editor.getDocument());
-            LogicalPosition logicalPosition = editor.xyToLogicalPosition(relativePoint);
-            if (psiFile != null) {
-                int offset = editor.logicalPositionToOffset(logicalPosition);
-                PsiElement psiElement = psiFile.findElementAt(offset);
-                Element location = eyeTracking.createElement("location");
-                location.setAttribute("x", String.valueOf(eyeX));
-                location.setAttribute("y", String.valueOf(eyeY));
-                location.setAttribute("line", String.valueOf(logicalPosition.line));
-                location.setAttribute("column", String.valueOf(logicalPosition.column));
-                location.setAttribute("path", RelativePathGetter.getRelativePath(filePath, projectPath));
-                gaze.appendChild(location);
-                Element aSTStructure = ApplicationManager.getApplication().runReadAction(
-                        (Computable<Element>) () -> getASTStructureElement(psiElement)
-                );
-                gaze.appendChild(aSTStructure);
-                lastElement = psiElement;
-//                System.out.println(gaze.getAttribute("timestamp") + " " + System.currentTimeMillis());
-                handleElement(gaze);
-            }
-        }));
+    /**
+     * This method appends the {@code <location>} and {@code <ast_structure>} of a logical position to the element, and
+     * dispatches it. It must be called on the EDT.
+     *
+     * @param element         The element to which the location is appended.
+     * @param eyeX            The x coordinate on the screen.
+     * @param eyeY            The y coordinate on the screen.
+     * @param mappedEditor    The editor in which the point is.
+     * @param logicalPosition The logical position of the point.
+     * @param isSkipUnchanged Whether the PSI lookup is skipped if the logical position has not changed.
+     */
+    private void resolveToSourceCode(Element element, int eyeX, int eyeY, Editor mappedEditor,
+                                     LogicalPosition logicalPosition, boolean isSkipUnchanged) {
+        if (mappedEditor.isDisposed()) {
+            element.setAttribute("remark", "Fail | No Editor");
+            handleElement(element);
+            return;
+        }
+        PsiFile psiFile = psiDocumentManager.getPsiFile(mappedEditor.getDocument());
+        VirtualFile mappedFile = FileDocumentManager.getInstance().getFile(mappedEditor.getDocument());
+        if (psiFile == null || mappedFile == null) {
+            return;
+        }
+        String mappedFilePath = mappedFile.getPath();
+        Element location = eyeTracking.createElement("location");
+        location.setAttribute("x", String.valueOf(eyeX));
+        location.setAttribute("y", String.valueOf(eyeY));
+        location.setAttribute("line", String.valueOf(logicalPosition.line));
+        location.setAttribute("column", String.valueOf(logicalPosition.column));
+        location.setAttribute("path", RelativePathGetter.getRelativePath(mappedFilePath, projectPath));
+        element.appendChild(location);
+        if (isSkipUnchanged && logicalPosition.equals(lastLogicalPosition) && mappedFilePath.equals(lastMappedFilePath)) {
+            Element aSTStructure = eyeTracking.createElement("ast_structure");
+            aSTStructure.setAttribute("token", lastToken);
+            aSTStructure.setAttribute("type", lastType);
+            aSTStructure.setAttribute("remark", "Same (Last Successful AST)");
+            element.appendChild(aSTStructure);
+            handleElement(element);
+            return;
+        }
+        int offset = mappedEditor.logicalPositionToOffset(logicalPosition);
+        PsiElement psiElement = psiFile.findElementAt(offset);
+        Element aSTStructure = ApplicationManager.getApplication().runReadAction(
+                (Computable<Element>) () -> getASTStructureElement(psiElement, mappedEditor)
+        );
+        element.appendChild(aSTStructure);
+        lastElement = psiElement;
+        lastLogicalPosition = logicalPosition;
+        lastMappedFilePath = mappedFilePath;
+        lastToken = aSTStructure.getAttribute("token");
+        lastType = aSTStructure.getAttribute("type");
+        handleElement(element);
     }
 
     /**
-     * This method builds the Python process and redirects the output to the {@code pythonOutputThread} to process.
+     * This method starts the eye tracker device, whose raw data is passed to {@link #processRawData(String)}.
      */
     public void track() {
         try {
-            ProcessBuilder processBuilder;
-            if (deviceIndex == 0) {
-                processBuilder = new ProcessBuilder(pythonInterpreter, "-c", pythonScriptMouse);
-            } else {
-                processBuilder = new ProcessBuilder(pythonInterpreter, "-c", pythonScriptTobii);
-            }
-            processBuilder.redirectErrorStream(true);
-            pythonProcess = processBuilder.start();
-
-            pythonOutputThread = new Thread(() -> {
-                try (InputStream inputStream = pythonProcess.getInputStream();
-                     InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-                     BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
-                    String line;
-                    while ((line = bufferedReader.readLine()) != null) {
-                        processRawData(line);
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            });
-
-            pythonOutputThread.start();
+            deviceStartNanos = System.nanoTime();
+            device.start(sampleFrequency, this::processRawData);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -316,6 +606,17 @@ public class EyeTracker implements Disposable {
      */
     public Element getRawGazeElement(String message) {
         String timestamp = message.split("; ")[0];
+        String timestampNanos;
+        if (message.split("; ").length > 3) {
+            // the capture time on the session clock, which the device matches to the timestamp in milliseconds
+            timestampNanos = message.split("; ")[3].trim();
+        } else {
+            // the arrival time, e.g., for a device without the capture time; the timestamp of the device is on its own
+            // clock, so it is replaced to keep both fields on the session clock
+            long arrivalNanos = SessionClock.getInstance().nanoTime();
+            timestampNanos = String.valueOf(arrivalNanos);
+            timestamp = String.valueOf(SessionClock.toMillis(arrivalNanos));
+        }
 
         String leftInfo = message.split("; ")[1];
         String leftGazePointX = leftInfo.split(", ")[0];
@@ -339,6 +640,7 @@ public class EyeTracker implements Disposable {
         rawGaze.appendChild(rightEye);
 
         rawGaze.setAttribute("timestamp", timestamp);
+        rawGaze.setAttribute("timestamp_ns", timestampNanos);
 
         leftEye.setAttribute("gaze_point_x", leftGazePointX);
         leftEye.setAttribute("gaze_point_y", leftGazePointY);
@@ -358,10 +660,11 @@ public class EyeTracker implements Disposable {
     /**
      * This method gets the AST structure element from the PSI element. It performs the upward traversal in the AST.
      *
-     * @param psiElement The PSI element.
+     * @param psiElement   The PSI element.
+     * @param mappedEditor The editor of the PSI element, in which the positions of the levels are computed.
      * @return The AST structure element.
      */
-    public Element getASTStructureElement(PsiElement psiElement) {
+    public Element getASTStructureElement(PsiElement psiElement, Editor mappedEditor) {
         String token = "", type = "";
         Element aSTStructure = eyeTracking.createElement("ast_structure");
         if (psiElement != null && psiElement.getTextLength() > 0) {
@@ -382,8 +685,8 @@ public class EyeTracker implements Disposable {
             Element level = eyeTracking.createElement("level");
             aSTStructure.appendChild(level);
             level.setAttribute("tag", String.valueOf(parent));
-            LogicalPosition startLogicalPosition = editor.offsetToLogicalPosition(parent.getTextRange().getStartOffset());
-            LogicalPosition endLogicalPosition = editor.offsetToLogicalPosition(parent.getTextRange().getEndOffset());
+            LogicalPosition startLogicalPosition = mappedEditor.offsetToLogicalPosition(parent.getTextRange().getStartOffset());
+            LogicalPosition endLogicalPosition = mappedEditor.offsetToLogicalPosition(parent.getTextRange().getEndOffset());
             level.setAttribute("start", startLogicalPosition.line + ":" + startLogicalPosition.column);
             level.setAttribute("end", endLogicalPosition.line + ":" + endLogicalPosition.column);
             parent = parent.getParent();
@@ -392,16 +695,21 @@ public class EyeTracker implements Disposable {
     }
 
     /**
-     * This method handles the element.
+     * This method dispatches the element to the sinks.
      *
      * @param element The element.
      */
     private void handleElement(Element element) {
-        if (eyeTrackerDataHandler != null && isRealTimeDataTransmitting) {
-            eyeTrackerDataHandler.accept(element);
-        } else if (eyeTrackerDataHandler == null) {
-//            throw new RuntimeException("eyeTrackerDataHandler is null");
-        }
+        eventDispatcher.dispatch(element);
+    }
+
+    /**
+     * This method returns the dispatcher of the gaze elements, on which sinks can be registered.
+     *
+     * @return The event dispatcher.
+     */
+    public EventDispatcher getEventDispatcher() {
+        return eventDispatcher;
     }
 
     public static void setIsRealTimeDataTransmitting(boolean isRealTimeDataTransmitting) {
@@ -425,68 +733,37 @@ public class EyeTracker implements Disposable {
     }
 
     /**
-     * This method sets the Python script for the Tobii eye tracker.
-     */
-    public void setPythonScriptTobii() {
-        pythonScriptTobii = "freq = " + sampleFrequency + "\n" + """
-                import tobii_research as tr
-                import time
-                import sys
-                import math
-                
-                
-                def gaze_data_callback(gaze_data):
-                    message = '{}; {}, {}, {}, {}, {}; {}, {}, {}, {}, {}'.format(
-                        round(time.time() * 1000),
-                        gaze_data['left_gaze_point_on_display_area'][0],
-                        gaze_data['left_gaze_point_on_display_area'][1],
-                        gaze_data['left_gaze_point_validity'],
-                        gaze_data['left_pupil_diameter'],
-                        gaze_data['left_pupil_validity'],
-                        gaze_data['right_gaze_point_on_display_area'][0],
-                        gaze_data['right_gaze_point_on_display_area'][1],
-                        gaze_data['right_gaze_point_validity'],
-                        gaze_data['right_pupil_diameter'],
-                        gaze_data['right_pupil_validity']
-                    )
-                    print(message)
-                    sys.stdout.flush()
-                
-                found_eyetrackers = tr.find_all_eyetrackers()
-                my_eyetracker = found_eyetrackers[0]
-                my_eyetracker.set_gaze_output_frequency(freq)
-                my_eyetracker.subscribe_to(tr.EYETRACKER_GAZE_DATA, gaze_data_callback, as_dictionary=True)
-                start_time = time.time()
-                while time.time() - start_time <= math.inf:
-                    continue
-                """;
+     * This method sets the policy for mapping the gazes to the source code.
+     *
+     * @param gazeResolutionPolicy   The policy.
+     * @param gazeResolutionInterval N for the {@link GazeResolutionPolicy#EVERY_NTH} policy, or 0 to derive it from the
+     *                               sample frequency.
+     */
+    public void setGazeResolutionPolicy(GazeResolutionPolicy gazeResolutionPolicy, int gazeResolutionInterval) {
+        this.gazeResolutionPolicy = gazeResolutionPolicy;
+        this.gazeResolutionInterval = Math.max(0, gazeResolutionInterval);
+    }
+
+    /**
+     * This method returns N for the {@link GazeResolutionPolicy#EVERY_NTH} policy.
+     *
+     * @return N, derived from the sample frequency if it is automatic.
+     */
+    int getEffectiveResolutionInterval() {
+        if (gazeResolutionInterval > 0) {
+            return gazeResolutionInterval;
+        }
+        return (int) Math.max(1, Math.round(sampleFrequency / AUTO_RESOLUTION_FREQUENCY));
     }
 
     /**
-     * This method sets the Python script for the mouse eye tracker.
-     */
-    public void setPythonScriptMouse() {
-        pythonScriptMouse = "freq = " + sampleFrequency + "\n" + """
-                import pyautogui
-                from screeninfo import get_monitors
-                import time
-                import sys
-                import math
-                
-                width, height = get_monitors()[0].width, get_monitors()[0].height
-                start_time = time.time()
-                last_time = start_time
-                
-                while time.time() - start_time <= math.inf:
-                    current_time = time.time()
-                    if current_time - last_time > 1 / freq:
-                        message = f'{round(current_time * 1000)}; ' \\
-                                  f'{pyautogui.position().x / width}, {pyautogui.position().y / height}, 1.0, 0, 0.0; ' \\
-                                  f'{pyautogui.position().x / width}, {pyautogui.position().y / height}, 1.0, 0, 0.0'
-                        print(message)
-                        last_time = current_time
-                        sys.stdout.flush()
-                """;
+     * This method sets the eye tracker device, e.g., a {@link SimulatedEyeTrackerDevice}, instead of the Python device
+     * selected by the device index.
+     *
+     * @param device The eye tracker device.
+     */
+    public void setDevice(EyeTrackerDevice device) {
+        this.device = device;
     }
 
     /**
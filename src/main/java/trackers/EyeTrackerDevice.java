@@ -0,0 +1,60 @@
+package trackers;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * This interface is the driver of an eye tracker device used by {@link EyeTracker}. A device produces gaze samples as
+ * raw data messages in the format of {@link EyeTracker#processRawData(String)}, i.e.,
+ * {@code timestamp; left_x, left_y, left_validity, left_pupil_diameter, left_pupil_validity; right_x, right_y, ...},
+ * where the gaze points are normalized to the screen and {@code nan} marks an invalid gaze point. A message may have a
+ * fourth field, the time at which the sample was captured on the {@link utils.SessionClock} in nanoseconds, in which
+ * case the timestamp in the first field should be the same time in milliseconds. Without it, both times are the time at
+ * which the message arrived in {@link EyeTracker}, and the timestamp in the first field is ignored.
+ * <p>
+ * {@link DaemonEyeTrackerDevice} streams the mouse or a Tobii Pro eye tracker from the warm Python device daemon, and
+ * {@link SimulatedEyeTrackerDevice} generates the samples in the JVM.
+ */
+public interface EyeTrackerDevice {
+
+    /**
+     * Get the name of the device, recorded in the {@code eye_tracker} attribute of {@code <setting>}.
+     *
+     * @return The name of the device.
+     */
+    String getName();
+
+    /**
+     * Start producing the gaze samples. The samples are passed to the consumer on a thread of the device, one at a
+     * time.
+     *
+     * @param sampleFrequency The sample frequency in Hz.
+     * @param sampleConsumer  The consumer of the raw data messages.
+     */
+    void start(double sampleFrequency, Consumer<String> sampleConsumer) throws IOException;
+
+    /**
+     * Stop producing the gaze samples.
+     */
+    void stop();
+
+    /**
+     * Get the CPU time used by the device to produce the samples, e.g., by its process or thread. It is still available
+     * after the device has stopped.
+     *
+     * @return The CPU time in nanoseconds, or -1 if it is unknown.
+     */
+    default long getCpuTime() {
+        return -1;
+    }
+
+    /**
+     * Get the uncertainty of the capture times of the samples on the {@link utils.SessionClock}, e.g., of the
+     * calibration of the clock of another process.
+     *
+     * @return The uncertainty in nanoseconds, 0 if the samples are timed by the session clock, or -1 if it is unknown.
+     */
+    default long getClockUncertainty() {
+        return -1;
+    }
+}
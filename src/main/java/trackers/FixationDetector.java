@@ -0,0 +1,351 @@
+package trackers;
+
+/**
+ * This class is a streaming fixation detector based on the dispersion-threshold identification (I-DT) algorithm. Gaze
+ * samples are added one by one; a fixation is a run of samples lasting at least the minimum duration whose dispersion,
+ * i.e., {@code (max x - min x) + (max y - min y)}, stays within the dispersion threshold. The samples between two
+ * fixations are reported as a saccade.
+ * <p>
+ * The samples of the window that is not yet a fixation are kept in primitive ring buffers, which grow with the sample
+ * rate so that the window can always span the minimum duration. The bounds of the window are kept in monotonic
+ * deques, so that each sample is added and removed in amortized constant time. Once the window is a fixation, only its
+ * running sums and bounds are kept, so that a long fixation costs no memory. This class is not thread-safe; the
+ * samples must be added by a single thread.
+ */
+public class FixationDetector {
+
+    /**
+     * The listener of the detected fixations and saccades.
+     */
+    public interface Listener {
+        /**
+         * Called when a fixation ends.
+         *
+         * @param startTimestamp The timestamp of the first sample of the fixation.
+         * @param endTimestamp   The timestamp of the last sample of the fixation.
+         * @param x              The x coordinate of the centroid of the fixation.
+         * @param y              The y coordinate of the centroid of the fixation.
+         * @param sampleCount    The number of samples of the fixation.
+         */
+        void onFixation(long startTimestamp, long endTimestamp, double x, double y, int sampleCount);
+
+        /**
+         * Called when a fixation starts after a previous fixation, for the movement between them.
+         *
+         * @param startTimestamp The timestamp of the last sample of the previous fixation.
+         * @param endTimestamp   The timestamp of the first sample of the new fixation.
+         * @param fromX          The x coordinate of the centroid of the previous fixation.
+         * @param fromY          The y coordinate of the centroid of the previous fixation.
+         * @param toX            The x coordinate of the first sample of the new fixation.
+         * @param toY            The y coordinate of the first sample of the new fixation.
+         */
+        void onSaccade(long startTimestamp, long endTimestamp, double fromX, double fromY, double toX, double toY);
+    }
+
+    /**
+     * The default dispersion threshold in pixels, i.e., about 1 degree of visual angle at a usual viewing distance.
+     */
+    public static final double DEFAULT_DISPERSION_THRESHOLD = 50;
+    /**
+     * The default minimum duration of a fixation in milliseconds.
+     */
+    public static final long DEFAULT_MIN_DURATION = 100;
+    /**
+     * The default maximum gap in milliseconds of invalid samples within a fixation, e.g., a blink.
+     */
+    public static final long DEFAULT_MAX_GAP = 75;
+    /**
+     * The initial capacity of the window, i.e., the minimum duration at 2.5 kHz. It doubles when a higher sample rate
+     * needs more samples to span the minimum duration.
+     */
+    private static final int INITIAL_WINDOW_CAPACITY = 256;
+
+    /**
+     * A deque of samples whose values are monotonic, so that its first value is the minimum (or the maximum) of the
+     * window, updated in amortized constant time as samples enter and leave the window.
+     */
+    private static final class MonotonicDeque {
+        private final boolean isMax;
+        private long[] sequences = new long[INITIAL_WINDOW_CAPACITY];
+        private double[] values = new double[INITIAL_WINDOW_CAPACITY];
+        private int head = 0;
+        private int size = 0;
+
+        MonotonicDeque(boolean isMax) {
+            this.isMax = isMax;
+        }
+
+        /**
+         * Add the newest sample, dropping the samples that can no longer be the extremum of the window.
+         */
+        void add(long sequence, double value) {
+            while (size > 0) {
+                double last = values[(head + size - 1) & (values.length - 1)];
+                if (isMax ? last > value : last < value) {
+                    break;
+                }
+                size--;
+            }
+            if (size == values.length) {
+                grow();
+            }
+            int i = (head + size) & (values.length - 1);
+            sequences[i] = sequence;
+            values[i] = value;
+            size++;
+        }
+
+        /**
+         * Remove the samples older than the given sample, which left the window.
+         */
+        void removeBefore(long sequence) {
+            while (size > 0 && sequences[head] < sequence) {
+                head = (head + 1) & (values.length - 1);
+                size--;
+            }
+        }
+
+        double first() {
+            return values[head];
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private void grow() {
+            long[] newSequences = new long[sequences.length * 2];
+            double[] newValues = new double[values.length * 2];
+            for (int k = 0; k < size; k++) {
+                int i = (head + k) & (values.length - 1);
+                newSequences[k] = sequences[i];
+                newValues[k] = values[i];
+            }
+            sequences = newSequences;
+            values = newValues;
+            head = 0;
+        }
+    }
+
+    private final double dispersionThreshold;
+    private final long minDuration;
+    private final long maxGap;
+    private final Listener listener;
+
+    /**
+     * This variable is the window of candidate samples, before it lasts the minimum duration. The capacity is a power
+     * of two.
+     */
+    private long[] windowTimestamps = new long[INITIAL_WINDOW_CAPACITY];
+    private double[] windowX = new double[INITIAL_WINDOW_CAPACITY];
+    private double[] windowY = new double[INITIAL_WINDOW_CAPACITY];
+    private int windowHead = 0;
+    private int windowSize = 0;
+    /**
+     * This variable is the sequence number of the oldest sample of the window, which identifies the samples in the
+     * deques of the window bounds.
+     */
+    private long windowStart = 0;
+    private final MonotonicDeque windowMinX = new MonotonicDeque(false);
+    private final MonotonicDeque windowMaxX = new MonotonicDeque(true);
+    private final MonotonicDeque windowMinY = new MonotonicDeque(false);
+    private final MonotonicDeque windowMaxY = new MonotonicDeque(true);
+
+    /**
+     * This variable indicates whether the current window is a fixation.
+     */
+    private boolean isFixation = false;
+    private long fixationStart;
+    private long fixationEnd;
+    private double sumX, sumY;
+    private double minX, maxX, minY, maxY;
+    private int fixationSize;
+    private long lastValidTimestamp = Long.MIN_VALUE;
+
+    private boolean hasPreviousFixation = false;
+    private long previousFixationEnd;
+    private double previousFixationX, previousFixationY;
+
+    /**
+     * The constructor of the fixation detector.
+     *
+     * @param dispersionThreshold The dispersion threshold in pixels.
+     * @param minDuration         The minimum duration of a fixation in milliseconds.
+     * @param maxGap              The maximum gap of invalid samples within a fixation in milliseconds.
+     * @param listener            The listener of the fixations and saccades.
+     */
+    public FixationDetector(double dispersionThreshold, long minDuration, long maxGap, Listener listener) {
+        this.dispersionThreshold = dispersionThreshold;
+        this.minDuration = minDuration;
+        this.maxGap = maxGap;
+        this.listener = listener;
+    }
+
+    /**
+     * Add a valid gaze sample.
+     *
+     * @param timestamp The timestamp of the sample.
+     * @param x         The x coordinate of the sample in pixels.
+     * @param y         The y coordinate of the sample in pixels.
+     */
+    public void addSample(long timestamp, double x, double y) {
+        if (lastValidTimestamp != Long.MIN_VALUE && timestamp - lastValidTimestamp > maxGap) {
+            endWindow();
+        }
+        lastValidTimestamp = timestamp;
+        if (isFixation) {
+            double dispersion = (Math.max(maxX, x) - Math.min(minX, x)) + (Math.max(maxY, y) - Math.min(minY, y));
+            if (dispersion <= dispersionThreshold) {
+                addToFixation(timestamp, x, y);
+                return;
+            }
+            endFixation();
+        }
+        addToWindow(timestamp, x, y);
+        // shrink the window from the oldest sample until it is within the dispersion threshold
+        while (windowSize > 1 && getWindowDispersion() > dispersionThreshold) {
+            removeOldestFromWindow();
+        }
+        if (windowTimestamps[index(windowSize - 1)] - windowTimestamps[windowHead] >= minDuration) {
+            startFixation();
+        }
+    }
+
+    /**
+     * Add an invalid gaze sample, e.g., during a blink. A fixation ends if the gap of invalid samples is longer than
+     * the maximum gap.
+     *
+     * @param timestamp The timestamp of the sample.
+     */
+    public void addInvalidSample(long timestamp) {
+        if (lastValidTimestamp != Long.MIN_VALUE && timestamp - lastValidTimestamp > maxGap) {
+            endWindow();
+        }
+    }
+
+    /**
+     * End the current fixation, if any, and clear the window. It is called when the tracking stops or pauses, so the
+     * next fixation is not preceded by a saccade.
+     */
+    public void flush() {
+        endWindow();
+        hasPreviousFixation = false;
+    }
+
+    /**
+     * End the current fixation, if any, and clear the window.
+     */
+    private void endWindow() {
+        if (isFixation) {
+            endFixation();
+        }
+        clearWindow();
+        lastValidTimestamp = Long.MIN_VALUE;
+    }
+
+    private void addToWindow(long timestamp, double x, double y) {
+        if (windowSize == windowTimestamps.length) {
+            growWindow();
+        }
+        int i = index(windowSize);
+        windowTimestamps[i] = timestamp;
+        windowX[i] = x;
+        windowY[i] = y;
+        long sequence = windowStart + windowSize;
+        windowMinX.add(sequence, x);
+        windowMaxX.add(sequence, x);
+        windowMinY.add(sequence, y);
+        windowMaxY.add(sequence, y);
+        windowSize++;
+    }
+
+    private void removeOldestFromWindow() {
+        windowHead = index(1);
+        windowSize--;
+        windowStart++;
+        windowMinX.removeBefore(windowStart);
+        windowMaxX.removeBefore(windowStart);
+        windowMinY.removeBefore(windowStart);
+        windowMaxY.removeBefore(windowStart);
+    }
+
+    private void clearWindow() {
+        windowStart += windowSize;
+        windowSize = 0;
+        windowMinX.clear();
+        windowMaxX.clear();
+        windowMinY.clear();
+        windowMaxY.clear();
+    }
+
+    /**
+     * Double the capacity of the window, for sample rates at which the minimum duration spans more samples.
+     */
+    private void growWindow() {
+        long[] timestamps = new long[windowTimestamps.length * 2];
+        double[] xs = new double[windowX.length * 2];
+        double[] ys = new double[windowY.length * 2];
+        for (int k = 0; k < windowSize; k++) {
+            int i = index(k);
+            timestamps[k] = windowTimestamps[i];
+            xs[k] = windowX[i];
+            ys[k] = windowY[i];
+        }
+        windowTimestamps = timestamps;
+        windowX = xs;
+        windowY = ys;
+        windowHead = 0;
+    }
+
+    private double getWindowDispersion() {
+        return (windowMaxX.first() - windowMinX.first()) + (windowMaxY.first() - windowMinY.first());
+    }
+
+    /**
+     * Turn the window into a fixation.
+     */
+    private void startFixation() {
+        isFixation = true;
+        fixationStart = windowTimestamps[windowHead];
+        fixationSize = 0;
+        sumX = sumY = 0;
+        minX = minY = Double.MAX_VALUE;
+        maxX = maxY = -Double.MAX_VALUE;
+        if (hasPreviousFixation) {
+            listener.onSaccade(previousFixationEnd, fixationStart, previousFixationX, previousFixationY,
+                    windowX[windowHead], windowY[windowHead]);
+        }
+        for (int k = 0; k < windowSize; k++) {
+            int i = index(k);
+            addToFixation(windowTimestamps[i], windowX[i], windowY[i]);
+        }
+        clearWindow();
+    }
+
+    private void addToFixation(long timestamp, double x, double y) {
+        fixationEnd = timestamp;
+        sumX += x;
+        sumY += y;
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+        fixationSize++;
+    }
+
+    private void endFixation() {
+        isFixation = false;
+        double x = sumX / fixationSize;
+        double y = sumY / fixationSize;
+        hasPreviousFixation = true;
+        previousFixationEnd = fixationEnd;
+        previousFixationX = x;
+        previousFixationY = y;
+        listener.onFixation(fixationStart, fixationEnd, x, y, fixationSize);
+    }
+
+    private int index(int k) {
+        return (windowHead + k) & (windowTimestamps.length - 1);
+    }
+}
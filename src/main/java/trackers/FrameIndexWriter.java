@@ -0,0 +1,133 @@
+package trackers;
+
+import com.opencsv.CSVWriter;
+import utils.SessionClock;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * This class writes the frame timing of the screen recorder as it is produced. Every row is appended to
+ * {@code frames.csv} and flushed periodically, so that memory does not grow with the session and a crash loses at most
+ * the rows since the last flush. The rows carry the timestamp on the {@link SessionClock} in milliseconds and, in the
+ * last column {@code timestamp_ns}, in nanoseconds. Optionally, every frame is also appended to a binary index
+ * {@code frames.idx} which can be memory-mapped by readers instead of parsing the CSV file.
+ * <p>
+ * The binary index starts with a 16-byte header: the magic number {@link #MAGIC}, the format {@link #VERSION}, the
+ * record size {@link #RECORD_SIZE} and a reserved {@code int}. It is followed by one 16-byte record per frame: the
+ * capture timestamp in milliseconds ({@code long}), the frame number ({@code int}) and the clip number ({@code int}).
+ * All values are big-endian.
+ */
+public class FrameIndexWriter {
+    /**
+     * The magic number of the binary frame index ("CGFI").
+     */
+    public static final int MAGIC = 0x43474649;
+    /**
+     * The version of the binary frame index format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The size of the header of the binary frame index in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+    /**
+     * The size of a record of the binary frame index in bytes.
+     */
+    public static final int RECORD_SIZE = 16;
+
+    private final CSVWriter csvWriter;
+    private final DataOutputStream indexStream;
+    private final int flushEveryRows;
+    private final long flushIntervalMillis;
+    private int rowsSinceFlush = 0;
+    private long lastFlush = System.currentTimeMillis();
+
+    /**
+     * The constructor of the frame index writer. The CSV header is written immediately.
+     *
+     * @param csvFile             The {@code frames.csv} file.
+     * @param indexFile           The binary index file, or {@code null} to write the CSV file only.
+     * @param flushEveryRows      The maximum number of rows written between two flushes.
+     * @param flushIntervalMillis The maximum time between two flushes in milliseconds.
+     */
+    public FrameIndexWriter(File csvFile, File indexFile, int flushEveryRows, long flushIntervalMillis) throws IOException {
+        this.flushEveryRows = flushEveryRows;
+        this.flushIntervalMillis = flushIntervalMillis;
+        csvWriter = new CSVWriter(new BufferedWriter(new FileWriter(csvFile)));
+        csvWriter.writeNext(new String[]{"timestamp", "frame_number", "clip_number", "timestamp_ns"});
+        if (indexFile != null) {
+            indexStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+            indexStream.writeInt(MAGIC);
+            indexStream.writeInt(VERSION);
+            indexStream.writeInt(RECORD_SIZE);
+            indexStream.writeInt(0);
+        } else {
+            indexStream = null;
+        }
+        flush();
+    }
+
+    /**
+     * Append a marker row (e.g., {@code Start}, {@code Pause}, {@code Resume}, {@code Stop}) to the CSV file.
+     *
+     * @param timestampNanos The timestamp of the marker in nanoseconds.
+     * @param marker         The marker.
+     * @param clipNumber     The clip number.
+     */
+    public synchronized void writeMarker(long timestampNanos, String marker, int clipNumber) throws IOException {
+        csvWriter.writeNext(new String[]{String.valueOf(SessionClock.toMillis(timestampNanos)), marker,
+                String.valueOf(clipNumber), String.valueOf(timestampNanos)});
+        // markers are rare and delimit clips, so they are always flushed
+        flush();
+    }
+
+    /**
+     * Append a frame to the CSV file and to the binary index.
+     *
+     * @param timestampNanos The capture timestamp of the frame in nanoseconds.
+     * @param frameNumber    The frame number within the clip.
+     * @param clipNumber     The clip number.
+     */
+    public synchronized void writeFrame(long timestampNanos, int frameNumber, int clipNumber) throws IOException {
+        long timestamp = SessionClock.toMillis(timestampNanos);
+        csvWriter.writeNext(new String[]{String.valueOf(timestamp), String.valueOf(frameNumber), String.valueOf(clipNumber),
+                String.valueOf(timestampNanos)});
+        if (indexStream != null) {
+            indexStream.writeLong(timestamp);
+            indexStream.writeInt(frameNumber);
+            indexStream.writeInt(clipNumber);
+        }
+        rowsSinceFlush++;
+        if (rowsSinceFlush >= flushEveryRows || System.currentTimeMillis() - lastFlush >= flushIntervalMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Flush the CSV file and the binary index.
+     */
+    public synchronized void flush() throws IOException {
+        csvWriter.flush();
+        if (indexStream != null) {
+            indexStream.flush();
+        }
+        rowsSinceFlush = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * Flush and close the CSV file and the binary index.
+     */
+    public synchronized void close() throws IOException {
+        csvWriter.close();
+        if (indexStream != null) {
+            indexStream.close();
+        }
+    }
+}
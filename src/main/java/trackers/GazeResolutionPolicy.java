@@ -0,0 +1,57 @@
+package trackers;
+
+/**
+ * This enum is the policy of the eye tracker for mapping gazes to the source code, i.e., to a {@code <location>} and an
+ * {@code <ast_structure>}. Each mapping takes a PSI lookup and an AST traversal on the EDT, so the policy trades the
+ * detail of the gaze data against the load on the IDE.
+ */
+public enum GazeResolutionPolicy {
+    /**
+     * Map every valid gaze sample.
+     */
+    ALL("All Samples"),
+    /**
+     * Only map the detected fixations; the gaze samples are recorded raw.
+     */
+    FIXATIONS("Fixations Only"),
+    /**
+     * Map every Nth valid gaze sample.
+     */
+    EVERY_NTH("Every Nth Sample"),
+    /**
+     * Map every valid gaze sample, but skip the PSI lookup and AST traversal when the logical position is the same as
+     * for the previous sample.
+     */
+    ON_CHANGE("On Position Change"),
+    /**
+     * Map no gaze during the tracking; the gazes and fixations are recorded raw together with the geometry of the
+     * editor, and are mapped after the session by {@link utils.GazeBackfiller} from the archived files.
+     */
+    DEFERRED("Deferred (Offline Backfill)");
+
+    private final String displayName;
+
+    GazeResolutionPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Get the policy with the given name, e.g., from the configuration.
+     *
+     * @param name The name of the policy.
+     * @return The policy, or {@link #ALL} if the name is missing or unknown.
+     */
+    public static GazeResolutionPolicy fromName(String name) {
+        for (GazeResolutionPolicy policy : values()) {
+            if (policy.name().equals(name)) {
+                return policy;
+            }
+        }
+        return ALL;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -22,14 +22,19 @@ import java.io.*;
 import java.util.Arrays;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.*;
 import com.intellij.openapi.actionSystem.ex.AnActionListener;
 import com.intellij.openapi.application.ApplicationManager;
+import api.AsyncEventSink;
+import api.EventDispatcher;
+import api.EventSink;
 import org.jetbrains.annotations.NotNull;
 import utils.RelativePathGetter;
+import utils.SessionClock;
 import utils.XMLWriter;
 
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -56,6 +61,29 @@ public final class IDETracker implements Disposable {
     String projectPath = "";
     String dataOutputPath = "";
     String lastSelectionInfo = "";
+    /**
+     * This variable is the writer of the archive index {@code archives/index.csv}.
+     */
+    ArchiveIndexWriter archiveIndexWriter;
+    /**
+     * This variable is the ring buffer into which all the listeners publish their events. The events are turned into
+     * XML elements and archives by a single consumer thread, so that the listeners never touch the DOM.
+     */
+    private final EventRingBuffer eventBuffer = new EventRingBuffer(8192);
+    /**
+     * This variable is the consumer thread of {@link #eventBuffer}.
+     */
+    private Thread eventConsumer;
+    private volatile boolean isConsuming = false;
+    /**
+     * This variable is the minimum time between two activity reports to the screen recorder, in nanoseconds. It is
+     * far below the idle timeout of the adaptive frame rate.
+     */
+    private static final long ACTIVITY_REPORT_INTERVAL = 100_000_000L;
+    /**
+     * This variable is the time of the last activity report to the screen recorder.
+     */
+    private volatile long lastActivityReport = System.nanoTime() - ACTIVITY_REPORT_INTERVAL;
 
     /**
      * This variable indicates whether the data is transmitted in real time.
@@ -65,6 +93,15 @@ public final class IDETracker implements Disposable {
      * This variable is the handler for the IDE tracker data.
      */
     private Consumer<Element> ideTrackerDataHandler;
+    /**
+     * This variable is the dispatcher of the tracking events to the sinks, e.g., the XML document, the real-time data
+     * handler, and the preview.
+     */
+    private final EventDispatcher eventDispatcher = new EventDispatcher(EventSink.Source.IDE);
+    /**
+     * This variable is the asynchronous sink of {@link #ideTrackerDataHandler} during the tracking.
+     */
+    private AsyncEventSink realTimeSink;
 
     /**
      * This variable is the document listener for the IDE tracker. When the document is changed, if the {@code EditorKind} is {@code CONSOLE}, the console output is archived. Otherwise, the {@code changedFilepath} and {@code changedFileText} are updated.
@@ -77,7 +114,7 @@ public final class IDETracker implements Disposable {
             if (EditorFactory.getInstance().getEditors(event.getDocument()).length == 0) return;
             Editor currentEditor = EditorFactory.getInstance().getEditors(event.getDocument())[0];
             if (currentEditor != null && currentEditor.getEditorKind() == EditorKind.CONSOLE) {
-                archiveFile("unknown", String.valueOf(System.currentTimeMillis()),
+                publishArchive("unknown", String.valueOf(SessionClock.getInstance().currentTimeMillis()),
                         "", event.getDocument().getText());
                 return;
             }
@@ -97,26 +134,19 @@ public final class IDETracker implements Disposable {
         @Override
         public void mousePressed(@NotNull EditorMouseEvent e) {
             if (!isTracking) return;
-            Element mouseElement = getMouseElement(e, "mousePressed");
-            mouses.appendChild(mouseElement);
+            publishMouseEvent(e, "mousePressed");
         }
 
         @Override
         public void mouseClicked(@NotNull EditorMouseEvent e) {
             if (!isTracking) return;
-            Element mouseElement = getMouseElement(e, "mouseClicked");
-            mouses.appendChild(mouseElement);
-            handleElement(mouseElement);
-
+            publishMouseEvent(e, "mouseClicked");
         }
 
         @Override
         public void mouseReleased(@NotNull EditorMouseEvent e) {
             if (!isTracking) return;
-            Element mouseElement = getMouseElement(e, "mouseReleased");
-            mouses.appendChild(mouseElement);
-            handleElement(mouseElement);
-
+            publishMouseEvent(e, "mouseReleased");
         }
     };
 
@@ -128,17 +158,13 @@ public final class IDETracker implements Disposable {
         @Override
         public void mouseMoved(@NotNull EditorMouseEvent e) {
             if (!isTracking) return;
-            Element mouseElement = getMouseElement(e, "mouseMoved");
-            mouses.appendChild(mouseElement);
-            handleElement(mouseElement);
+            publishMouseEvent(e, "mouseMoved");
         }
 
         @Override
         public void mouseDragged(@NotNull EditorMouseEvent e) {
             if (!isTracking) return;
-            Element mouseElement = getMouseElement(e, "mouseDragged");
-            mouses.appendChild(mouseElement);
-            handleElement(mouseElement);
+            publishMouseEvent(e, "mouseDragged");
         }
     };
 
@@ -150,16 +176,19 @@ public final class IDETracker implements Disposable {
         @Override
         public void caretPositionChanged(@NotNull CaretEvent e) {
             if (!isTracking) return;
-            Element caretElement = iDETracking.createElement("caret");
-            carets.appendChild(caretElement);
-            caretElement.setAttribute("id", "caretPositionChanged");
-            caretElement.setAttribute("timestamp", String.valueOf(System.currentTimeMillis()));
-            VirtualFile virtualFile = FileDocumentManager.getInstance().getFile(e.getEditor().getDocument());
-            caretElement.setAttribute("path", virtualFile != null ?
-                    RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null);
-            caretElement.setAttribute("line", String.valueOf(e.getNewPosition().line));
-            caretElement.setAttribute("column", String.valueOf(e.getNewPosition().column));
-            handleElement(caretElement);
+            long timestampNanos = SessionClock.getInstance().nanoTime();
+            String path = getRelativePath(e.getEditor().getDocument());
+            LogicalPosition position = e.getNewPosition();
+            // nothing may throw between claim and publish, or the consumer would wait for the slot forever
+            TrackingEvent caretEvent = eventBuffer.claim();
+            if (caretEvent == null) return;
+            caretEvent.setElement("caret");
+            caretEvent.put("id", "caretPositionChanged");
+            caretEvent.putTimestamp(timestampNanos);
+            caretEvent.put("path", path);
+            caretEvent.put("line", String.valueOf(position.line));
+            caretEvent.put("column", String.valueOf(position.column));
+            eventBuffer.publish(caretEvent);
         }
     };
 
@@ -172,28 +201,28 @@ public final class IDETracker implements Disposable {
         public void selectionChanged(@NotNull SelectionEvent e) {
             if (!isTracking) return;
 
-            Element selectionElement = iDETracking.createElement("selection");
-            selectionElement.setAttribute("id", "selectionChanged");
-            selectionElement.setAttribute("timestamp", String.valueOf(System.currentTimeMillis()));
-            VirtualFile virtualFile = FileDocumentManager.getInstance().getFile(e.getEditor().getDocument());
-            selectionElement.setAttribute("path", virtualFile != null ?
-                    RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null);
+            long timestampNanos = SessionClock.getInstance().nanoTime();
+            String path = getRelativePath(e.getEditor().getDocument());
             LogicalPosition startLogicalPos = e.getEditor().offsetToLogicalPosition(e.getNewRange().getStartOffset());
             LogicalPosition endLogicalPos = e.getEditor().offsetToLogicalPosition(e.getNewRange().getEndOffset());
-            selectionElement.setAttribute("start_position", startLogicalPos.line + ":" +
-                    startLogicalPos.column);
-            selectionElement.setAttribute("end_position", endLogicalPos.line + ":" +
-                    endLogicalPos.column);
-            selectionElement.setAttribute("selected_text", e.getEditor().getSelectionModel().getSelectedText());
-
-            String currentSelectionInfo = selectionElement.getAttribute("path") + "-" +
-                    selectionElement.getAttribute("start_position") + "-" +
-                    selectionElement.getAttribute("end_position") + "-" +
-                    selectionElement.getAttribute("selected_text");
+            String startPosition = startLogicalPos.line + ":" + startLogicalPos.column;
+            String endPosition = endLogicalPos.line + ":" + endLogicalPos.column;
+            String selectedText = e.getEditor().getSelectionModel().getSelectedText();
+
+            String currentSelectionInfo = (path != null ? path : "") + "-" + startPosition + "-" + endPosition + "-" +
+                    (selectedText != null ? selectedText : "");
             if (currentSelectionInfo.equals(lastSelectionInfo)) return;
-            selections.appendChild(selectionElement);
             lastSelectionInfo = currentSelectionInfo;
-            handleElement(selectionElement);
+            TrackingEvent selectionEvent = eventBuffer.claim();
+            if (selectionEvent == null) return;
+            selectionEvent.setElement("selection");
+            selectionEvent.put("id", "selectionChanged");
+            selectionEvent.putTimestamp(timestampNanos);
+            selectionEvent.put("path", path);
+            selectionEvent.put("start_position", startPosition);
+            selectionEvent.put("end_position", endPosition);
+            selectionEvent.put("selected_text", selectedText);
+            eventBuffer.publish(selectionEvent);
         }
     };
 
@@ -204,18 +233,23 @@ public final class IDETracker implements Disposable {
     VisibleAreaListener visibleAreaListener = e -> {
         if (!isTracking) return;
         if (e.getEditor().getEditorKind() == EditorKind.MAIN_EDITOR) {
-            VirtualFile virtualFile = FileDocumentManager.getInstance().getFile(e.getEditor().getDocument());
-            Element visibleAreaElement = iDETracking.createElement("visible_area");
-            visibleAreas.appendChild(visibleAreaElement);
-            visibleAreaElement.setAttribute("id", "visibleAreaChanged");
-            visibleAreaElement.setAttribute("timestamp", String.valueOf(System.currentTimeMillis()));
-            visibleAreaElement.setAttribute("path", virtualFile != null ?
-                    RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null);
-            visibleAreaElement.setAttribute("x", String.valueOf(e.getEditor().getScrollingModel().getHorizontalScrollOffset()));
-            visibleAreaElement.setAttribute("y", String.valueOf(e.getEditor().getScrollingModel().getVerticalScrollOffset()));
-            visibleAreaElement.setAttribute("width", String.valueOf(e.getEditor().getScrollingModel().getVisibleArea().width));
-            visibleAreaElement.setAttribute("height", String.valueOf(e.getEditor().getScrollingModel().getVisibleArea().height));
-            handleElement(visibleAreaElement);
+            long timestampNanos = SessionClock.getInstance().nanoTime();
+            String path = getRelativePath(e.getEditor().getDocument());
+            ScrollingModel scrollingModel = e.getEditor().getScrollingModel();
+            int x = scrollingModel.getHorizontalScrollOffset();
+            int y = scrollingModel.getVerticalScrollOffset();
+            Rectangle visibleArea = scrollingModel.getVisibleArea();
+            TrackingEvent visibleAreaEvent = eventBuffer.claim();
+            if (visibleAreaEvent == null) return;
+            visibleAreaEvent.setElement("visible_area");
+            visibleAreaEvent.put("id", "visibleAreaChanged");
+            visibleAreaEvent.putTimestamp(timestampNanos);
+            visibleAreaEvent.put("path", path);
+            visibleAreaEvent.put("x", String.valueOf(x));
+            visibleAreaEvent.put("y", String.valueOf(y));
+            visibleAreaEvent.put("width", String.valueOf(visibleArea.width));
+            visibleAreaEvent.put("height", String.valueOf(visibleArea.height));
+            eventBuffer.publish(visibleAreaEvent);
         }
 
     };
@@ -239,7 +273,7 @@ public final class IDETracker implements Disposable {
         public void run() {
             if (changedFilepath.length() > 0) {
                 if (!isTracking) return;
-                archiveFile(changedFilepath, String.valueOf(System.currentTimeMillis()),
+                publishArchive(changedFilepath, String.valueOf(SessionClock.getInstance().currentTimeMillis()),
                         "contentChanged", changedFileText);
                 changedFilepath = "";
             }
@@ -273,42 +307,55 @@ public final class IDETracker implements Disposable {
         root.appendChild(selections);
         root.appendChild(visibleAreas);
 
+        // the XML document is the first sink of the event stream
+        eventDispatcher.addSink((source, element) -> getParentElement(element.getTagName()).appendChild(element));
+
         ApplicationManager.getApplication().getMessageBus().connect(this).subscribe(
                 AnActionListener.TOPIC, new AnActionListener() {
 
                     @Override
                     public void beforeActionPerformed(@NotNull AnAction action, @NotNull AnActionEvent event) {
                         if (isTracking) {
-                            Element actionElement = iDETracking.createElement("action");
-                            actionElement.setAttribute("id", ActionManager.getInstance().getId(action));
-                            actionElement.setAttribute("timestamp", String.valueOf(System.currentTimeMillis()));
+                            long timestampNanos = SessionClock.getInstance().nanoTime();
+                            String id = ActionManager.getInstance().getId(action);
                             VirtualFile virtualFile = event.getData(PlatformDataKeys.VIRTUAL_FILE);
-                            actionElement.setAttribute("path", virtualFile != null ?
-                                    RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null);
-                            actions.appendChild(actionElement);
-                            handleElement(actionElement);
+                            String path = virtualFile != null ?
+                                    RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null;
+                            TrackingEvent actionEvent = eventBuffer.claim();
+                            if (actionEvent == null) return;
+                            actionEvent.setElement("action");
+                            actionEvent.put("id", id);
+                            actionEvent.putTimestamp(timestampNanos);
+                            actionEvent.put("path", path);
+                            eventBuffer.publish(actionEvent);
                         }
                     }
 
                     @Override
                     public void beforeEditorTyping(char c, @NotNull DataContext dataContext) {
                         if (isTracking) {
-                            Element typingElement = iDETracking.createElement("typing");
-                            typings.appendChild(typingElement);
-                            typingElement.setAttribute("character", String.valueOf(c));
-                            typingElement.setAttribute("timestamp", String.valueOf(System.currentTimeMillis()));
+                            long timestampNanos = SessionClock.getInstance().nanoTime();
                             VirtualFile virtualFile = dataContext.getData(PlatformDataKeys.VIRTUAL_FILE);
-                            typingElement.setAttribute("path", virtualFile != null ?
-                                    RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null);
-
+                            String path = virtualFile != null ?
+                                    RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null;
                             Editor editor = dataContext.getData(CommonDataKeys.EDITOR);
+                            LogicalPosition logicalPos = null;
                             if (editor != null) {
                                 Caret primaryCaret = editor.getCaretModel().getPrimaryCaret();
-                                LogicalPosition logicalPos = primaryCaret.getLogicalPosition();
-                                typingElement.setAttribute("line", String.valueOf(logicalPos.line));
-                                typingElement.setAttribute("column", String.valueOf(logicalPos.column));
+                                logicalPos = primaryCaret.getLogicalPosition();
+                            }
+
+                            TrackingEvent typingEvent = eventBuffer.claim();
+                            if (typingEvent == null) return;
+                            typingEvent.setElement("typing");
+                            typingEvent.put("character", String.valueOf(c));
+                            typingEvent.putTimestamp(timestampNanos);
+                            typingEvent.put("path", path);
+                            if (logicalPos != null) {
+                                typingEvent.put("line", String.valueOf(logicalPos.line));
+                                typingEvent.put("column", String.valueOf(logicalPos.column));
                             }
-                            handleElement(typingElement);
+                            eventBuffer.publish(typingEvent);
                         }
                     }
                 });
@@ -319,54 +366,68 @@ public final class IDETracker implements Disposable {
                     @Override
                     public void fileOpened(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
                         if (isTracking) {
-                            Element fileElement = iDETracking.createElement("file");
-                            files.appendChild(fileElement);
-                            fileElement.setAttribute("id", "fileOpened");
-                            String timestamp = String.valueOf(System.currentTimeMillis());
-                            fileElement.setAttribute("timestamp", timestamp);
-                            fileElement.setAttribute("path",
-                                    RelativePathGetter.getRelativePath(file.getPath(), projectPath));
-                            archiveFile(file.getPath(), timestamp, "fileOpened", null);
-                            handleElement(fileElement);
+                            long timestampNanos = SessionClock.getInstance().nanoTime();
+                            String timestamp = String.valueOf(SessionClock.toMillis(timestampNanos));
+                            String path = RelativePathGetter.getRelativePath(file.getPath(), projectPath);
+                            TrackingEvent fileEvent = eventBuffer.claim();
+                            if (fileEvent != null) {
+                                fileEvent.setElement("file");
+                                fileEvent.put("id", "fileOpened");
+                                fileEvent.putTimestamp(timestampNanos);
+                                fileEvent.put("path", path);
+                                eventBuffer.publish(fileEvent);
+                            }
+                            publishArchive(file.getPath(), timestamp, "fileOpened", null);
                         }
                     }
 
                     @Override
                     public void fileClosed(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
                         if (isTracking) {
-                            Element fileElement = iDETracking.createElement("file");
-                            files.appendChild(fileElement);
-                            fileElement.setAttribute("id", "fileClosed");
-                            String timestamp = String.valueOf(System.currentTimeMillis());
-                            fileElement.setAttribute("timestamp", timestamp);
-                            fileElement.setAttribute("path",
-                                    RelativePathGetter.getRelativePath(file.getPath(), projectPath));
-                            archiveFile(file.getPath(), timestamp, "fileClosed", null);
-                            handleElement(fileElement);
+                            long timestampNanos = SessionClock.getInstance().nanoTime();
+                            String timestamp = String.valueOf(SessionClock.toMillis(timestampNanos));
+                            String path = RelativePathGetter.getRelativePath(file.getPath(), projectPath);
+                            TrackingEvent fileEvent = eventBuffer.claim();
+                            if (fileEvent != null) {
+                                fileEvent.setElement("file");
+                                fileEvent.put("id", "fileClosed");
+                                fileEvent.putTimestamp(timestampNanos);
+                                fileEvent.put("path", path);
+                                eventBuffer.publish(fileEvent);
+                            }
+                            publishArchive(file.getPath(), timestamp, "fileClosed", null);
                         }
                     }
 
                     @Override
                     public void selectionChanged(@NotNull FileEditorManagerEvent event) {
                         if (isTracking) {
-                            Element fileElement = iDETracking.createElement("file");
-                            files.appendChild(fileElement);
-
-                            fileElement.setAttribute("id", "selectionChanged");
-                            fileElement.setAttribute("timestamp", String.valueOf(System.currentTimeMillis()));
+                            long timestampNanos = SessionClock.getInstance().nanoTime();
+                            String oldPath = event.getOldFile() != null ?
+                                    RelativePathGetter.getRelativePath(event.getOldFile().getPath(), projectPath) : null;
+                            String newPath = event.getNewFile() != null ?
+                                    RelativePathGetter.getRelativePath(event.getNewFile().getPath(), projectPath) : null;
+                            TrackingEvent fileEvent = eventBuffer.claim();
+                            if (fileEvent != null) {
+                                fileEvent.setElement("file");
+                                fileEvent.put("id", "selectionChanged");
+                                fileEvent.putTimestamp(timestampNanos);
+                                if (oldPath != null) {
+                                    fileEvent.put("old_path", oldPath);
+                                }
+                                if (newPath != null) {
+                                    fileEvent.put("new_path", newPath);
+                                }
+                                eventBuffer.publish(fileEvent);
+                            }
                             if (event.getOldFile() != null) {
-                                fileElement.setAttribute("old_path",
-                                        RelativePathGetter.getRelativePath(event.getOldFile().getPath(), projectPath));
-                                archiveFile(event.getOldFile().getPath(), String.valueOf(System.currentTimeMillis()),
+                                publishArchive(event.getOldFile().getPath(), String.valueOf(SessionClock.getInstance().currentTimeMillis()),
                                         "selectionChanged | OldFile", null);
                             }
                             if (event.getNewFile() != null) {
-                                fileElement.setAttribute("new_path",
-                                        RelativePathGetter.getRelativePath(event.getNewFile().getPath(), projectPath));
-                                archiveFile(event.getNewFile().getPath(), String.valueOf(System.currentTimeMillis()),
+                                publishArchive(event.getNewFile().getPath(), String.valueOf(SessionClock.getInstance().currentTimeMillis()),
                                         "selectionChanged | NewFile", null);
                             }
-                            handleElement(fileElement);
                         }
                     }
                 });
@@ -390,6 +451,18 @@ public final class IDETracker implements Disposable {
      */
     public void startTracking(Project project) {
         isTracking = true;
+        try {
+            archiveIndexWriter = new ArchiveIndexWriter(new File(dataOutputPath + "/archives"));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (isRealTimeDataTransmitting && ideTrackerDataHandler != null) {
+            realTimeSink = new AsyncEventSink("IDE Real-time", EventSink.of(EventSink.Source.IDE, ideTrackerDataHandler),
+                    4096, AsyncEventSink.OverflowPolicy.DROP_OLDEST);
+            eventDispatcher.addSink(realTimeSink);
+        }
+        startEventConsumer();
+        environment.setAttribute("clock_anchor", String.valueOf(SessionClock.getInstance().getAnchorEpochMillis()));
         environment.setAttribute("project_path", projectPath);
         environment.setAttribute("project_name", projectPath.substring(
                 projectPath.lastIndexOf('/') + 1));
@@ -407,12 +480,126 @@ public final class IDETracker implements Disposable {
         });
         FileEditorManager fileEditorManager = FileEditorManager.getInstance(project);
         for (VirtualFile file : fileEditorManager.getOpenFiles()) {
-            archiveFile(file.getPath(), String.valueOf(System.currentTimeMillis()), "fileOpened", null);
+            publishArchive(file.getPath(), String.valueOf(SessionClock.getInstance().currentTimeMillis()), "fileOpened", null);
+        }
+    }
+
+    /**
+     * This method starts the consumer thread of the event ring buffer.
+     */
+    private void startEventConsumer() {
+        if (eventConsumer != null && eventConsumer.isAlive()) {
+            return;
         }
+        isConsuming = true;
+        eventConsumer = new Thread(this::consumeEvents, "CodeGRITS IDE Event Consumer");
+        eventConsumer.setDaemon(true);
+        eventConsumer.start();
     }
 
     /**
-     * This method sets the handler for the IDE tracker data for real-time data transmission.
+     * This method stops the consumer thread of the event ring buffer after all the published events are consumed.
+     */
+    private void stopEventConsumer() {
+        isConsuming = false;
+        if (eventConsumer == null) {
+            return;
+        }
+        LockSupport.unpark(eventConsumer);
+        try {
+            eventConsumer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (eventConsumer.isAlive()) {
+            System.err.println("IDE tracker: event consumer did not finish within 5 seconds");
+        }
+        // record the data loss in the output, so that it is visible to the researchers
+        environment.setAttribute("dropped_events", String.valueOf(eventBuffer.getDroppedEvents()));
+        eventConsumer = null;
+    }
+
+    /**
+     * This method is the loop of the consumer thread. It is the only place where the tracking DOM and the archives are
+     * written. When the buffer is empty, it spins briefly and then parks for a millisecond.
+     */
+    private void consumeEvents() {
+        int idleRounds = 0;
+        while (true) {
+            TrackingEvent event = eventBuffer.poll();
+            if (event == null) {
+                if (!isConsuming && eventBuffer.isEmpty()) {
+                    break;
+                }
+                LockSupport.parkNanos(idleRounds++ < 100 ? 10_000 : 1_000_000);
+                continue;
+            }
+            idleRounds = 0;
+            try {
+                consumeEvent(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                eventBuffer.release(event);
+            }
+        }
+    }
+
+    /**
+     * This method turns a published event into an XML element, which is dispatched to the sinks, or into an archive.
+     *
+     * @param event The event.
+     */
+    private void consumeEvent(TrackingEvent event) {
+        if (event.getType() == TrackingEvent.Type.ARCHIVE) {
+            archiveFile(event.getArchivePath(), event.getArchiveTimestamp(), event.getArchiveRemark(),
+                    event.getArchiveText());
+            return;
+        }
+        Element element = iDETracking.createElement(event.getTag());
+        for (int i = 0; i < event.getAttributeCount(); i++) {
+            element.setAttribute(event.getAttributeName(i), event.getAttributeValue(i));
+        }
+        handleElement(element);
+    }
+
+    /**
+     * This method returns the parent element of the elements with the given tag.
+     *
+     * @param tag The tag of the element.
+     * @return The parent element.
+     */
+    private Element getParentElement(String tag) {
+        return switch (tag) {
+            case "action" -> actions;
+            case "typing" -> typings;
+            case "file" -> files;
+            case "mouse" -> mouses;
+            case "caret" -> carets;
+            case "selection" -> selections;
+            case "visible_area" -> visibleAreas;
+            default -> throw new IllegalArgumentException("Unknown tracking event: " + tag);
+        };
+    }
+
+    /**
+     * This method publishes an archive request to the event ring buffer.
+     *
+     * @param path      The path of the file.
+     * @param timestamp The timestamp of the file.
+     * @param remark    The remark of the file.
+     * @param text      The text of the file.
+     */
+    private void publishArchive(String path, String timestamp, String remark, String text) {
+        TrackingEvent archiveEvent = eventBuffer.claim();
+        if (archiveEvent == null) return;
+        archiveEvent.setArchive(path, timestamp, remark, text);
+        eventBuffer.publish(archiveEvent);
+    }
+
+    /**
+     * This method sets the handler for the IDE tracker data for real-time data transmission. When the tracking starts,
+     * the handler is registered as an asynchronous sink, so it is called on its own thread.
      *
      * @param ideTrackerDataHandler The handler for the IDE tracker data.
      */
@@ -431,6 +618,19 @@ public final class IDETracker implements Disposable {
         editorEventMulticaster.removeCaretListener(caretListener);
         editorEventMulticaster.removeSelectionListener(selectionListener);
         editorEventMulticaster.removeVisibleAreaListener(visibleAreaListener);
+        stopEventConsumer();
+        if (realTimeSink != null) {
+            eventDispatcher.removeSink(realTimeSink);
+            realTimeSink.close();
+            realTimeSink = null;
+        }
+        if (archiveIndexWriter != null) {
+            try {
+                archiveIndexWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
         String filePath = dataOutputPath + "/ide_tracking.xml";
         XMLWriter.writeToXML(iDETracking, filePath);
     }
@@ -467,33 +667,46 @@ public final class IDETracker implements Disposable {
     }
 
     /**
-     * This method archives the file. If the file is a code file, the file is copied to the archive folder.
+     * This method archives the file. If the file is a code file, the file is copied to the archive folder. Archives
+     * triggered in the same millisecond are appended to the same archive file, and each successful archive is added to
+     * the archive index with its byte range.
      *
      * @param path      The path of the file.
      * @param timestamp The timestamp of the file.
      * @param remark    The remark of the file.
      * @param text      The text of the file.
      */
-    public void archiveFile(String path, String timestamp, String remark, String text) {
+    public synchronized void archiveFile(String path, String timestamp, String remark, String text) {
         File srcFile = new File(path);
         File destFile = new File(dataOutputPath + "/archives/" + timestamp + ".archive");
         String[] codeExtensions = {".java", ".cpp", ".c", ".py", ".rb", ".js", ".md", ".cs", ".html", ".htm", ".css", ".php", ".ts", ".swift", ".go", ".kt", ".kts", ".rs", ".pl", ".sh", ".bat", ".ps1", ".asp", ".aspx", ".jsp", ".lua"};
+        long offset = destFile.length();
+        boolean isArchived = false;
         try {
             if (path.equals("unknown")) {
                 FileUtils.writeStringToFile(destFile, text, "UTF-8", true);
+                isArchived = true;
             } else {
                 if (Arrays.stream(codeExtensions).anyMatch(path::endsWith)) {
                     if (text == null) {
-                        FileUtils.copyFile(srcFile, destFile);
+                        // append rather than copy, so that an archive of the same millisecond is not overwritten
+                        FileUtils.writeByteArrayToFile(destFile, FileUtils.readFileToByteArray(srcFile), true);
                     } else {
                         FileUtils.writeStringToFile(destFile, text, "UTF-8", true);
                     }
+                    isArchived = true;
                 } else {
                     remark += " | NotCodeFile | Fail";
                 }
             }
         } catch (IOException e) {
             remark += " | IOException | Fail";
+            isArchived = false;
+        }
+        if (isArchived && archiveIndexWriter != null) {
+            archiveIndexWriter.append(path.equals("unknown") ? "consoleArchive" : "fileArchive",
+                    path.equals("unknown") ? "" : RelativePathGetter.getRelativePath(path, projectPath),
+                    Long.parseLong(timestamp), offset, destFile.length() - offset);
         }
 
         Element archive = iDETracking.createElement("archive");
@@ -511,23 +724,38 @@ public final class IDETracker implements Disposable {
     }
 
     /**
-     * This method returns the mouse XML element.
+     * This method publishes a mouse event to the event ring buffer.
      *
      * @param e  The editor mouse event.
-     * @param id The id of the mouse event.
-     * @return The mouse element.
-     */
-    public Element getMouseElement(EditorMouseEvent e, String id) {
-        Element mouseElement = iDETracking.createElement("mouse");
-        mouseElement.setAttribute("id", id);
-        mouseElement.setAttribute("timestamp", String.valueOf(System.currentTimeMillis()));
-        VirtualFile virtualFile = FileDocumentManager.getInstance().getFile(e.getEditor().getDocument());
-        mouseElement.setAttribute("path", virtualFile != null ?
-                RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null);
-        MouseEvent mouseEvent = e.getMouseEvent();
-        mouseElement.setAttribute("x", String.valueOf(mouseEvent.getXOnScreen()));
-        mouseElement.setAttribute("y", String.valueOf(mouseEvent.getYOnScreen()));
-        return mouseElement;
+     * @param id The event ID.
+     */
+    private void publishMouseEvent(EditorMouseEvent e, String id) {
+        long timestampNanos = SessionClock.getInstance().nanoTime();
+        String path = getRelativePath(e.getEditor().getDocument());
+        MouseEvent awtMouseEvent = e.getMouseEvent();
+        int x = awtMouseEvent.getXOnScreen();
+        int y = awtMouseEvent.getYOnScreen();
+        TrackingEvent mouseEvent = eventBuffer.claim();
+        if (mouseEvent == null) return;
+        mouseEvent.setElement("mouse");
+        mouseEvent.put("id", id);
+        mouseEvent.putTimestamp(timestampNanos);
+        mouseEvent.put("path", path);
+        mouseEvent.put("x", String.valueOf(x));
+        mouseEvent.put("y", String.valueOf(y));
+        eventBuffer.publish(mouseEvent);
+    }
+
+    /**
+     * This method returns the path of the file of a document relative to the project. It is called before an event is
+     * claimed, since it may throw.
+     *
+     * @param document The document.
+     * @return The relative path, or {@code null} if the document has no file.
+     */
+    private String getRelativePath(com.intellij.openapi.editor.Document document) {
+        VirtualFile virtualFile = FileDocumentManager.getInstance().getFile(document);
+        return virtualFile != null ? RelativePathGetter.getRelativePath(virtualFile.getPath(), projectPath) : null;
     }
 
     /**
@@ -540,18 +768,28 @@ public final class IDETracker implements Disposable {
     }
 
     /**
-     * This method handles the XML element for real-time data transmission.
+     * This method dispatches the XML element to the sinks, and reports the activity to the screen recorder.
      *
      * @param element The XML element.
      */
     private void handleElement(Element element) {
-        if (ideTrackerDataHandler == null) {
-            return;
-//            throw new RuntimeException("ideTrackerDataHandler is null");
-        }
-        if (isRealTimeDataTransmitting) {
-            ideTrackerDataHandler.accept(element);
+        // every tracked event counts as activity for the adaptive frame rate of the screen recorder, which only needs
+        // to hear about it a few times per second
+        long now = System.nanoTime();
+        if (now - lastActivityReport >= ACTIVITY_REPORT_INTERVAL) {
+            lastActivityReport = now;
+            ScreenRecorder.getInstance().notifyActivity();
         }
+        eventDispatcher.dispatch(element);
+    }
+
+    /**
+     * This method returns the dispatcher of the tracking events, on which sinks can be registered.
+     *
+     * @return The event dispatcher.
+     */
+    public EventDispatcher getEventDispatcher() {
+        return eventDispatcher;
     }
 
     /**
@@ -0,0 +1,507 @@
+package trackers;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.FrameRecorder;
+import utils.SessionClock;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class is the capture engine of the screen recorder. A dedicated grab thread captures frames at the given frame
+ * rate and stamps each frame at capture time, and a separate encoder thread records the frames fed through a bounded
+ * queue. A slow encode therefore never delays the next capture; when the queue is full, frames are dropped according
+ * to the {@link DropPolicy} and counted.
+ * <p>
+ * With an adaptive frame rate, the engine captures at the maximum frame rate while {@link #notifyActivity()} is
+ * called, and halves the frame rate for every idle timeout without activity until the minimum frame rate is reached.
+ * The frames are then encoded with presentation timestamps derived from their capture timestamps.
+ */
+public class ScreenCaptureEngine {
+
+    /**
+     * The policy applied when the encoder queue is full.
+     */
+    public enum DropPolicy {
+        /**
+         * Discard the frame that was just captured.
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest queued frame to make room for the frame that was just captured.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * The listener notified by the encoder thread after each frame is recorded.
+     */
+    public interface FrameListener {
+        /**
+         * This method is called after a frame is recorded.
+         *
+         * @param captureTimestamp The time at which the frame was captured on the {@link SessionClock}, in
+         *                         nanoseconds.
+         */
+        void onFrameRecorded(long captureTimestamp);
+    }
+
+    /**
+     * A pooled frame together with its capture timestamp.
+     */
+    private static final class CapturedFrame {
+        Frame frame;
+        long timestamp;
+        /**
+         * The total paused time before the capture, subtracted from the timestamp to place the frame in the video.
+         */
+        long pausedTime;
+        /**
+         * The latch counted down by the encoder thread when it reaches this element, if it is a drain barrier instead
+         * of a frame.
+         */
+        CountDownLatch drained;
+    }
+
+    private static final CapturedFrame END_OF_STREAM = new CapturedFrame();
+
+    private final FrameGrabber grabber;
+    private final FrameRecorder recorder;
+    private final double frameRate;
+    private final double minFrameRate;
+    private final long idleTimeoutNanos;
+    private final int queueCapacity;
+    private final DropPolicy dropPolicy;
+    private final FrameListener listener;
+    private final BlockingQueue<CapturedFrame> queue;
+    /**
+     * This variable is the pool of preallocated frames. It is filled lazily once the size of the grabbed frames is known.
+     */
+    private final BlockingQueue<CapturedFrame> pool;
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private final AtomicLong capturedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong skippedTicks = new AtomicLong();
+    private volatile boolean running = false;
+    /**
+     * This variable indicates whether the capture is paused. While paused, the grabber and the recorder stay open but
+     * no frame is grabbed or recorded.
+     */
+    private volatile boolean paused = false;
+    /**
+     * This variable is the total time the capture was paused, in nanoseconds. With an adaptive frame rate, it is
+     * subtracted from the presentation timestamps so that a paused interval is not encoded as a frozen frame.
+     */
+    private volatile long pausedTime = 0;
+    /**
+     * This variable is the time at which the capture was paused, or -1 if it is not paused.
+     */
+    private long pauseStart = -1;
+    /**
+     * This variable is the time of the last activity reported through {@link #notifyActivity()}.
+     */
+    private volatile long lastActivity = System.nanoTime();
+    /**
+     * This lock is held by the grab thread from the pause check to the end of the enqueue, so that a frame being
+     * grabbed when the capture is paused is queued before {@link #pauseAndDrain(long)} places its barrier.
+     */
+    private final Object grabLock = new Object();
+    private Thread grabThread;
+    private Thread encodeThread;
+
+    /**
+     * The constructor of the capture engine. The grabber and the recorder must already be started, and are stopped and
+     * released by the engine when it terminates.
+     *
+     * @param grabber       The started frame grabber.
+     * @param recorder      The started frame recorder.
+     * @param frameRate     The capture frame rate.
+     * @param queueCapacity The capacity of the queue between the grab thread and the encoder thread.
+     * @param dropPolicy    The policy applied when the queue is full.
+     * @param listener      The listener notified after each frame is recorded.
+     */
+    public ScreenCaptureEngine(FrameGrabber grabber, FrameRecorder recorder, double frameRate, int queueCapacity,
+                               DropPolicy dropPolicy, FrameListener listener) {
+        this(grabber, recorder, frameRate, frameRate, 0, queueCapacity, dropPolicy, listener);
+    }
+
+    /**
+     * The constructor of the capture engine with an adaptive frame rate. The frame rate of the recorder must be the
+     * maximum frame rate.
+     *
+     * @param grabber           The started frame grabber.
+     * @param recorder          The started frame recorder.
+     * @param frameRate         The maximum capture frame rate, used while there is activity.
+     * @param minFrameRate      The minimum capture frame rate, used when idle.
+     * @param idleTimeoutMillis The time without activity after which the frame rate is halved, in milliseconds.
+     * @param queueCapacity     The capacity of the queue between the grab thread and the encoder thread.
+     * @param dropPolicy        The policy applied when the queue is full.
+     * @param listener          The listener notified after each frame is recorded.
+     */
+    public ScreenCaptureEngine(FrameGrabber grabber, FrameRecorder recorder, double frameRate, double minFrameRate,
+                               long idleTimeoutMillis, int queueCapacity, DropPolicy dropPolicy, FrameListener listener) {
+        this.grabber = grabber;
+        this.recorder = recorder;
+        this.frameRate = frameRate;
+        this.minFrameRate = Math.min(minFrameRate, frameRate);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.queueCapacity = queueCapacity;
+        this.dropPolicy = dropPolicy;
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // one frame may be in the hands of the grab thread and one in the hands of the encoder thread
+        this.pool = new ArrayBlockingQueue<>(queueCapacity + 2);
+    }
+
+    /**
+     * Start the grab thread and the encoder thread.
+     */
+    public void start() {
+        running = true;
+        grabThread = new Thread(this::grabLoop, "CodeGRITS Screen Grabber");
+        encodeThread = new Thread(this::encodeLoop, "CodeGRITS Screen Encoder");
+        grabThread.setDaemon(true);
+        encodeThread.setDaemon(true);
+        encodeThread.start();
+        grabThread.start();
+    }
+
+    /**
+     * Stop capturing. The frames already queued are still recorded, after which the grabber and the recorder are
+     * released. This method does not wait for the engine to terminate.
+     */
+    public void stop() {
+        running = false;
+        if (grabThread != null) {
+            LockSupport.unpark(grabThread);
+        }
+    }
+
+    /**
+     * Pause or resume capturing without releasing the grabber and the recorder.
+     *
+     * @param paused Whether the capture is paused.
+     */
+    public synchronized void setPaused(boolean paused) {
+        long now = SessionClock.getInstance().nanoTime();
+        if (paused && pauseStart < 0) {
+            pauseStart = now;
+        } else if (!paused && pauseStart >= 0) {
+            pausedTime += now - pauseStart;
+            pauseStart = -1;
+        }
+        this.paused = paused;
+        if (grabThread != null) {
+            LockSupport.unpark(grabThread);
+        }
+    }
+
+    /**
+     * Pause capturing and wait for the encoder thread to record every frame captured before the pause, so that a
+     * marker written afterwards follows the last frame of the clip.
+     *
+     * @param timeoutMillis The maximum time to wait in milliseconds.
+     * @return {@code true} if the queued frames were recorded, {@code false} if the timeout elapsed.
+     */
+    public boolean pauseAndDrain(long timeoutMillis) throws InterruptedException {
+        setPaused(true);
+        synchronized (grabLock) {
+            // the frame being grabbed, if any, is now queued
+        }
+        CapturedFrame barrier = new CapturedFrame();
+        barrier.drained = new CountDownLatch(1);
+        if (!queue.offer(barrier, timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        return barrier.drained.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Report activity in the IDE. With an adaptive frame rate, the engine switches back to the maximum frame rate.
+     */
+    public void notifyActivity() {
+        long now = System.nanoTime();
+        boolean isIdle = now - lastActivity >= idleTimeoutNanos;
+        lastActivity = now;
+        if (isIdle && isAdaptive() && grabThread != null) {
+            // cut the long idle wait short so that the first frames of the activity are captured
+            LockSupport.unpark(grabThread);
+        }
+    }
+
+    /**
+     * Whether the frame rate of the engine adapts to the activity.
+     *
+     * @return {@code true} if the minimum frame rate is lower than the maximum frame rate.
+     */
+    public boolean isAdaptive() {
+        return minFrameRate < frameRate;
+    }
+
+    /**
+     * Get the current capture frame rate. It is halved for every idle timeout elapsed since the last activity, down to
+     * the minimum frame rate.
+     *
+     * @return The current frame rate.
+     */
+    public double getCurrentFrameRate() {
+        if (!isAdaptive()) {
+            return frameRate;
+        }
+        long idle = System.nanoTime() - lastActivity;
+        if (idle < idleTimeoutNanos || idleTimeoutNanos <= 0) {
+            return frameRate;
+        }
+        long halvings = Math.min(idle / idleTimeoutNanos, 30);
+        return Math.max(minFrameRate, frameRate / (1L << halvings));
+    }
+
+    /**
+     * Wait for the engine to record the remaining frames and release the grabber and the recorder.
+     *
+     * @param timeoutMillis The maximum time to wait in milliseconds.
+     * @return {@code true} if the engine terminated, {@code false} if the timeout elapsed.
+     */
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        return terminated.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The grab loop. It sleeps until the deadline of the next frame instead of being driven by a timer, so that a late
+     * tick is skipped rather than bunched up with the following ones. The period is re-evaluated at every tick, so that
+     * an adaptive frame rate takes effect immediately.
+     */
+    private void grabLoop() {
+        long period = (long) (1_000_000_000L / getCurrentFrameRate());
+        long deadline = System.nanoTime();
+        try {
+            while (running) {
+                if (paused) {
+                    LockSupport.parkNanos(period);
+                    deadline = System.nanoTime();
+                    continue;
+                }
+                long now = System.nanoTime();
+                long currentPeriod = (long) (1_000_000_000L / getCurrentFrameRate());
+                if (currentPeriod < period) {
+                    // activity resumed: do not wait for the rest of the idle period
+                    deadline = Math.min(deadline, now + currentPeriod);
+                }
+                period = currentPeriod;
+                if (now < deadline) {
+                    LockSupport.parkNanos(deadline - now);
+                    continue;
+                }
+                long missed = (now - deadline) / period;
+                if (missed > 0) {
+                    skippedTicks.addAndGet(missed);
+                    deadline += missed * period;
+                }
+                deadline += period;
+
+                synchronized (grabLock) {
+                    if (paused) {
+                        continue;
+                    }
+                    Frame grabbed = grabber.grabFrame();
+                    long timestamp = SessionClock.getInstance().nanoTime();
+                    if (grabbed == null || grabbed.image == null) {
+                        continue;
+                    }
+                    capturedFrames.incrementAndGet();
+                    enqueue(grabbed, timestamp);
+                }
+            }
+        } catch (FrameGrabber.Exception e) {
+            e.printStackTrace();
+        } finally {
+            running = false;
+            try {
+                grabber.stop();
+                grabber.release();
+            } catch (FrameGrabber.Exception e) {
+                e.printStackTrace();
+            }
+            try {
+                queue.put(END_OF_STREAM);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Copy the grabbed frame into a pooled frame and hand it over to the encoder thread, applying the drop policy if the
+     * queue is full.
+     *
+     * @param grabbed   The frame returned by the grabber, which is reused by the grabber for the next grab.
+     * @param timestamp The capture timestamp in nanoseconds.
+     */
+    private void enqueue(Frame grabbed, long timestamp) {
+        if (queue.remainingCapacity() == 0) {
+            if (dropPolicy == DropPolicy.DROP_NEWEST) {
+                droppedFrames.incrementAndGet();
+                return;
+            }
+            CapturedFrame oldest = queue.poll();
+            if (oldest != null && oldest.drained != null) {
+                // a drain barrier that timed out: release its waiter instead of counting a dropped frame
+                oldest.drained.countDown();
+            } else if (oldest != null) {
+                droppedFrames.incrementAndGet();
+                recycle(oldest);
+            }
+        }
+        CapturedFrame captured = pool.poll();
+        if (captured == null) {
+            captured = new CapturedFrame();
+        }
+        if (captured.frame == null || !copyImage(grabbed, captured.frame)) {
+            // the size of the grabbed frames changed: release the native buffer of the pooled frame
+            if (captured.frame != null) {
+                captured.frame.close();
+            }
+            captured.frame = grabbed.clone();
+        }
+        captured.timestamp = timestamp;
+        captured.pausedTime = pausedTime;
+        if (!queue.offer(captured)) {
+            droppedFrames.incrementAndGet();
+            recycle(captured);
+        }
+    }
+
+    /**
+     * Return a frame to the pool, or release its native buffer if the pool is full.
+     *
+     * @param captured The frame that is no longer used.
+     */
+    private void recycle(CapturedFrame captured) {
+        if (!pool.offer(captured) && captured.frame != null) {
+            captured.frame.close();
+            captured.frame = null;
+        }
+    }
+
+    /**
+     * The encoder loop. It records the queued frames in order and returns them to the pool.
+     */
+    private void encodeLoop() {
+        long firstTimestamp = -1;
+        try {
+            while (true) {
+                CapturedFrame captured = queue.take();
+                if (captured == END_OF_STREAM) {
+                    break;
+                }
+                if (captured.drained != null) {
+                    captured.drained.countDown();
+                    continue;
+                }
+                try {
+                    if (isAdaptive()) {
+                        // place the frame at its capture time, minus the paused time, in the time base of the maximum
+                        // frame rate, keeping the presentation timestamps strictly increasing
+                        if (firstTimestamp < 0) {
+                            firstTimestamp = captured.timestamp;
+                        }
+                        long position = Math.round((captured.timestamp - captured.pausedTime - firstTimestamp)
+                                * frameRate / 1e9);
+                        if (position > recorder.getFrameNumber()) {
+                            recorder.setFrameNumber((int) position);
+                        }
+                    }
+                    recorder.record(captured.frame);
+                    listener.onFrameRecorded(captured.timestamp);
+                } catch (FrameRecorder.Exception e) {
+                    e.printStackTrace();
+                    running = false;
+                }
+                recycle(captured);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                recorder.stop();
+                recorder.release();
+            } catch (FrameRecorder.Exception e) {
+                e.printStackTrace();
+            }
+            CapturedFrame pooled;
+            while ((pooled = pool.poll()) != null) {
+                if (pooled.frame != null) {
+                    pooled.frame.close();
+                }
+            }
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * Copy the image of a frame into another frame of the same size without allocating.
+     *
+     * @param source      The source frame.
+     * @param destination The destination frame.
+     * @return {@code true} if the image was copied, {@code false} if the frames are not compatible.
+     */
+    private static boolean copyImage(Frame source, Frame destination) {
+        if (source.imageWidth != destination.imageWidth || source.imageHeight != destination.imageHeight
+                || source.imageStride != destination.imageStride || source.imageChannels != destination.imageChannels
+                || !(source.image[0] instanceof ByteBuffer in) || !(destination.image[0] instanceof ByteBuffer out)) {
+            return false;
+        }
+        ByteBuffer src = in.duplicate();
+        ByteBuffer dst = out.duplicate();
+        src.clear();
+        dst.clear();
+        if (src.remaining() > dst.remaining()) {
+            return false;
+        }
+        dst.put(src);
+        destination.timestamp = source.timestamp;
+        return true;
+    }
+
+    /**
+     * Get the number of frames captured by the grab thread.
+     *
+     * @return The number of captured frames.
+     */
+    public long getCapturedFrames() {
+        return capturedFrames.get();
+    }
+
+    /**
+     * Get the number of captured frames dropped because the encoder queue was full.
+     *
+     * @return The number of dropped frames.
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Get the number of capture ticks skipped because a grab took longer than the frame period.
+     *
+     * @return The number of skipped ticks.
+     */
+    public long getSkippedTicks() {
+        return skippedTicks.get();
+    }
+
+    /**
+     * Get the capacity of the queue between the grab thread and the encoder thread.
+     *
+     * @return The queue capacity.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+}
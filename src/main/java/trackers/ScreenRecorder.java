@@ -1,17 +1,25 @@
 package trackers;
 
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.WindowManager;
 import com.opencsv.CSVWriter;
 import org.bytedeco.ffmpeg.global.avcodec;
 import org.bytedeco.javacv.*;
 import org.bytedeco.javacv.Frame;
+import utils.SessionClock;
 
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is the screen recorder.
@@ -21,25 +29,123 @@ public class ScreenRecorder {
     /**
      * This variable indicates the state of the screen recorder. 0: initial state; only startAction enabled 1: started, not paused; stopAction and pauseAction enabled 2: started, paused; only resumeAction enabled
      */
-    int state = 0;
+    volatile int state = 0;
     /**
      * This variable indicates the frame rate of the screen recorder.
      */
     int frameRate = 4; // higher frame rate (e.g., 12) will result in larger file size and blurry video
+    /**
+     * This variable indicates whether the frame rate adapts to the activity in the IDE, between {@link #minFrameRate}
+     * and {@link #maxFrameRate}, instead of being fixed to {@link #frameRate}.
+     */
+    private boolean isAdaptiveFrameRate = false;
+    /**
+     * This variable indicates the frame rate of the screen recorder when the IDE is idle in adaptive mode.
+     */
+    int minFrameRate = 1;
+    /**
+     * This variable indicates the frame rate of the screen recorder when there is activity in the IDE in adaptive mode.
+     */
+    int maxFrameRate = 12;
+    /**
+     * This variable indicates the time without activity, in milliseconds, after which the frame rate is halved in
+     * adaptive mode.
+     */
+    long idleTimeout = 2000;
+    /**
+     * This variable indicates the capacity of the queue between the grab thread and the encoder thread.
+     */
+    int queueCapacity = 8;
+    /**
+     * This variable indicates the policy applied when the encoder falls behind and the queue is full.
+     */
+    ScreenCaptureEngine.DropPolicy dropPolicy = ScreenCaptureEngine.DropPolicy.DROP_OLDEST;
     private FrameRecorder recorder;
     private FrameGrabber grabber;
-    private final ArrayList<String[]> timeList = new ArrayList<>();
-    private CSVWriter csvWriter;
+    /**
+     * This variable is the capture engine of the current clip.
+     */
+    private volatile ScreenCaptureEngine captureEngine;
+    /**
+     * This variable is the total number of frames dropped in the current session.
+     */
+    private volatile long droppedFrames = 0;
+    /**
+     * This variable is the writer of {@code frames.csv} and of the binary frame index.
+     */
+    private FrameIndexWriter frameIndexWriter;
+    /**
+     * This variable indicates whether the binary frame index {@code frames.idx} is written next to {@code frames.csv}.
+     */
+    private boolean isBinaryFrameIndexEnabled = true;
+    /**
+     * This variable indicates whether the grabber and the encoder are kept alive across pauses, so that the whole
+     * session is recorded in a single clip. Paused intervals are simply not recorded.
+     */
+    private boolean isContinuousRecording = false;
+    /**
+     * This variable indicates whether only the IDE window is captured instead of the whole screen.
+     */
+    private boolean isRegionCapture = false;
+    /**
+     * This variable is the project whose IDE window is captured in region capture mode.
+     */
+    private Project project;
+    /**
+     * This variable is the writer of {@code regions.csv}, which records the captured region of each clip in region
+     * capture mode.
+     */
+    private CSVWriter regionWriter;
+    /**
+     * This variable is the region grabbed in the current clip in device pixels, or {@code null} if the whole screen is
+     * captured.
+     */
+    private Rectangle grabRegion;
+    /**
+     * This variable is the IDE window whose moves and resizes are tracked in region capture mode.
+     */
+    private Window trackedFrame;
+    /**
+     * This variable is the listener of the moves and resizes of the IDE window.
+     */
+    private ComponentAdapter frameBoundsListener;
+    /**
+     * This variable is the timer that updates the captured region once the IDE window stopped moving or resizing.
+     */
+    private javax.swing.Timer regionUpdateTimer;
     boolean isRecording = false;
     /**
      * This variable indicates the current clip number.
      */
     private int clipNumber = 1;
     /**
-     * This variable indicates the current frame number.
+     * This variable indicates the current frame number. It is written by the encoder thread.
      */
-    private int frameNumber = 0;
+    private volatile int frameNumber = 0;
     private String dataOutputPath = "";
+    /**
+     * This variable is the data output path of the session being recorded, which the steps of the session still use
+     * after the data output path of the next session is set.
+     */
+    private String sessionOutputPath = "";
+    /**
+     * This variable is the thread that starts, pauses, resumes and stops the capture engines. These steps wait for the
+     * encoder of the previous clip, for up to 5 seconds, so they must not run on the EDT. They run one at a time, in
+     * the order in which they are requested, so that the markers of {@code frames.csv} stay in order.
+     */
+    private final ExecutorService lifecycleExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CodeGRITS Screen Recorder Lifecycle");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A step of the recording lifecycle, run on the lifecycle thread.
+     */
+    private interface LifecycleStep {
+        void run() throws AWTException, IOException;
+    }
+
     private static ScreenRecorder instance = null;
 
     public static ScreenRecorder getInstance() {
@@ -66,110 +172,475 @@ public class ScreenRecorder {
         } else {
             throw new IOException("Unsupported OS");
         }
-        grabber.setFrameRate(frameRate);
+        grabber.setFrameRate(getRecordingFrameRate());
         GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().
                 getDefaultScreenDevice().getDefaultConfiguration();
-        // set image width and height to be the same as the resolution of the *first* screen (in case of multiple screens)
-        grabber.setImageWidth((int) (Toolkit.getDefaultToolkit().getScreenSize().width * config.getDefaultTransform().getScaleX()));
-        grabber.setImageHeight((int) (Toolkit.getDefaultToolkit().getScreenSize().height * config.getDefaultTransform().getScaleY()));
-        grabber.setOption("offset_x", "0");
-        grabber.setOption("offset_y", "0");
+        double scaleX = config.getDefaultTransform().getScaleX();
+        double scaleY = config.getDefaultTransform().getScaleY();
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        grabRegion = isRegionCapture ? getGrabRegion(screenSize, scaleX, scaleY) : null;
+        Rectangle region = grabRegion;
+        if (region != null) {
+            grabber.setImageWidth(region.width);
+            grabber.setImageHeight(region.height);
+            if (utils.OSDetector.isWindows()) {
+                grabber.setOption("offset_x", String.valueOf(region.x));
+                grabber.setOption("offset_y", String.valueOf(region.y));
+            } else {
+                grabber.setOption("grab_x", String.valueOf(region.x));
+                grabber.setOption("grab_y", String.valueOf(region.y));
+            }
+        } else {
+            // set image width and height to be the same as the resolution of the *first* screen (in case of multiple screens)
+            grabber.setImageWidth((int) (screenSize.width * scaleX));
+            grabber.setImageHeight((int) (screenSize.height * scaleY));
+            grabber.setOption("offset_x", "0");
+            grabber.setOption("offset_y", "0");
+            region = new Rectangle(0, 0, grabber.getImageWidth(), grabber.getImageHeight());
+        }
         grabber.start();
+        if (regionWriter != null) {
+            // the grabbed rectangle in device pixels, and in the coordinates of screen_size and the mouse events
+            regionWriter.writeNext(new String[]{String.valueOf(clipNumber),
+                    String.valueOf(Math.round(region.x / scaleX)), String.valueOf(Math.round(region.y / scaleY)),
+                    String.valueOf(Math.round(region.width / scaleX)), String.valueOf(Math.round(region.height / scaleY)),
+                    String.valueOf(region.x), String.valueOf(region.y),
+                    String.valueOf(region.width), String.valueOf(region.height)});
+            regionWriter.flush();
+        }
 
-        recorder = FrameRecorder.createDefault(dataOutputPath + "/screen_recording/clip_" + clipNumber + ".mp4", grabber.getImageWidth(), grabber.getImageHeight());
-        recorder.setFrameRate(frameRate);
+        recorder = FrameRecorder.createDefault(sessionOutputPath + "/screen_recording/clip_" + clipNumber + ".mp4", grabber.getImageWidth(), grabber.getImageHeight());
+        recorder.setFrameRate(getRecordingFrameRate());
         recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
         recorder.start();
     }
 
     /**
-     * Start recording the screen. Reset the clip number and invoke {@link #recordScreen()}.
+     * Start recording the screen. Reset the clip number and invoke {@link #recordScreen()} on the lifecycle thread.
      */
-    public void startRecording() throws IOException {
+    public void startRecording() {
+        long startTimestampNanos = SessionClock.getInstance().nanoTime();
+        String outputPath = dataOutputPath;
         state = 1;
-        clipNumber = 1;
-        timeList.clear();
         isRecording = true;
-        File file = new File(dataOutputPath + "/screen_recording/frames.csv");
-        file.getParentFile().mkdirs();
-        csvWriter = new CSVWriter(new FileWriter(file));
-        csvWriter.writeNext(new String[]{"timestamp", "frame_number", "clip_number"});
-        timeList.add(new String[]{String.valueOf(System.currentTimeMillis()), "Start", String.valueOf(clipNumber)});
-        try {
-            recordScreen();
-        } catch (AWTException | IOException e) {
-            e.printStackTrace();
+        if (isRegionCapture) {
+            trackFrameBounds();
         }
+        runInBackground(() -> {
+            sessionOutputPath = outputPath;
+            clipNumber = 1;
+            droppedFrames = 0;
+            File file = new File(sessionOutputPath + "/screen_recording/frames.csv");
+            file.getParentFile().mkdirs();
+            File indexFile = isBinaryFrameIndexEnabled ? new File(file.getParentFile(), "frames.idx") : null;
+            frameIndexWriter = new FrameIndexWriter(file, indexFile, 32, 1000);
+            frameIndexWriter.writeMarker(startTimestampNanos, "Start", clipNumber);
+            if (isRegionCapture) {
+                regionWriter = new CSVWriter(new FileWriter(new File(file.getParentFile(), "regions.csv")));
+                regionWriter.writeNext(new String[]{"clip_number", "x", "y", "width", "height",
+                        "device_x", "device_y", "device_width", "device_height"});
+            }
+            recordScreen();
+        });
     }
 
     /**
-     * Stop recording the screen. Write the time list to the CSV file.
+     * Stop recording the screen. The queued frames are encoded and the frame index is closed on the lifecycle thread,
+     * so that the EDT does not wait for the encoder.
      */
-    public void stopRecording() throws IOException {
+    public void stopRecording() {
+        boolean isEngineRunning = state == 1 || isContinuousRecording;
+        long stopTimestampNanos = SessionClock.getInstance().nanoTime();
         state = 0;
         isRecording = false;
-        timeList.add(new String[]{String.valueOf(System.currentTimeMillis()), "Stop", String.valueOf(clipNumber)});
-        csvWriter.writeAll(timeList);
-        csvWriter.close();
+        untrackFrameBounds();
+        runInBackground(() -> {
+            if (isEngineRunning) {
+                stopCaptureEngine();
+            }
+            awaitCaptureEngine();
+            captureEngine = null;
+            frameIndexWriter.writeMarker(stopTimestampNanos, "Stop", clipNumber);
+            frameIndexWriter.close();
+            if (regionWriter != null) {
+                regionWriter.close();
+                regionWriter = null;
+            }
+        });
     }
 
     /**
-     * Pause recording the screen. Write the time list to the CSV file and increment the clip number.
+     * Run a step of the recording lifecycle on the lifecycle thread, after the steps requested before it.
+     *
+     * @param step The step.
      */
-    public void pauseRecording() throws IOException {
+    private void runInBackground(LifecycleStep step) {
+        lifecycleExecutor.execute(() -> {
+            try {
+                step.run();
+            } catch (AWTException | IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Get the rectangle grabbed for the IDE window, in device pixels. H.264 requires an even width and height.
+     *
+     * @param screenSize The size of the first screen.
+     * @param scaleX     The horizontal scale from screen coordinates to device pixels.
+     * @param scaleY     The vertical scale from screen coordinates to device pixels.
+     * @return The grabbed rectangle, or {@code null} if the whole screen is captured.
+     */
+    private Rectangle getGrabRegion(Dimension screenSize, double scaleX, double scaleY) {
+        Rectangle region = getCaptureRegion(screenSize);
+        if (region == null) {
+            return null;
+        }
+        return new Rectangle((int) Math.round(region.x * scaleX), (int) Math.round(region.y * scaleY),
+                (int) Math.round(region.width * scaleX) & ~1, (int) Math.round(region.height * scaleY) & ~1);
+    }
+
+    /**
+     * Listen for the moves and resizes of the IDE window. Once the window has not changed for half a second, a new
+     * clip is started with the new region, also in continuous recording mode, since the grabbed region of a clip is
+     * fixed.
+     */
+    private void trackFrameBounds() {
+        trackedFrame = project != null && !utils.OSDetector.isMac() ? WindowManager.getInstance().getFrame(project) : null;
+        if (trackedFrame == null) {
+            return;
+        }
+        regionUpdateTimer = new javax.swing.Timer(500, e -> updateCaptureRegion());
+        regionUpdateTimer.setRepeats(false);
+        frameBoundsListener = new ComponentAdapter() {
+            @Override
+            public void componentMoved(ComponentEvent e) {
+                regionUpdateTimer.restart();
+            }
+
+            @Override
+            public void componentResized(ComponentEvent e) {
+                regionUpdateTimer.restart();
+            }
+        };
+        trackedFrame.addComponentListener(frameBoundsListener);
+    }
+
+    /**
+     * Stop listening for the moves and resizes of the IDE window.
+     */
+    private void untrackFrameBounds() {
+        if (trackedFrame != null) {
+            trackedFrame.removeComponentListener(frameBoundsListener);
+            regionUpdateTimer.stop();
+        }
+        trackedFrame = null;
+        frameBoundsListener = null;
+        regionUpdateTimer = null;
+    }
+
+    /**
+     * Start a new clip on the lifecycle thread if the region of the IDE window changed while recording. A paused
+     * session picks up the new region when it is resumed.
+     */
+    private void updateCaptureRegion() {
+        runInBackground(() -> {
+            if (state != 1 || captureEngine == null || !isCaptureRegionChanged()) {
+                return;
+            }
+            stopCaptureEngine();
+            clipNumber++;
+            recordScreen();
+        });
+    }
+
+    /**
+     * Whether the region of the IDE window differs from the region grabbed in the current clip.
+     *
+     * @return {@code true} if a new clip is needed to capture the IDE window.
+     */
+    private boolean isCaptureRegionChanged() {
+        if (!isRegionCapture || utils.OSDetector.isMac()) {
+            return false;
+        }
+        GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().
+                getDefaultScreenDevice().getDefaultConfiguration();
+        Rectangle region = getGrabRegion(Toolkit.getDefaultToolkit().getScreenSize(),
+                config.getDefaultTransform().getScaleX(), config.getDefaultTransform().getScaleY());
+        return !Objects.equals(region, grabRegion);
+    }
+
+    /**
+     * Get the region of the screen covered by the IDE window of the project, clipped to the first screen. The region
+     * is in the same coordinate system as {@code screen_size} and the mouse coordinates in {@code ide_tracking.xml}.
+     *
+     * @param screenSize The size of the first screen.
+     * @return The capture region, or {@code null} if the IDE window is not available or the OS is not supported.
+     */
+    private Rectangle getCaptureRegion(Dimension screenSize) {
+        if (utils.OSDetector.isMac()) {
+            // avfoundation cannot capture a part of the screen
+            notifyWarning("Region capture is not supported on macOS, capturing the full screen.");
+            return null;
+        }
+        Window frame = project != null ? WindowManager.getInstance().getFrame(project) : null;
+        if (frame == null || !frame.isShowing()) {
+            return null;
+        }
+        Rectangle region = new Rectangle(frame.getLocationOnScreen(), frame.getSize())
+                .intersection(new Rectangle(0, 0, screenSize.width, screenSize.height));
+        return region.width >= 2 && region.height >= 2 ? region : null;
+    }
+
+    /**
+     * Pause recording the screen on the lifecycle thread. In continuous recording mode, the capture engine is paused
+     * and the clip is kept open. Otherwise, the capture engine of the current clip is stopped and the clip number is
+     * incremented.
+     */
+    public void pauseRecording() {
+        if (state == 0) {
+            // the screen is not recorded in this session
+            return;
+        }
+        long pauseTimestampNanos = SessionClock.getInstance().nanoTime();
+        boolean isContinuous = isContinuousRecording;
         state = 2;
         isRecording = false;
-        timeList.add(new String[]{String.valueOf(System.currentTimeMillis()), "Pause", String.valueOf(clipNumber)});
-        clipNumber++;
+        runInBackground(() -> {
+            // the marker follows the last frame of the clip, so the queued frames are recorded first
+            if (isContinuous && captureEngine != null) {
+                try {
+                    if (!captureEngine.pauseAndDrain(5000)) {
+                        notifyWarning("The encoder did not finish within 5 seconds, frames may follow the pause.");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                frameIndexWriter.writeMarker(pauseTimestampNanos, "Pause", clipNumber);
+                return;
+            }
+            stopCaptureEngine();
+            awaitCaptureEngine();
+            frameIndexWriter.writeMarker(pauseTimestampNanos, "Pause", clipNumber);
+            clipNumber++;
+        });
     }
 
     /**
-     * Resume recording the screen. Invoke {@link #recordScreen()}.
+     * Resume recording the screen on the lifecycle thread. In continuous recording mode, the paused capture engine is
+     * resumed. Otherwise, a new clip is started by invoking {@link #recordScreen()}.
      */
     public void resumeRecording() {
+        if (state == 0) {
+            // the screen is not recorded in this session
+            return;
+        }
+        long resumeTimestampNanos = SessionClock.getInstance().nanoTime();
+        boolean isContinuous = isContinuousRecording;
         state = 1;
         isRecording = true;
-        timeList.add(new String[]{String.valueOf(System.currentTimeMillis()), "Resume", String.valueOf(clipNumber)});
-        try {
+        runInBackground(() -> {
+            if (isContinuous && captureEngine != null && !isCaptureRegionChanged()) {
+                frameIndexWriter.writeMarker(resumeTimestampNanos, "Resume", clipNumber);
+                captureEngine.setPaused(false);
+                return;
+            }
+            if (isContinuous && captureEngine != null) {
+                // the IDE window moved while paused: continue in a new clip with the new region
+                stopCaptureEngine();
+                clipNumber++;
+            }
+            // the marker must not precede the last frames of the previous clip
+            awaitCaptureEngine();
+            frameIndexWriter.writeMarker(resumeTimestampNanos, "Resume", clipNumber);
             recordScreen();
-        } catch (AWTException | IOException e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     /**
-     * Record the screen. Use {@link Timer} to schedule the recording with the given frame rate.
+     * Record the screen. Start a {@link ScreenCaptureEngine} that grabs frames on a dedicated thread at the given frame
+     * rate and encodes them on another thread. Each frame is appended to the frame index with its capture timestamp
+     * once it is recorded, so that dropped frames never appear in {@code frames.csv}.
      */
     private void recordScreen() throws AWTException, IOException {
+        // let the previous clip finish encoding so that the rows of different clips do not interleave
+        awaitCaptureEngine();
         createEncoder();
         frameNumber = 0;
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                if (!isRecording) {
+        int currentClip = clipNumber;
+        // the engine of the previous clip may still be draining, so each clip counts its own frames
+        AtomicInteger clipFrameNumber = new AtomicInteger();
+        int minimumFrameRate = isAdaptiveFrameRate ? minFrameRate : frameRate;
+        captureEngine = new ScreenCaptureEngine(grabber, recorder, getRecordingFrameRate(), minimumFrameRate,
+                idleTimeout, queueCapacity, dropPolicy,
+                captureTimestamp -> {
+                    int number = clipFrameNumber.incrementAndGet();
+                    frameNumber = number;
                     try {
-                        grabber.stop();
-                        recorder.stop();
-                        grabber.release();
-                        recorder.release();
+                        frameIndexWriter.writeFrame(captureTimestamp, number, currentClip);
                     } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                    timer.cancel();
-                } else {
-                    frameNumber++;
-                    timeList.add(new String[]{String.valueOf(System.currentTimeMillis()), String.valueOf(frameNumber), String.valueOf(clipNumber)});
-                    try {
-                        Frame frame = grabber.grabFrame();
-                        recorder.record(frame);
-                    } catch (FrameGrabber.Exception | FrameRecorder.Exception e) {
-                        throw new RuntimeException(e);
+                        e.printStackTrace();
                     }
+                });
+        captureEngine.start();
+    }
 
-                }
+    /**
+     * Get the frame rate of the grabber and the recorder. In adaptive mode, this is the maximum frame rate, and the
+     * frames are placed on its time base according to their capture timestamps.
+     *
+     * @return The frame rate.
+     */
+    private int getRecordingFrameRate() {
+        return isAdaptiveFrameRate ? maxFrameRate : frameRate;
+    }
+
+    /**
+     * Report activity in the IDE (e.g., typing, scrolling, or mouse movement). In adaptive mode, the frame rate is
+     * raised to the maximum frame rate.
+     */
+    public void notifyActivity() {
+        ScreenCaptureEngine engine = captureEngine;
+        if (isAdaptiveFrameRate && isRecording && engine != null) {
+            engine.notifyActivity();
+        }
+    }
+
+    /**
+     * Stop the capture engine of the current clip. The remaining frames are encoded in the background.
+     */
+    private void stopCaptureEngine() {
+        if (captureEngine != null) {
+            captureEngine.stop();
+            droppedFrames += captureEngine.getDroppedFrames();
+        }
+    }
+
+    /**
+     * Wait for the capture engine of the last clip to encode its remaining frames.
+     */
+    private void awaitCaptureEngine() {
+        try {
+            if (captureEngine != null && !captureEngine.awaitTermination(5000)) {
+                notifyWarning("The encoder did not finish within 5 seconds, the end of the clip may be missing.");
             }
-        }, 0, 1000 / frameRate);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Show a warning notification of the screen recorder.
+     *
+     * @param content The content of the notification.
+     */
+    private void notifyWarning(String content) {
+        Notification notification = new Notification("CodeGRITS Notification Group", "Screen recorder",
+                content, NotificationType.WARNING);
+        notification.notify(project);
+    }
+
+    /**
+     * Set the frame rate of the screen recorder.
+     *
+     * @param frameRate The frame rate.
+     */
+    public void setFrameRate(int frameRate) {
+        this.frameRate = frameRate;
+    }
+
+    /**
+     * Set whether the frame rate adapts to the activity in the IDE.
+     *
+     * @param isAdaptiveFrameRate Whether the adaptive frame rate is enabled.
+     */
+    public void setAdaptiveFrameRate(boolean isAdaptiveFrameRate) {
+        this.isAdaptiveFrameRate = isAdaptiveFrameRate;
+    }
+
+    /**
+     * Set the range of the adaptive frame rate.
+     *
+     * @param minFrameRate The frame rate when the IDE is idle.
+     * @param maxFrameRate The frame rate when there is activity in the IDE.
+     */
+    public void setAdaptiveFrameRateRange(int minFrameRate, int maxFrameRate) {
+        this.minFrameRate = Math.max(1, Math.min(minFrameRate, maxFrameRate));
+        this.maxFrameRate = Math.max(1, maxFrameRate);
+    }
+
+    /**
+     * Set the time without activity after which the adaptive frame rate is halved.
+     *
+     * @param idleTimeout The idle timeout in milliseconds.
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Set whether the binary frame index {@code frames.idx} is written next to {@code frames.csv}.
+     *
+     * @param isBinaryFrameIndexEnabled Whether the binary frame index is written.
+     */
+    public void setBinaryFrameIndexEnabled(boolean isBinaryFrameIndexEnabled) {
+        this.isBinaryFrameIndexEnabled = isBinaryFrameIndexEnabled;
+    }
+
+    /**
+     * Set whether the grabber and the encoder are kept alive across pauses, producing a single clip per session.
+     *
+     * @param isContinuousRecording Whether continuous recording is enabled.
+     */
+    public void setContinuousRecording(boolean isContinuousRecording) {
+        this.isContinuousRecording = isContinuousRecording;
+    }
+
+    /**
+     * Set whether only the IDE window of the project is captured instead of the whole screen. When the IDE window is
+     * moved or resized, a new clip is started with the new region.
+     *
+     * @param isRegionCapture Whether region capture is enabled.
+     */
+    public void setRegionCapture(boolean isRegionCapture) {
+        this.isRegionCapture = isRegionCapture;
+    }
+
+    /**
+     * Set the project whose IDE window is captured in region capture mode.
+     *
+     * @param project The project.
+     */
+    public void setProject(Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Set the capacity of the queue between the grab thread and the encoder thread.
+     *
+     * @param queueCapacity The queue capacity.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Set the policy applied when the encoder falls behind and the queue is full.
+     *
+     * @param dropPolicy The drop policy.
+     */
+    public void setDropPolicy(ScreenCaptureEngine.DropPolicy dropPolicy) {
+        this.dropPolicy = dropPolicy;
+    }
+
+    /**
+     * Get the number of frames dropped in the current session because the encoder fell behind.
+     *
+     * @return The number of dropped frames.
+     */
+    public long getDroppedFrames() {
+        return captureEngine != null && (state == 1 || isContinuousRecording) ? droppedFrames + captureEngine.getDroppedFrames() : droppedFrames;
     }
 
     /**
@@ -0,0 +1,253 @@
+package trackers;
+
+import utils.SessionClock;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * This class is an eye tracker device simulated in the JVM, without Python or hardware. It either follows the mouse
+ * pointer, like the mouse of the Python daemon, or generates a synthetic gaze of fixations, saccades and blinks. The samples
+ * are scheduled on a dedicated thread at the sample frequency, up to several kHz, so that the whole gaze pipeline can be
+ * load-tested. Each sample has the time on the {@link SessionClock} it was scheduled at, so the timestamps stay regular
+ * even if the consumer falls behind.
+ */
+public class SimulatedEyeTrackerDevice implements EyeTrackerDevice {
+
+    /**
+     * The mode of the simulator.
+     */
+    public enum Mode {
+        /**
+         * Follow the mouse pointer.
+         */
+        MOUSE("Mouse (In-JVM)"),
+        /**
+         * Generate fixations, saccades and blinks with a seeded random generator.
+         */
+        SYNTHETIC("Synthetic Gaze (In-JVM)");
+
+        private final String displayName;
+
+        Mode(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * Get the mode with the given name, e.g., from the configuration.
+         *
+         * @param name The name of the mode.
+         * @return The mode, or {@code null} if the name is unknown, i.e., no simulator.
+         */
+        public static Mode fromName(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equals(name)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * The maximum sample frequency in Hz.
+     */
+    public static final double MAX_SAMPLE_FREQUENCY = 10000;
+    /**
+     * The maximum number of late samples emitted at once. If the consumer falls further behind, the late samples are
+     * skipped instead of flooding it.
+     */
+    private static final int MAX_CATCH_UP = 1000;
+
+    private final Mode mode;
+    private final Random random;
+    private volatile boolean isRunning = false;
+    private Thread simulatorThread;
+    private long skippedSamples = 0;
+    private volatile long cpuTime = -1;
+    private Dimension screenSize;
+
+    /**
+     * These variables are the state of the synthetic gaze, in coordinates normalized to the screen.
+     */
+    private double gazeX = 0.5, gazeY = 0.5;
+    private double targetX = 0.5, targetY = 0.5;
+    private double saccadeStartX, saccadeStartY;
+    private long phaseStart, phaseEnd;
+    private boolean isSaccade = false, isBlink = false;
+
+    /**
+     * The constructor of the device.
+     *
+     * @param mode The mode of the simulator.
+     * @param seed The seed of the random generator of the synthetic gaze.
+     */
+    public SimulatedEyeTrackerDevice(Mode mode, long seed) {
+        this.mode = mode;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public String getName() {
+        return mode == Mode.MOUSE ? "Simulated Mouse" : "Simulated Gaze";
+    }
+
+    @Override
+    public void start(double sampleFrequency, Consumer<String> sampleConsumer) {
+        double frequency = Math.max(1, Math.min(MAX_SAMPLE_FREQUENCY, sampleFrequency));
+        long intervalNanos = Math.round(1e9 / frequency);
+        if (mode == Mode.MOUSE) {
+            screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        }
+        isRunning = true;
+        simulatorThread = new Thread(() -> {
+            SessionClock clock = SessionClock.getInstance();
+            long nextNanos = System.nanoTime();
+            StringBuilder message = new StringBuilder(128);
+            while (isRunning) {
+                long now = System.nanoTime();
+                if (now < nextNanos) {
+                    LockSupport.parkNanos(nextNanos - now);
+                    continue;
+                }
+                for (int i = 0; i < MAX_CATCH_UP && nextNanos <= now && isRunning; i++) {
+                    long epochNanos = clock.toEpochNanos(nextNanos);
+                    long timestamp = SessionClock.toMillis(epochNanos);
+                    message.setLength(0);
+                    if (mode == Mode.MOUSE) {
+                        appendMouseSample(message, timestamp);
+                    } else {
+                        appendSyntheticSample(message, timestamp);
+                    }
+                    message.append("; ").append(epochNanos);
+                    sampleConsumer.accept(message.toString());
+                    nextNanos += intervalNanos;
+                }
+                if (nextNanos <= now) {
+                    skippedSamples += (now - nextNanos) / intervalNanos + 1;
+                    nextNanos += ((now - nextNanos) / intervalNanos + 1) * intervalNanos;
+                }
+            }
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+                cpuTime = threadMXBean.getCurrentThreadCpuTime();
+            }
+        }, "CodeGRITS Gaze Simulator");
+        simulatorThread.setDaemon(true);
+        simulatorThread.start();
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        if (simulatorThread != null) {
+            LockSupport.unpark(simulatorThread);
+            try {
+                simulatorThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (skippedSamples > 0) {
+                System.err.println("Gaze simulator: " + skippedSamples + " samples skipped, the consumer was too slow");
+            }
+        }
+    }
+
+    /**
+     * Get the CPU time used by the simulator thread, excluding the consumer of the samples. It is only known after the
+     * simulator has stopped.
+     *
+     * @return The CPU time in nanoseconds, or -1 if it is unknown.
+     */
+    @Override
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    @Override
+    public long getClockUncertainty() {
+        return 0;
+    }
+
+    /**
+     * Get the number of samples skipped because the consumer was too slow.
+     *
+     * @return The number of skipped samples.
+     */
+    public long getSkippedSamples() {
+        return skippedSamples;
+    }
+
+    private void appendMouseSample(StringBuilder message, long timestamp) {
+        PointerInfo pointerInfo = MouseInfo.getPointerInfo();
+        if (pointerInfo == null) {
+            appendSample(message, timestamp, Double.NaN, Double.NaN, 0);
+            return;
+        }
+        // normalized to the primary screen, like the mouse of the Python daemon
+        Point point = pointerInfo.getLocation();
+        appendSample(message, timestamp, point.x / screenSize.getWidth(), point.y / screenSize.getHeight(), 0);
+    }
+
+    /**
+     * Append a synthetic sample. The gaze fixates a random point for 150 to 450 ms with some jitter, then moves to the
+     * next point in a saccade of 20 to 50 ms. About one fixation in 20 ends with a blink of 100 ms.
+     */
+    private void appendSyntheticSample(StringBuilder message, long timestamp) {
+        if (timestamp >= phaseEnd) {
+            phaseStart = timestamp;
+            if (isSaccade) {
+                isSaccade = false;
+                phaseEnd = timestamp + 150 + random.nextInt(300);
+            } else if (!isBlink && random.nextInt(20) == 0) {
+                isBlink = true;
+                phaseEnd = timestamp + 100;
+            } else {
+                isBlink = false;
+                isSaccade = true;
+                saccadeStartX = gazeX;
+                saccadeStartY = gazeY;
+                targetX = 0.1 + 0.8 * random.nextDouble();
+                targetY = 0.1 + 0.8 * random.nextDouble();
+                phaseEnd = timestamp + 20 + random.nextInt(30);
+            }
+        }
+        if (isBlink) {
+            appendSample(message, timestamp, Double.NaN, Double.NaN, 0);
+            return;
+        }
+        if (isSaccade) {
+            double progress = (double) (timestamp - phaseStart) / Math.max(1, phaseEnd - phaseStart);
+            gazeX = saccadeStartX + (targetX - saccadeStartX) * progress;
+            gazeY = saccadeStartY + (targetY - saccadeStartY) * progress;
+        } else {
+            gazeX = targetX + random.nextGaussian() * 0.002;
+            gazeY = targetY + random.nextGaussian() * 0.002;
+        }
+        appendSample(message, timestamp, gazeX, gazeY, 3.0 + random.nextGaussian() * 0.05);
+    }
+
+    /**
+     * Append a raw data message with the same gaze point and pupil diameter for both eyes.
+     */
+    private static void appendSample(StringBuilder message, long timestamp, double x, double y, double pupilDiameter) {
+        message.append(timestamp);
+        for (int eye = 0; eye < 2; eye++) {
+            message.append("; ");
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                message.append("nan, nan, 0, nan, 0");
+            } else {
+                message.append(x).append(", ").append(y).append(", 1, ").append(pupilDiameter).append(", 1");
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package trackers;
+
+/**
+ * This class is a preallocated, mutable record of a tracking event, published by the listeners of the IDE tracker into
+ * the {@link EventRingBuffer} and turned into XML by a single consumer thread. An event is either an element (a tag
+ * with attributes, e.g., {@code <mouse>}) or an archive request. Records are reused, so they must not be kept after
+ * they are released to the ring buffer.
+ */
+public class TrackingEvent {
+
+    /**
+     * The type of the tracking event.
+     */
+    public enum Type {
+        /**
+         * An XML element with its attributes.
+         */
+        ELEMENT,
+        /**
+         * A request to archive a file or the console output.
+         */
+        ARCHIVE
+    }
+
+    /**
+     * The maximum number of attributes of an element event.
+     */
+    public static final int MAX_ATTRIBUTES = 16;
+
+    private Type type;
+    private String tag;
+    private final String[] attributeNames = new String[MAX_ATTRIBUTES];
+    private final String[] attributeValues = new String[MAX_ATTRIBUTES];
+    private int attributeCount;
+    private String archivePath;
+    private String archiveTimestamp;
+    private String archiveRemark;
+    private String archiveText;
+    /**
+     * This variable is the position of the record in the ring buffer, set when the record is claimed.
+     */
+    long position;
+
+    /**
+     * Make this record an element event.
+     *
+     * @param tag The tag of the element.
+     * @return This record.
+     */
+    public TrackingEvent setElement(String tag) {
+        this.type = Type.ELEMENT;
+        this.tag = tag;
+        this.attributeCount = 0;
+        return this;
+    }
+
+    /**
+     * Add an attribute to an element event. Attributes beyond {@link #MAX_ATTRIBUTES} are ignored.
+     *
+     * @param name  The name of the attribute.
+     * @param value The value of the attribute.
+     * @return This record.
+     */
+    public TrackingEvent put(String name, String value) {
+        if (attributeCount < MAX_ATTRIBUTES) {
+            attributeNames[attributeCount] = name;
+            attributeValues[attributeCount] = value;
+            attributeCount++;
+        }
+        return this;
+    }
+
+    /**
+     * Add the {@code timestamp} attribute in milliseconds and the {@code timestamp_ns} attribute in nanoseconds to an
+     * element event.
+     *
+     * @param epochNanos The time of the event on the {@link utils.SessionClock}.
+     * @return This record.
+     */
+    public TrackingEvent putTimestamp(long epochNanos) {
+        put("timestamp", String.valueOf(utils.SessionClock.toMillis(epochNanos)));
+        return put("timestamp_ns", String.valueOf(epochNanos));
+    }
+
+    /**
+     * Make this record an archive event. The arguments are the same as those of {@link IDETracker#archiveFile}.
+     *
+     * @param path      The path of the file, or {@code unknown} for the console output.
+     * @param timestamp The timestamp of the archive.
+     * @param remark    The remark of the archive.
+     * @param text      The text to archive, or {@code null} to copy the file.
+     * @return This record.
+     */
+    public TrackingEvent setArchive(String path, String timestamp, String remark, String text) {
+        this.type = Type.ARCHIVE;
+        this.archivePath = path;
+        this.archiveTimestamp = timestamp;
+        this.archiveRemark = remark;
+        this.archiveText = text;
+        return this;
+    }
+
+    /**
+     * Clear the references held by this record, so that a released record does not keep texts alive.
+     */
+    void clear() {
+        type = null;
+        tag = null;
+        for (int i = 0; i < attributeCount; i++) {
+            attributeNames[i] = null;
+            attributeValues[i] = null;
+        }
+        attributeCount = 0;
+        archivePath = null;
+        archiveTimestamp = null;
+        archiveRemark = null;
+        archiveText = null;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    public String getAttributeName(int index) {
+        return attributeNames[index];
+    }
+
+    public String getAttributeValue(int index) {
+        return attributeValues[index];
+    }
+
+    public String getArchivePath() {
+        return archivePath;
+    }
+
+    public String getArchiveTimestamp() {
+        return archiveTimestamp;
+    }
+
+    public String getArchiveRemark() {
+        return archiveRemark;
+    }
+
+    public String getArchiveText() {
+        return archiveText;
+    }
+}
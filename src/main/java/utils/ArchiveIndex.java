@@ -0,0 +1,206 @@
+package utils;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class is used to look up the archived state of a file or of the console at any timestamp of a session, using
+ * the archive index {@code archives/index.csv} instead of scanning the {@code archives} directory. The archives of each
+ * file are kept sorted by timestamp, so that a lookup is a binary search.
+ */
+public class ArchiveIndex {
+    /**
+     * The id of file archives.
+     */
+    public static final String FILE_ARCHIVE = "fileArchive";
+    /**
+     * The id of console archives.
+     */
+    public static final String CONSOLE_ARCHIVE = "consoleArchive";
+
+    /**
+     * The archives of a single file (or of the console), sorted by timestamp.
+     */
+    private static final class Entries {
+        long[] timestamps = new long[8];
+        long[] offsets = new long[8];
+        long[] lengths = new long[8];
+        int size = 0;
+
+        void add(long timestamp, long offset, long length) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            timestamps[size] = timestamp;
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+
+        boolean isSorted() {
+            for (int i = 1; i < size; i++) {
+                if (timestamps[i - 1] > timestamps[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> timestamps[i]));
+            long[] sortedTimestamps = new long[size];
+            long[] sortedOffsets = new long[size];
+            long[] sortedLengths = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedTimestamps[i] = timestamps[order[i]];
+                sortedOffsets[i] = offsets[order[i]];
+                sortedLengths[i] = lengths[order[i]];
+            }
+            timestamps = sortedTimestamps;
+            offsets = sortedOffsets;
+            lengths = sortedLengths;
+        }
+
+        /**
+         * Find the last archive whose timestamp is not greater than the given timestamp.
+         *
+         * @param timestamp The timestamp.
+         * @return The position of the archive, or -1 if all archives are later than the timestamp.
+         */
+        int floor(long timestamp) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] <= timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+    }
+
+    private final File archiveDirectory;
+    private final Map<String, Entries> fileEntries = new HashMap<>();
+    private final Entries consoleEntries = new Entries();
+
+    /**
+     * The constructor of the archive index. The index is loaded from {@code archives/index.csv} of the session.
+     *
+     * @param sessionPath The path of the session folder, i.e., {@code [OUTPUT_DIR]/[START_TIMESTAMP]}.
+     */
+    public ArchiveIndex(String sessionPath) throws IOException {
+        archiveDirectory = new File(sessionPath, "archives");
+        File indexFile = new File(archiveDirectory, "index.csv");
+        try (CSVReader reader = new CSVReader(new FileReader(indexFile))) {
+            reader.skip(1);
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length < 5) {
+                    continue;
+                }
+                try {
+                    Entries entries = row[0].equals(CONSOLE_ARCHIVE) ? consoleEntries
+                            : fileEntries.computeIfAbsent(row[1], path -> new Entries());
+                    entries.add(Long.parseLong(row[2]), Long.parseLong(row[3]), Long.parseLong(row[4]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Archive index: skipping malformed row " + Arrays.toString(row));
+                }
+            }
+        } catch (CsvException e) {
+            throw new IOException("Failed to read the archive index: " + e.getMessage(), e);
+        }
+        // the index is sorted when the tracking stops, but may not be if the IDE exited unexpectedly
+        for (Entries entries : fileEntries.values()) {
+            if (!entries.isSorted()) {
+                entries.sort();
+            }
+        }
+        if (!consoleEntries.isSorted()) {
+            consoleEntries.sort();
+        }
+    }
+
+    /**
+     * Get the relative paths of all archived files.
+     *
+     * @return The relative paths of the archived files.
+     */
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(fileEntries.keySet());
+    }
+
+    /**
+     * Get the timestamp of the archive of a file that was current at the given timestamp, i.e., the latest archive not
+     * later than the timestamp.
+     *
+     * @param path      The relative path of the file, as in the {@code path} attribute of {@code <archive>}.
+     * @param timestamp The timestamp.
+     * @return The timestamp of the archive, or -1 if the file was not archived before the timestamp.
+     */
+    public long getArchiveTimestamp(String path, long timestamp) {
+        Entries entries = fileEntries.get(path);
+        if (entries == null) {
+            return -1;
+        }
+        int index = entries.floor(timestamp);
+        return index >= 0 ? entries.timestamps[index] : -1;
+    }
+
+    /**
+     * Get the content of a file at the given timestamp.
+     *
+     * @param path      The relative path of the file, as in the {@code path} attribute of {@code <archive>}.
+     * @param timestamp The timestamp.
+     * @return The content of the file, or {@code null} if the file was not archived before the timestamp.
+     */
+    public String getFileContentAt(String path, long timestamp) throws IOException {
+        Entries entries = fileEntries.get(path);
+        return entries == null ? null : read(entries, entries.floor(timestamp));
+    }
+
+    /**
+     * Get the console output at the given timestamp.
+     *
+     * @param timestamp The timestamp.
+     * @return The console output, or {@code null} if the console was not archived before the timestamp.
+     */
+    public String getConsoleOutputAt(long timestamp) throws IOException {
+        return read(consoleEntries, consoleEntries.floor(timestamp));
+    }
+
+    /**
+     * Read an archive from its archive file.
+     *
+     * @param entries The archives of the file.
+     * @param index   The position of the archive, or -1.
+     * @return The content of the archive, or {@code null} if the position is -1.
+     */
+    private String read(Entries entries, int index) throws IOException {
+        if (index < 0) {
+            return null;
+        }
+        File archiveFile = new File(archiveDirectory, entries.timestamps[index] + ".archive");
+        try (RandomAccessFile file = new RandomAccessFile(archiveFile, "r")) {
+            byte[] bytes = new byte[(int) entries.lengths[index]];
+            file.seek(entries.offsets[index]);
+            file.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
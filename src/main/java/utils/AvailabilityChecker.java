@@ -1,36 +1,57 @@
 package utils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class is used to check the availability of the python environment and the eye-tracking device, and to get the eye tracker name and the available frequencies.
+ * The checks are answered by the warm {@link PythonDeviceDaemon} of the python interpreter instead of a new python process for each check.
+ * <p>
+ * The results are probed together and cached by the python interpreter and the serial number of the eye tracker. A result is fresh for
+ * {@link #CAPABILITIES_TTL_MILLIS}, or for {@link #NOT_FOUND_TTL_MILLIS} if no eye tracker is found, so that an eye tracker connected in
+ * the meantime is found soon. After that, the cached result is still returned and a probe is started in the background, so that opening
+ * the configuration dialog and starting the tracking do not wait for the discovery of the eye tracker. Only the first check of a python
+ * interpreter waits for the probe.
  */
 public class AvailabilityChecker {
+    /**
+     * The time in milliseconds for which a probed result is used without probing again.
+     */
+    public static final long CAPABILITIES_TTL_MILLIS = 5 * 60 * 1000;
+    /**
+     * The time in milliseconds for which a probed result without an eye tracker is used without probing again.
+     */
+    public static final long NOT_FOUND_TTL_MILLIS = 10 * 1000;
+
+    /**
+     * This variable maps the python interpreter and the serial number of the eye tracker to the probed result.
+     */
+    private static final Map<String, DeviceCapabilities> capabilitiesCache = new ConcurrentHashMap<>();
+    /**
+     * This variable maps the python interpreter to the serial number of its eye tracker in the latest probe.
+     */
+    private static final Map<String, String> latestSerialNumbers = new ConcurrentHashMap<>();
+    private static final Set<String> refreshingInterpreters = ConcurrentHashMap.newKeySet();
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CodeGRITS Device Capability Refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
-     * Check the availability of the python environment, i.e., whether the required python packages are installed.
+     * Check the availability of the python environment, i.e., whether the required python packages are installed. It only asks the
+     * daemon whether the packages were imported, without discovering the eye tracker.
      *
      * @param pythonInterpreter The path of the python interpreter.
      * @return {@code true} if the python environment is available, {@code false} otherwise.
      */
     public static boolean checkPythonEnvironment(String pythonInterpreter) throws IOException, InterruptedException {
-        String pythonScript = """
-                import tobii_research as tr
-                from screeninfo import get_monitors
-                import pyautogui
-                import time
-                import sys
-                import math
-                
-                print('OK')
-                """;
-
-        String line = runPythonScript(pythonInterpreter, pythonScript);
-        return line.equals("OK");
+        return PythonDeviceDaemon.getInstance(pythonInterpreter).request("CHECK_ENV").equals("OK");
     }
 
     /**
@@ -40,38 +61,18 @@ public class AvailabilityChecker {
      * @return {@code true} if the eye-tracking device is available, {@code false} otherwise.
      */
     public static boolean checkEyeTracker(String pythonInterpreter) throws IOException, InterruptedException {
-        String pythonScript = """
-                import tobii_research as tr
-                
-                found_eyetrackers = tr.find_all_eyetrackers()
-                if found_eyetrackers == ():
-                    print('Not Found')
-                else:
-                    print('Found')
-                """;
-
-        String line = runPythonScript(pythonInterpreter, pythonScript);
-        return line.equals("Found");
+        return getCapabilities(pythonInterpreter).isEyeTrackerFound();
     }
 
     /**
      * Get the name of the eye-tracking device.
      *
      * @param pythonInterpreter The path of the python interpreter.
-     * @return The name of the eye tracker.
+     * @return The name of the eye tracker, or {@code Not Found}.
      */
     public static String getEyeTrackerName(String pythonInterpreter) throws IOException, InterruptedException {
-        String pythonScript = """
-                import tobii_research as tr
-                
-                found_eyetrackers = tr.find_all_eyetrackers()
-                if found_eyetrackers == ():
-                    print('Not Found')
-                else:
-                    print(found_eyetrackers[0].device_name)
-                """;
-
-        return runPythonScript(pythonInterpreter, pythonScript);
+        DeviceCapabilities capabilities = getCapabilities(pythonInterpreter);
+        return capabilities.isEyeTrackerFound() ? capabilities.getEyeTrackerName() : "Not Found";
     }
 
     /**
@@ -81,37 +82,75 @@ public class AvailabilityChecker {
      * @return The available frequencies of the eye tracker.
      */
     public static List<String> getFrequencies(String pythonInterpreter) throws IOException, InterruptedException {
-        String pythonScript = """
-                import tobii_research as tr
-                
-                found_eyetrackers = tr.find_all_eyetrackers()
-                if found_eyetrackers == ():
-                    print('Not Found')
-                else:
-                    print(found_eyetrackers[0].get_all_gaze_output_frequencies())
-                """;
-        String resultTuple = runPythonScript(pythonInterpreter, pythonScript); //(30.0, 60.0, 90.0)
+        return getCapabilities(pythonInterpreter).getFrequencies();
+    }
+
+    /**
+     * Get the capabilities of the python interpreter and its eye tracker. The cached result is returned if there is one, and it is refreshed
+     * in the background if it is older than {@link #CAPABILITIES_TTL_MILLIS}, or {@link #NOT_FOUND_TTL_MILLIS} without an eye tracker.
+     * Otherwise, the capabilities are probed.
+     *
+     * @param pythonInterpreter The path of the python interpreter.
+     * @return The capabilities.
+     */
+    public static DeviceCapabilities getCapabilities(String pythonInterpreter) throws IOException, InterruptedException {
+        DeviceCapabilities cached = getCachedCapabilities(pythonInterpreter);
+        if (cached == null) {
+            return probe(pythonInterpreter);
+        }
+        long ttl = cached.isEyeTrackerFound() ? CAPABILITIES_TTL_MILLIS : NOT_FOUND_TTL_MILLIS;
+        if (System.currentTimeMillis() - cached.getProbeTime() > ttl) {
+            refreshInBackground(pythonInterpreter);
+        }
+        return cached;
+    }
 
-        return List.of(resultTuple.substring(1, resultTuple.length() - 1).split(", "));
+    /**
+     * Get the cached capabilities of the python interpreter, without probing.
+     *
+     * @param pythonInterpreter The path of the python interpreter.
+     * @return The capabilities of the latest probe, or {@code null} if it has not been probed.
+     */
+    public static DeviceCapabilities getCachedCapabilities(String pythonInterpreter) {
+        String serialNumber = latestSerialNumbers.get(pythonInterpreter);
+        return serialNumber == null ? null : capabilitiesCache.get(getCacheKey(pythonInterpreter, serialNumber));
     }
 
     /**
-     * Run a python script with {@code ProcessBuilder} and use {@code BufferedReader} to get the first line of the output.
+     * Probe the capabilities in the background if they are not cached or no longer fresh, e.g., when the configuration dialog is opened.
      *
      * @param pythonInterpreter The path of the python interpreter.
-     * @param pythonScript      The python script to run.
-     * @return The first line of the output.
      */
-    private static String runPythonScript(String pythonInterpreter, String pythonScript) throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder(pythonInterpreter, "-c", pythonScript);
-        pb.redirectErrorStream(true);
-        Process p;
-        p = pb.start();
+    public static void refreshInBackground(String pythonInterpreter) {
+        if (!refreshingInterpreters.add(pythonInterpreter)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                probe(pythonInterpreter);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                refreshingInterpreters.remove(pythonInterpreter);
+            }
+        });
+    }
+
+    /**
+     * Probe the capabilities with the {@code CAPABILITIES} command of the daemon and cache the result.
+     */
+    private static DeviceCapabilities probe(String pythonInterpreter) throws IOException, InterruptedException {
+        String response = PythonDeviceDaemon.getInstance(pythonInterpreter).request("CAPABILITIES");
+        DeviceCapabilities capabilities = DeviceCapabilities.parse(response, System.currentTimeMillis());
+        String serialNumber = capabilities.isEyeTrackerFound() ? capabilities.getSerialNumber() : "";
+        capabilitiesCache.put(getCacheKey(pythonInterpreter, serialNumber), capabilities);
+        latestSerialNumbers.put(pythonInterpreter, serialNumber);
+        return capabilities;
+    }
 
-        InputStream stdout = p.getInputStream();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(stdout));
-        String line = reader.readLine();
-        p.waitFor();
-        return line;
+    private static String getCacheKey(String pythonInterpreter, String serialNumber) {
+        return pythonInterpreter + "\n" + serialNumber;
     }
 }
@@ -0,0 +1,77 @@
+package utils;
+
+import java.util.List;
+
+/**
+ * This class is the result of probing a Python interpreter and the eye tracker connected to it, cached by
+ * {@link AvailabilityChecker}.
+ */
+public class DeviceCapabilities {
+    private final boolean isPythonEnvironment;
+    private final String serialNumber;
+    private final String eyeTrackerName;
+    private final List<String> frequencies;
+    private final long probeTime;
+
+    /**
+     * The constructor of the capabilities.
+     *
+     * @param isPythonEnvironment Whether the required python packages are installed.
+     * @param serialNumber        The serial number of the eye tracker, or {@code null} if it is not found.
+     * @param eyeTrackerName      The name of the eye tracker, or {@code null} if it is not found.
+     * @param frequencies         The gaze output frequencies of the eye tracker, empty if it is not found.
+     * @param probeTime           The time of the probe in milliseconds.
+     */
+    public DeviceCapabilities(boolean isPythonEnvironment, String serialNumber, String eyeTrackerName,
+                              List<String> frequencies, long probeTime) {
+        this.isPythonEnvironment = isPythonEnvironment;
+        this.serialNumber = serialNumber;
+        this.eyeTrackerName = eyeTrackerName;
+        this.frequencies = List.copyOf(frequencies);
+        this.probeTime = probeTime;
+    }
+
+    /**
+     * Parse the response of the {@code CAPABILITIES} command of {@link PythonDeviceDaemon}.
+     *
+     * @param response  The response, e.g., {@code OK\tTPFC2-010202524041\tTobii Pro Fusion\t(30.0, 60.0)}.
+     * @param probeTime The time of the probe in milliseconds.
+     * @return The capabilities.
+     */
+    public static DeviceCapabilities parse(String response, long probeTime) {
+        if (response.startsWith("ERROR")) {
+            return new DeviceCapabilities(false, null, null, List.of(), probeTime);
+        }
+        String[] fields = response.split("\t");
+        if (!fields[0].equals("OK") || fields.length < 4) {
+            return new DeviceCapabilities(true, null, null, List.of(), probeTime);
+        }
+        String resultTuple = fields[3]; //(30.0, 60.0, 90.0)
+        List<String> frequencies = List.of(resultTuple.substring(1, resultTuple.length() - 1).split(", "));
+        return new DeviceCapabilities(true, fields[1], fields[2], frequencies, probeTime);
+    }
+
+    public boolean isPythonEnvironment() {
+        return isPythonEnvironment;
+    }
+
+    public boolean isEyeTrackerFound() {
+        return serialNumber != null;
+    }
+
+    public String getSerialNumber() {
+        return serialNumber;
+    }
+
+    public String getEyeTrackerName() {
+        return eyeTrackerName;
+    }
+
+    public List<String> getFrequencies() {
+        return frequencies;
+    }
+
+    public long getProbeTime() {
+        return probeTime;
+    }
+}
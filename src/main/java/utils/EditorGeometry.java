@@ -0,0 +1,137 @@
+package utils;
+
+import org.w3c.dom.Element;
+
+/**
+ * This class is the geometry of the code editor at a point of a session, as recorded in the {@code <editor_geometry>}
+ * elements of {@code eye_tracking.xml} with the deferred gaze resolution policy. It maps a point on the screen to a
+ * logical position (line and column) without the live editor, assuming a monospaced font without folded regions, soft
+ * wraps or inlays.
+ */
+public class EditorGeometry {
+    private final long timestamp;
+    private final String path;
+    private final int editorX, editorY;
+    private final int visibleX, visibleY, visibleWidth, visibleHeight;
+    private final int originX, originY;
+    private final int lineHeight;
+    private final double charWidth;
+    private final int tabSize;
+
+    /**
+     * The constructor of the editor geometry.
+     *
+     * @param element The {@code <editor_geometry>} element.
+     */
+    public EditorGeometry(Element element) {
+        timestamp = Long.parseLong(element.getAttribute("timestamp"));
+        path = element.getAttribute("path");
+        editorX = Integer.parseInt(element.getAttribute("editor_x"));
+        editorY = Integer.parseInt(element.getAttribute("editor_y"));
+        visibleX = Integer.parseInt(element.getAttribute("visible_x"));
+        visibleY = Integer.parseInt(element.getAttribute("visible_y"));
+        visibleWidth = Integer.parseInt(element.getAttribute("visible_width"));
+        visibleHeight = Integer.parseInt(element.getAttribute("visible_height"));
+        originX = Integer.parseInt(element.getAttribute("origin_x"));
+        originY = Integer.parseInt(element.getAttribute("origin_y"));
+        lineHeight = Math.max(1, Integer.parseInt(element.getAttribute("line_height")));
+        charWidth = Math.max(1, Double.parseDouble(element.getAttribute("char_width")));
+        tabSize = Math.max(1, Integer.parseInt(element.getAttribute("tab_size")));
+    }
+
+    /**
+     * Map a point on the screen to a logical position in the editor.
+     *
+     * @param screenX The x coordinate on the screen.
+     * @param screenY The y coordinate on the screen.
+     * @return The line and column, or {@code null} if the point is outside the visible area of the editor.
+     */
+    public int[] toLogicalPosition(int screenX, int screenY) {
+        int relativeX = screenX - editorX;
+        int relativeY = screenY - editorY;
+        if ((relativeX - visibleX) < 0 || (relativeY - visibleY) < 0
+                || (relativeX - visibleX) > visibleWidth || (relativeY - visibleY) > visibleHeight) {
+            return null;
+        }
+        int line = Math.max(0, Math.floorDiv(relativeY - originY, lineHeight));
+        int column = Math.max(0, (int) Math.round((relativeX - originX) / charWidth));
+        return new int[]{line, column};
+    }
+
+    /**
+     * Get the offset in a text of a logical position, expanding tabs like the editor does.
+     *
+     * @param text       The text.
+     * @param lineStarts The offsets of the starts of the lines of the text.
+     * @param line       The line.
+     * @param column     The column.
+     * @return The offset, clamped to the end of the line.
+     */
+    public int toOffset(CharSequence text, int[] lineStarts, int line, int column) {
+        if (line >= lineStarts.length) {
+            return text.length();
+        }
+        int offset = lineStarts[line];
+        int lineEnd = line + 1 < lineStarts.length ? lineStarts[line + 1] - 1 : text.length();
+        int currentColumn = 0;
+        while (offset < lineEnd && currentColumn < column) {
+            currentColumn = text.charAt(offset) == '\t' ? (currentColumn / tabSize + 1) * tabSize : currentColumn + 1;
+            if (currentColumn > column) {
+                break;
+            }
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Get the logical position of an offset in a text, as {@code line:column}, expanding tabs like the editor does.
+     *
+     * @param text       The text.
+     * @param lineStarts The offsets of the starts of the lines of the text.
+     * @param offset     The offset.
+     * @return The logical position.
+     */
+    public String toLogicalPosition(CharSequence text, int[] lineStarts, int offset) {
+        int line = java.util.Arrays.binarySearch(lineStarts, offset);
+        if (line < 0) {
+            line = -line - 2;
+        }
+        int column = 0;
+        for (int i = lineStarts[line]; i < offset && i < text.length(); i++) {
+            column = text.charAt(i) == '\t' ? (column / tabSize + 1) * tabSize : column + 1;
+        }
+        return line + ":" + column;
+    }
+
+    /**
+     * Get the offsets of the starts of the lines of a text.
+     *
+     * @param text The text.
+     * @return The offsets of the starts of the lines.
+     */
+    public static int[] getLineStarts(CharSequence text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        int[] lineStarts = new int[count];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineStarts[line++] = i + 1;
+            }
+        }
+        return lineStarts;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
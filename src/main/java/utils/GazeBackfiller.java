@@ -0,0 +1,317 @@
+package utils;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class maps the gazes and fixations of a session recorded with the deferred gaze resolution policy to the source
+ * code after the session, i.e., it backfills their {@code <location>} and {@code <ast_structure>}. Instead of the live
+ * editor, it uses the {@code <editor_geometry>} elements of {@code eye_tracking.xml} to find the logical position of
+ * each gaze, and the archived file contents of {@link ArchiveIndex} to find the AST under it. Each archived version of
+ * a file is parsed once, and the versions are processed in parallel across the cores.
+ * <p>
+ * The logical position is computed from the line height and the character width of the editor, so gazes on editors
+ * with folded regions, soft wraps or inlays may be mapped to a wrong line or column. The result is written to
+ * {@code eye_tracking_backfilled.xml}, and the raw {@code eye_tracking.xml} is kept as is.
+ */
+public class GazeBackfiller {
+    /**
+     * The name of the backfilled eye tracking file in the session folder.
+     */
+    public static final String OUTPUT_FILE = "eye_tracking_backfilled.xml";
+
+    /**
+     * A gaze or fixation to map.
+     */
+    private static final class Target {
+        final Element element;
+        final long timestamp;
+        final int x, y;
+        EditorGeometry geometry;
+        int line, column;
+        String path;
+        long archiveTimestamp;
+        /**
+         * The result of the mapping, computed in parallel and appended to the document afterward.
+         */
+        String token = "", type = "";
+        List<String[]> levels = List.of();
+        int leafStart = -1;
+        String remark;
+
+        Target(Element element, long timestamp, int x, int y) {
+            this.element = element;
+            this.timestamp = timestamp;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private final Project project;
+    private final File sessionDirectory;
+
+    /**
+     * The constructor of the backfiller.
+     *
+     * @param project          The project, used to parse the archived files.
+     * @param sessionDirectory The session folder, i.e., {@code [OUTPUT_DIR]/[START_TIMESTAMP]}.
+     */
+    public GazeBackfiller(Project project, File sessionDirectory) {
+        this.project = project;
+        this.sessionDirectory = sessionDirectory;
+    }
+
+    /**
+     * Map the unmapped gazes and fixations of the session and write {@link #OUTPUT_FILE}.
+     *
+     * @param indicator The progress indicator.
+     * @return The number of mapped gazes and fixations.
+     */
+    public int backfill(ProgressIndicator indicator) throws IOException, ParserConfigurationException, SAXException,
+            TransformerException, InterruptedException {
+        indicator.setText("Loading eye tracking data");
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new File(sessionDirectory, "eye_tracking.xml"));
+        Element setting = (Element) document.getElementsByTagName("setting").item(0);
+        if (setting == null || setting.getAttribute("screen_width").isEmpty()) {
+            throw new IOException("The session has no screen size; it was not recorded with the deferred policy.");
+        }
+        double screenWidth = Double.parseDouble(setting.getAttribute("screen_width"));
+        double screenHeight = Double.parseDouble(setting.getAttribute("screen_height"));
+
+        List<EditorGeometry> geometries = new ArrayList<>();
+        NodeList geometryElements = document.getElementsByTagName("editor_geometry");
+        for (int i = 0; i < geometryElements.getLength(); i++) {
+            geometries.add(new EditorGeometry((Element) geometryElements.item(i)));
+        }
+        geometries.sort(Comparator.comparingLong(EditorGeometry::getTimestamp));
+        ArchiveIndex archiveIndex = new ArchiveIndex(sessionDirectory.getPath());
+
+        List<Target> gazeTargets = new ArrayList<>();
+        NodeList gazeElements = document.getElementsByTagName("gaze");
+        for (int i = 0; i < gazeElements.getLength(); i++) {
+            Element gaze = (Element) gazeElements.item(i);
+            Element leftEye = getChild(gaze, "left_eye");
+            Element rightEye = getChild(gaze, "right_eye");
+            if (!gaze.getAttribute("remark").isEmpty() || getChild(gaze, "location") != null
+                    || leftEye == null || rightEye == null) {
+                continue;
+            }
+            try {
+                int x = (int) ((Double.parseDouble(leftEye.getAttribute("gaze_point_x"))
+                        + Double.parseDouble(rightEye.getAttribute("gaze_point_x"))) / 2 * screenWidth);
+                int y = (int) ((Double.parseDouble(leftEye.getAttribute("gaze_point_y"))
+                        + Double.parseDouble(rightEye.getAttribute("gaze_point_y"))) / 2 * screenHeight);
+                gazeTargets.add(new Target(gaze, Long.parseLong(gaze.getAttribute("timestamp")), x, y));
+            } catch (NumberFormatException e) {
+                // invalid gaze point, e.g., "nan"
+            }
+        }
+        List<Target> fixationTargets = new ArrayList<>();
+        NodeList fixationElements = document.getElementsByTagName("fixation");
+        for (int i = 0; i < fixationElements.getLength(); i++) {
+            Element fixation = (Element) fixationElements.item(i);
+            if (!fixation.getAttribute("remark").isEmpty() || getChild(fixation, "location") != null) {
+                continue;
+            }
+            fixationTargets.add(new Target(fixation, Long.parseLong(fixation.getAttribute("start_timestamp")),
+                    Integer.parseInt(fixation.getAttribute("x")), Integer.parseInt(fixation.getAttribute("y"))));
+        }
+
+        // resolve the logical positions and group the targets by archived file version
+        Map<String, List<Target>> versions = new LinkedHashMap<>();
+        List<Target> targets = new ArrayList<>(gazeTargets);
+        targets.addAll(fixationTargets);
+        for (Target target : targets) {
+            EditorGeometry geometry = floor(geometries, target.timestamp);
+            if (geometry == null || geometry.getPath().isEmpty()) {
+                target.remark = "Fail | No Editor";
+                continue;
+            }
+            int[] logicalPosition = geometry.toLogicalPosition(target.x, target.y);
+            if (logicalPosition == null) {
+                target.remark = "Fail | Out of Text Editor";
+                continue;
+            }
+            long archiveTimestamp = archiveIndex.getArchiveTimestamp(geometry.getPath(), target.timestamp);
+            if (archiveTimestamp < 0) {
+                target.remark = "Fail | No Archive";
+                continue;
+            }
+            target.geometry = geometry;
+            target.line = logicalPosition[0];
+            target.column = logicalPosition[1];
+            target.path = geometry.getPath();
+            target.archiveTimestamp = archiveTimestamp;
+            versions.computeIfAbsent(target.path + "@" + archiveTimestamp, key -> new ArrayList<>()).add(target);
+        }
+
+        indicator.setText("Mapping gazes to the archived files");
+        indicator.setIndeterminate(false);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Target> version : versions.values()) {
+                futures.add(executor.submit(() -> {
+                    indicator.checkCanceled();
+                    mapVersion(archiveIndex, version);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ProcessCanceledException canceled) {
+                        throw canceled;
+                    }
+                    if (e.getCause() instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+                indicator.setFraction((double) (i + 1) / futures.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        indicator.setText("Writing " + OUTPUT_FILE);
+        int mappedCount = append(document, gazeTargets) + append(document, fixationTargets);
+        setting.setAttribute("backfilled", String.valueOf(System.currentTimeMillis()));
+        XMLWriter.writeToXML(document, new File(sessionDirectory, OUTPUT_FILE).getPath());
+        return mappedCount;
+    }
+
+    /**
+     * Map the targets on one archived version of a file. The version is parsed once into a PSI file outside the
+     * project, in a read action, so that several versions can be mapped in parallel.
+     *
+     * @param archiveIndex The archive index.
+     * @param version      The targets on the version, which all have the same path and archive timestamp.
+     */
+    private void mapVersion(ArchiveIndex archiveIndex, List<Target> version) throws IOException {
+        Target first = version.get(0);
+        String content = archiveIndex.getFileContentAt(first.path, first.archiveTimestamp);
+        if (content == null) {
+            version.forEach(target -> target.remark = "Fail | No Archive");
+            return;
+        }
+        int[] lineStarts = EditorGeometry.getLineStarts(content);
+        String fileName = new File(first.path).getName();
+        ReadAction.run(() -> {
+            PsiFile psiFile = PsiFileFactory.getInstance(project).createFileFromText(fileName, content);
+            for (Target target : version) {
+                int offset = target.geometry.toOffset(content, lineStarts, target.line, target.column);
+                PsiElement psiElement = psiFile.findElementAt(offset);
+                if (psiElement != null && psiElement.getTextLength() > 0) {
+                    target.token = psiElement.getText();
+                    target.type = psiElement.getNode().getElementType().toString();
+                    target.leafStart = psiElement.getTextRange().getStartOffset();
+                }
+                List<String[]> levels = new ArrayList<>();
+                PsiElement parent = psiElement;
+                while (parent != null && !(parent instanceof PsiFile)) {
+                    levels.add(new String[]{String.valueOf(parent),
+                            target.geometry.toLogicalPosition(content, lineStarts, parent.getTextRange().getStartOffset()),
+                            target.geometry.toLogicalPosition(content, lineStarts, parent.getTextRange().getEndOffset())});
+                    parent = parent.getParent();
+                }
+                target.levels = levels;
+            }
+        });
+    }
+
+    /**
+     * Append the results of the mapping to the elements, in document order. As with the live mapping, the AST
+     * structure of a target on the same leaf as the previous target is recorded with the remark
+     * {@code Same (Last Successful AST)}.
+     *
+     * @param document The eye tracking document.
+     * @param targets  The targets, in document order.
+     * @return The number of mapped targets.
+     */
+    private static int append(Document document, List<Target> targets) {
+        int mappedCount = 0;
+        String lastLeaf = null;
+        for (Target target : targets) {
+            if (target.remark != null) {
+                target.element.setAttribute("remark", target.remark);
+                continue;
+            }
+            Element location = document.createElement("location");
+            location.setAttribute("x", String.valueOf(target.x));
+            location.setAttribute("y", String.valueOf(target.y));
+            location.setAttribute("line", String.valueOf(target.line));
+            location.setAttribute("column", String.valueOf(target.column));
+            location.setAttribute("path", target.path);
+            target.element.appendChild(location);
+
+            Element aSTStructure = document.createElement("ast_structure");
+            aSTStructure.setAttribute("token", target.token);
+            aSTStructure.setAttribute("type", target.type);
+            String leaf = target.leafStart < 0 ? null : target.path + "@" + target.archiveTimestamp + "#" + target.leafStart;
+            if (leaf != null && leaf.equals(lastLeaf)) {
+                aSTStructure.setAttribute("remark", "Same (Last Successful AST)");
+            } else {
+                for (String[] levelData : target.levels) {
+                    Element level = document.createElement("level");
+                    level.setAttribute("tag", levelData[0]);
+                    level.setAttribute("start", levelData[1]);
+                    level.setAttribute("end", levelData[2]);
+                    aSTStructure.appendChild(level);
+                }
+            }
+            target.element.appendChild(aSTStructure);
+            lastLeaf = leaf;
+            mappedCount++;
+        }
+        return mappedCount;
+    }
+
+    /**
+     * Find the editor geometry in effect at the given timestamp, i.e., the latest one not later than the timestamp.
+     */
+    private static EditorGeometry floor(List<EditorGeometry> geometries, long timestamp) {
+        int low = 0;
+        int high = geometries.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (geometries.get(mid).getTimestamp() <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 ? geometries.get(high) : null;
+    }
+
+    private static Element getChild(Element element, String tag) {
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element childElement && childElement.getTagName().equals(tag)) {
+                return childElement;
+            }
+        }
+        return null;
+    }
+}
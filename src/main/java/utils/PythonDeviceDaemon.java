@@ -0,0 +1,361 @@
+package utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * This class is a long-lived Python process that answers the availability checks and streams the gaze samples of the
+ * mouse or the Tobii eye tracker, so that {@code tobii_research} is imported and the eye tracker is discovered once,
+ * instead of in a new process for each check and each tracking session. It is started on first use and kept warm
+ * across the sessions, and exits when its standard input is closed, e.g., when the IDE exits.
+ * <p>
+ * The commands are sent one per line to the standard input of the process. The responses are printed to its standard
+ * output as lines starting with {@code "# "}, and all other lines are gaze samples in the raw data format of
+ * {@link trackers.EyeTracker#processRawData(String)}:
+ * <ul>
+ *     <li>{@code CHECK_ENV}: {@code OK}, or {@code ERROR} and the reason if a required package is missing.</li>
+ *     <li>{@code CHECK_TRACKER}: {@code Found} or {@code Not Found}. The eye tracker is discovered once, and again
+ *     while it is not found.</li>
+ *     <li>{@code NAME}: the name of the eye tracker, or {@code Not Found}.</li>
+ *     <li>{@code FREQUENCIES}: the gaze output frequencies of the eye tracker, e.g., {@code (30.0, 60.0)}.</li>
+ *     <li>{@code CAPABILITIES}: {@code OK}, the serial number, the name and the frequencies of the eye tracker,
+ *     separated by tabs, or {@code Not Found}, or {@code ERROR} and the reason if a required package is missing. The
+ *     eye tracker is discovered again, unless it is streaming, so that a replaced eye tracker is noticed.</li>
+ *     <li>{@code CLOCK}: the current value of {@code time.perf_counter_ns()}, see {@link #calibrateClock(int)}.</li>
+ *     <li>{@code START MOUSE|TOBII <frequency>}: {@code STARTED}, followed by the samples. Each sample has a fourth
+ *     field, the time at which it was captured in nanoseconds of {@code time.perf_counter_ns()}. The samples of the
+ *     Tobii eye tracker are timed by the clock of the eye tracker, mapped to {@code time.perf_counter_ns()}.</li>
+ *     <li>{@code STOP}: {@code STOPPED}.</li>
+ * </ul>
+ */
+public class PythonDeviceDaemon {
+    /**
+     * The time to wait for a response, long enough for the first import of {@code tobii_research} and the discovery of
+     * the eye tracker.
+     */
+    private static final long REQUEST_TIMEOUT_SECONDS = 60;
+    private static final String EXITED_RESPONSE = "ERROR Python device daemon exited";
+    private static final String DAEMON_SCRIPT = """
+            import sys
+            import threading
+            import time
+
+            lock = threading.Lock()
+
+
+            def emit(line):
+                with lock:
+                    sys.stdout.write(line + '\\n')
+                    sys.stdout.flush()
+
+
+            def respond(message):
+                emit('# ' + str(message))
+
+
+            environment_error = None
+            try:
+                import tobii_research as tr
+                from screeninfo import get_monitors
+                import pyautogui
+            except Exception as e:
+                environment_error = repr(e)
+
+            eyetracker = None
+
+
+            def find_eyetracker(rescan=False):
+                global eyetracker
+                if environment_error is not None:
+                    return None
+                if eyetracker is None or (rescan and streaming != 'TOBII'):
+                    found_eyetrackers = tr.find_all_eyetrackers()
+                    eyetracker = found_eyetrackers[0] if len(found_eyetrackers) > 0 else None
+                return eyetracker
+
+
+            tobii_clock_offset = 0
+
+
+            def calibrate_tobii_clock():
+                global tobii_clock_offset
+                # the offset from the clock of the Tobii SDK in microseconds to time.perf_counter_ns()
+                best = None
+                for _ in range(10):
+                    before = time.perf_counter_ns()
+                    system_time = tr.get_system_time_stamp()
+                    after = time.perf_counter_ns()
+                    if best is None or after - before < best[0]:
+                        best = (after - before, (before + after) // 2 - system_time * 1000)
+                tobii_clock_offset = best[1]
+
+
+            def gaze_data_callback(gaze_data):
+                emit('{}; {}, {}, {}, {}, {}; {}, {}, {}, {}, {}; {}'.format(
+                    round(time.time() * 1000),
+                    gaze_data['left_gaze_point_on_display_area'][0],
+                    gaze_data['left_gaze_point_on_display_area'][1],
+                    gaze_data['left_gaze_point_validity'],
+                    gaze_data['left_pupil_diameter'],
+                    gaze_data['left_pupil_validity'],
+                    gaze_data['right_gaze_point_on_display_area'][0],
+                    gaze_data['right_gaze_point_on_display_area'][1],
+                    gaze_data['right_gaze_point_validity'],
+                    gaze_data['right_pupil_diameter'],
+                    gaze_data['right_pupil_validity'],
+                    gaze_data['system_time_stamp'] * 1000 + tobii_clock_offset
+                ))
+
+
+            def stream_mouse(freq, stop):
+                width, height = get_monitors()[0].width, get_monitors()[0].height
+                period = 1 / freq
+                next_time = time.perf_counter()
+                while not stop.is_set():
+                    delay = next_time - time.perf_counter()
+                    if delay > 0 and stop.wait(delay):
+                        break
+                    x, y = pyautogui.position()
+                    emit(f'{round(time.time() * 1000)}; {x / width}, {y / height}, 1.0, 0, 0.0; '
+                         f'{x / width}, {y / height}, 1.0, 0, 0.0; {time.perf_counter_ns()}')
+                    next_time += period
+                    if next_time < time.perf_counter() - period:
+                        next_time = time.perf_counter()
+
+
+            streaming = None
+            mouse_stop = None
+            mouse_thread = None
+
+
+            def stop_streaming():
+                global streaming
+                if streaming == 'TOBII':
+                    eyetracker.unsubscribe_from(tr.EYETRACKER_GAZE_DATA, gaze_data_callback)
+                elif streaming == 'MOUSE':
+                    mouse_stop.set()
+                    mouse_thread.join()
+                streaming = None
+
+
+            while True:
+                line = sys.stdin.readline()
+                if not line:
+                    break
+                command = line.split()
+                if not command:
+                    continue
+                try:
+                    if command[0] == 'CHECK_ENV':
+                        respond('OK' if environment_error is None else 'ERROR ' + environment_error)
+                    elif command[0] == 'CHECK_TRACKER':
+                        respond('Found' if find_eyetracker() is not None else 'Not Found')
+                    elif command[0] == 'NAME':
+                        tracker = find_eyetracker()
+                        respond(tracker.device_name if tracker is not None else 'Not Found')
+                    elif command[0] == 'FREQUENCIES':
+                        tracker = find_eyetracker()
+                        respond(tracker.get_all_gaze_output_frequencies() if tracker is not None else 'Not Found')
+                    elif command[0] == 'CAPABILITIES':
+                        if environment_error is not None:
+                            respond('ERROR ' + environment_error)
+                            continue
+                        tracker = find_eyetracker(rescan=True)
+                        if tracker is None:
+                            respond('Not Found')
+                            continue
+                        respond('\t'.join(['OK', tracker.serial_number, tracker.device_name,
+                                           str(tracker.get_all_gaze_output_frequencies())]))
+                    elif command[0] == 'START':
+                        stop_streaming()
+                        freq = float(command[2])
+                        if environment_error is not None:
+                            respond('ERROR ' + environment_error)
+                            continue
+                        if command[1] == 'TOBII':
+                            tracker = find_eyetracker()
+                            if tracker is None:
+                                respond('ERROR Not Found')
+                                continue
+                            tracker.set_gaze_output_frequency(freq)
+                            calibrate_tobii_clock()
+                            tracker.subscribe_to(tr.EYETRACKER_GAZE_DATA, gaze_data_callback, as_dictionary=True)
+                        else:
+                            mouse_stop = threading.Event()
+                            mouse_thread = threading.Thread(target=stream_mouse, args=(freq, mouse_stop), daemon=True)
+                            mouse_thread.start()
+                        streaming = command[1]
+                        respond('STARTED')
+                    elif command[0] == 'CLOCK':
+                        respond(time.perf_counter_ns())
+                    elif command[0] == 'STOP':
+                        stop_streaming()
+                        respond('STOPPED')
+                    else:
+                        respond('ERROR Unknown command ' + command[0])
+                except Exception as e:
+                    respond('ERROR ' + repr(e))
+            stop_streaming()
+            """;
+
+    private static PythonDeviceDaemon instance;
+
+    private final String pythonInterpreter;
+    private final Process process;
+    private final BufferedWriter writer;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private volatile Consumer<String> sampleConsumer;
+
+    /**
+     * Get the daemon of the Python interpreter, starting it if it is not running.
+     *
+     * @param pythonInterpreter The path of the Python interpreter.
+     * @return The daemon.
+     */
+    public static synchronized PythonDeviceDaemon getInstance(String pythonInterpreter) throws IOException {
+        if (instance == null || !instance.process.isAlive() || !instance.pythonInterpreter.equals(pythonInterpreter)) {
+            if (instance != null) {
+                instance.shutdown();
+            }
+            instance = new PythonDeviceDaemon(pythonInterpreter);
+        }
+        return instance;
+    }
+
+    private PythonDeviceDaemon(String pythonInterpreter) throws IOException {
+        this.pythonInterpreter = pythonInterpreter;
+        ProcessBuilder processBuilder = new ProcessBuilder(pythonInterpreter, "-u", "-c", DAEMON_SCRIPT);
+        // the tracebacks go to the IDE log instead of being mistaken for samples
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        process = processBuilder.start();
+        writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        Thread readerThread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("# ")) {
+                        responses.offer(line.substring(2));
+                        continue;
+                    }
+                    Consumer<String> consumer = sampleConsumer;
+                    if (consumer != null) {
+                        consumer.accept(line);
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                responses.offer(EXITED_RESPONSE);
+            }
+        }, "CodeGRITS Python Device Daemon");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Send a command and wait for its response.
+     *
+     * @param command The command.
+     * @return The response, without the {@code "# "} prefix.
+     */
+    public synchronized String request(String command) throws IOException, InterruptedException {
+        if (!process.isAlive()) {
+            return EXITED_RESPONSE;
+        }
+        responses.clear();
+        writer.write(command);
+        writer.newLine();
+        writer.flush();
+        String response = responses.poll(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (response == null) {
+            throw new IOException("The Python device daemon did not answer " + command);
+        }
+        return response;
+    }
+
+    /**
+     * Start streaming the gaze samples of a device.
+     *
+     * @param device          The device, {@code MOUSE} or {@code TOBII}.
+     * @param sampleFrequency The sample frequency.
+     * @param consumer        The consumer of the raw data messages, called on the reader thread of the daemon.
+     */
+    public void startStreaming(String device, double sampleFrequency, Consumer<String> consumer) throws IOException, InterruptedException {
+        sampleConsumer = consumer;
+        String response = request("START " + device + " " + sampleFrequency);
+        if (!response.equals("STARTED")) {
+            sampleConsumer = null;
+            throw new IOException("Failed to start " + device + ": " + response);
+        }
+    }
+
+    /**
+     * Stop streaming the gaze samples. The daemon keeps running for the next session.
+     */
+    public void stopStreaming() throws IOException, InterruptedException {
+        try {
+            request("STOP");
+        } finally {
+            sampleConsumer = null;
+        }
+    }
+
+    /**
+     * Measure the offset from {@code time.perf_counter_ns()} of the daemon to {@link System#nanoTime()}, so that the
+     * capture times of the samples can be converted to the {@link SessionClock}. The offset is estimated from the
+     * round trip with the smallest delay, assuming that the response is produced halfway through it.
+     *
+     * @param rounds The number of round trips.
+     * @return The offset to add to a time of the daemon, and the uncertainty of the offset, i.e., half of the smallest
+     * round-trip delay, both in nanoseconds.
+     */
+    public synchronized long[] calibrateClock(int rounds) throws IOException, InterruptedException {
+        long bestDelay = Long.MAX_VALUE;
+        long bestOffset = 0;
+        for (int i = 0; i < rounds; i++) {
+            long before = System.nanoTime();
+            String response = request("CLOCK");
+            long after = System.nanoTime();
+            long daemonTime;
+            try {
+                daemonTime = Long.parseLong(response);
+            } catch (NumberFormatException e) {
+                throw new IOException("Failed to read the clock of the Python device daemon: " + response);
+            }
+            if (after - before < bestDelay) {
+                bestDelay = after - before;
+                bestOffset = before + (after - before) / 2 - daemonTime;
+            }
+        }
+        return new long[]{bestOffset, bestDelay / 2};
+    }
+
+    /**
+     * Get the CPU time used by the daemon since it started, as reported by the operating system.
+     *
+     * @return The CPU time in nanoseconds, or -1 if it is unknown.
+     */
+    public long getCpuTime() {
+        return process.toHandle().info().totalCpuDuration().map(Duration::toNanos).orElse(-1L);
+    }
+
+    /**
+     * Stop the daemon by closing its standard input.
+     */
+    public synchronized void shutdown() {
+        try {
+            writer.close();
+            process.waitFor(500, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        process.destroy();
+    }
+}
@@ -0,0 +1,90 @@
+package utils;
+
+/**
+ * This class is the time base shared by the IDE tracker, the eye tracker and the screen recorder during a tracking
+ * session. It reads the wall clock once, when the session starts, and measures the elapsed time with the monotonic
+ * {@link System#nanoTime()} afterwards, so that the timestamps of a session are comparable across the trackers with
+ * sub-millisecond resolution and are not affected by NTP adjustments of the wall clock during the session.
+ * <p>
+ * The timestamps are in nanoseconds since the Unix epoch, i.e., the anchor on the wall clock plus the monotonic time
+ * elapsed since the anchor. The millisecond timestamps in the data files are the same timestamps truncated to
+ * milliseconds.
+ */
+public class SessionClock {
+    private static volatile SessionClock instance = new SessionClock();
+
+    private final long anchorEpochMillis;
+    private final long anchorNanoTime;
+
+    private SessionClock() {
+        anchorNanoTime = System.nanoTime();
+        anchorEpochMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Start the clock of a new tracking session, anchored at the current wall-clock time.
+     *
+     * @return The clock of the session.
+     */
+    public static SessionClock start() {
+        instance = new SessionClock();
+        return instance;
+    }
+
+    /**
+     * Get the clock of the current tracking session, or of the IDE process if no session has been started.
+     *
+     * @return The clock.
+     */
+    public static SessionClock getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the current time.
+     *
+     * @return The time in nanoseconds since the Unix epoch.
+     */
+    public long nanoTime() {
+        return toEpochNanos(System.nanoTime());
+    }
+
+    /**
+     * Get the current time in milliseconds, which replaces {@link System#currentTimeMillis()} in the data files.
+     *
+     * @return The time in milliseconds since the Unix epoch.
+     */
+    public long currentTimeMillis() {
+        return toMillis(nanoTime());
+    }
+
+    /**
+     * Convert a value of {@link System#nanoTime()} to the time of this clock, e.g., for a sample scheduled or
+     * captured before it is written.
+     *
+     * @param systemNanoTime The value of {@link System#nanoTime()}.
+     * @return The time in nanoseconds since the Unix epoch.
+     */
+    public long toEpochNanos(long systemNanoTime) {
+        return anchorEpochMillis * 1_000_000 + (systemNanoTime - anchorNanoTime);
+    }
+
+    /**
+     * Truncate a time of this clock to milliseconds.
+     *
+     * @param epochNanos The time in nanoseconds since the Unix epoch.
+     * @return The time in milliseconds since the Unix epoch.
+     */
+    public static long toMillis(long epochNanos) {
+        return Math.floorDiv(epochNanos, 1_000_000);
+    }
+
+    /**
+     * Get the wall-clock time at which the clock was anchored, recorded as {@code clock_anchor} in the data files.
+     *
+     * @return The time in milliseconds since the Unix epoch.
+     */
+    public long getAnchorEpochMillis() {
+        return anchorEpochMillis;
+    }
+}